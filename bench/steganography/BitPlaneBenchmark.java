@@ -0,0 +1,167 @@
+package steganography;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of {@link Steganography#encodeBytes} and
+ * {@link Steganography#decodeBytes} filling an image to capacity, and of
+ * the run kernels they are built on against going a pixel at a time.
+ * <br>
+ * Next to the operations per second JMH reports the megabytes counter as a
+ * rate, which is the payload throughput in MB/s.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BitPlaneBenchmark {
+
+    /**
+     * Size of the image in megapixels
+     */
+    @Param({"1", "10", "100"})
+    public double megapixels;
+    /**
+     * Low bits used in every sample
+     */
+    @Param({"1", "2", "4"})
+    public int bitsPerSample;
+    /**
+     * Layout of the image's samples
+     */
+    @Param({"INT_RGB", "3BYTE_BGR", "4BYTE_ABGR", "USHORT_565", "BYTE_GRAY"})
+    public String imageType;
+
+    private BufferedImage toEncode;
+    private BufferedImage toDecode;
+    private byte[] payload;
+    private CarrierRaster raster;
+    private int[] chunks;
+    private double kernelMegabytes;
+
+    /**
+     * Megabytes of payload hidden or retrieved, reported as MB/s
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+
+        public double megabytes;
+    }// Payload
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int pixels = (int) (megapixels * 1000000);
+        int width = (int) Math.sqrt(pixels);
+        int height = pixels / width;
+        Random random = new Random(bitsPerSample);
+
+        int type = typeOf(imageType);
+        toEncode = noise(width, height, type, random);
+        toDecode = noise(width, height, type, random);
+        payload = new byte[Steganography.getByteCapacity(toEncode, bitsPerSample)];
+        random.nextBytes(payload);
+
+        Steganography.encodeBytes(payload, toDecode, bitsPerSample);
+
+        raster = CarrierRaster.wrap(toEncode);
+        chunks = new int[raster.getPixelCount()];
+        int chunkMask = (int) ((1L << bitsPerSample * raster.getSamples()) - 1);
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = random.nextInt() & chunkMask;
+        }// for
+        kernelMegabytes = (double) chunks.length * raster.getSamples()
+                * bitsPerSample / 8 / 1e6;
+    }// setUp()
+
+    @Benchmark
+    public BufferedImage encode(Payload counter) {
+        Steganography.encodeBytes(payload, toEncode, bitsPerSample);
+        counter.megabytes += payload.length / 1e6;
+        return toEncode;
+    }// encode ( Payload )
+
+    @Benchmark
+    public byte[] decode(Payload counter) {
+        byte[] toReturn = Steganography.decodeBytes(toDecode);
+        counter.megabytes += toReturn.length / 1e6;
+        return toReturn;
+    }// decode ( Payload )
+
+    @Benchmark
+    public int[] setRun(Payload counter) {
+        raster.setLowBits(0, chunks, chunks.length, bitsPerSample);
+        counter.megabytes += kernelMegabytes;
+        return chunks;
+    }// setRun ( Payload )
+
+    @Benchmark
+    public int[] setByPixel(Payload counter) {
+        CarrierRaster.setLowBitsByPixel(raster, 0, chunks, chunks.length,
+                bitsPerSample);
+        counter.megabytes += kernelMegabytes;
+        return chunks;
+    }// setByPixel ( Payload )
+
+    @Benchmark
+    public int[] getRun(Payload counter) {
+        raster.getLowBits(0, chunks, chunks.length, bitsPerSample);
+        counter.megabytes += kernelMegabytes;
+        return chunks;
+    }// getRun ( Payload )
+
+    @Benchmark
+    public int[] getByPixel(Payload counter) {
+        CarrierRaster.getLowBitsByPixel(raster, 0, chunks, chunks.length,
+                bitsPerSample);
+        counter.megabytes += kernelMegabytes;
+        return chunks;
+    }// getByPixel ( Payload )
+
+    private static BufferedImage noise(int width, int height, int type,
+            Random random) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        for (int i = 0; i < buffer.getSize(); i++) {
+            buffer.setElem(i, random.nextInt());
+        }// for
+        return image;
+    }// noise ( int , int , int , Random )
+
+    private static int typeOf(String name) {
+        switch (name) {
+            case "INT_RGB":
+                return BufferedImage.TYPE_INT_RGB;
+            case "3BYTE_BGR":
+                return BufferedImage.TYPE_3BYTE_BGR;
+            case "4BYTE_ABGR":
+                return BufferedImage.TYPE_4BYTE_ABGR;
+            case "USHORT_565":
+                return BufferedImage.TYPE_USHORT_565_RGB;
+            case "BYTE_GRAY":
+                return BufferedImage.TYPE_BYTE_GRAY;
+            default:
+                throw new IllegalArgumentException("Unknown image type " + name);
+        }// switch
+    }// typeOf ( String )
+}// BitPlaneBenchmark
@@ -0,0 +1,115 @@
+package steganography;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of {@link Steganography#encodeImage(String, BufferedImage)}
+ * and {@link Steganography#decodeImage(BufferedImage)} over a range of image
+ * sizes, image types and message lengths.
+ * <br>
+ * Run with <code>ant bench</code>, which also turns on the gc profiler so
+ * the allocation rate is reported next to the throughput.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CodecBenchmark {
+
+    /**
+     * Size of the image in megapixels
+     */
+    @Param({"0.1", "1", "10", "100"})
+    public double megapixels;
+    /**
+     * Layout of the image, one of the BufferedImage.TYPE_ names.  Grey
+     * images cannot hold characters, {@link BitPlaneBenchmark} covers them.
+     */
+    @Param({"INT_RGB", "3BYTE_BGR", "4BYTE_ABGR"})
+    public String imageType;
+    /**
+     * Number of characters in the hidden message
+     */
+    @Param({"1", "100", "1000"})
+    public int messageLength;
+
+    private BufferedImage toEncode;
+    private BufferedImage toDecode;
+    private String message;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int pixels = (int) (megapixels * 1000000);
+        int width = (int) Math.sqrt(pixels);
+        int height = pixels / width;
+        Random random = new Random(messageLength);
+
+        toEncode = noise(width, height, typeOf(imageType), random);
+        toDecode = noise(width, height, typeOf(imageType), random);
+
+        StringBuilder text = new StringBuilder(messageLength);
+        for (int i = 0; i < messageLength; i++) {
+            text.append((char) ('A' + random.nextInt(26)));
+        }// for
+        message = text.toString();
+
+        Steganography.encodeImage(message, toDecode);
+    }// setUp()
+
+    @Benchmark
+    public BufferedImage encode() {
+        Steganography.encodeImage(message, toEncode);
+        return toEncode;
+    }// encode()
+
+    @Benchmark
+    public String decode() {
+        return Steganography.decodeImage(toDecode);
+    }// decode()
+
+    /**
+     * Creates an image filled with random samples so that no channel sits
+     * on a value the codec treats specially.
+     */
+    private static BufferedImage noise(int width, int height, int type,
+            Random random) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        for (int i = 0; i < buffer.getSize(); i++) {
+            buffer.setElem(i, random.nextInt());
+        }// for
+        return image;
+    }// noise ( int , int , int , Random )
+
+    private static int typeOf(String name) {
+        switch (name) {
+            case "INT_RGB":
+                return BufferedImage.TYPE_INT_RGB;
+            case "3BYTE_BGR":
+                return BufferedImage.TYPE_3BYTE_BGR;
+            case "4BYTE_ABGR":
+                return BufferedImage.TYPE_4BYTE_ABGR;
+            default:
+                throw new IllegalArgumentException("Unknown image type " + name);
+        }// switch
+    }// typeOf ( String )
+}// CodecBenchmark
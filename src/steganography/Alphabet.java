@@ -0,0 +1,233 @@
+package steganography;
+
+import java.util.Arrays;
+
+/**
+ * The set of characters that can be hidden in an image and how each one is
+ * stored in a pixel.  Every character is split into three digits from 0 to 9
+ * that are added to the R, G and B values of its pixel.
+ * <br>
+ * Alphabets of up to 28 characters store a character's position in the
+ * alphabet as the sum of the three digits, which is how {@link #LETTERS}
+ * has always been stored.  Larger alphabets, up to 1000 characters, store
+ * the position as a three digit number instead: R holds the ones, G the
+ * tens and B the hundreds.
+ * <br>
+ * Both directions are looked up in tables built once when the alphabet is
+ * created, so hiding or retrieving a character is a single array access.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public final class Alphabet {
+
+    /**
+     * Space and the uppercase letters.  Lowercase letters are hidden as
+     * uppercase.  This is the alphabet used when none is given.
+     */
+    public static final Alphabet LETTERS =
+            new Alphabet(" ABCDEFGHIJKLMNOPQRSTUVWXYZ", true);
+    /**
+     * {@link #LETTERS} followed by the digits 0 - 9
+     */
+    public static final Alphabet ALPHANUMERIC =
+            new Alphabet(" ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789", true);
+    /**
+     * {@link #ALPHANUMERIC} followed by common punctuation
+     */
+    public static final Alphabet TEXT =
+            new Alphabet(" ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789.,;:!?'\"-()\n", true);
+    /**
+     * The most characters that can be stored as the sum of three digits
+     */
+    private static final int SUM_MAX = 28;
+    /**
+     * The most characters that can be stored as a three digit number
+     */
+    private static final int POSITIONAL_MAX = 1000;
+    /**
+     * Marks a character that is not in the alphabet
+     */
+    private static final int NOT_HIDDEN = -1;
+
+    /**
+     * The characters of the alphabet in order
+     */
+    private final String symbols;
+    /**
+     * Digits to hide for each character, packed as R | G &lt;&lt; 4 | B &lt;&lt; 8.
+     * Indexed by the character itself.
+     */
+    private final int[] digitTable;
+    /**
+     * The character for every key R + G * 10 + B * 100 that can be read
+     * back out of a pixel
+     */
+    private final char[] charTable;
+
+    /**
+     * Creates an alphabet.
+     * @param symbols The characters of the alphabet in the order they are
+     *  numbered in
+     * @param ignoreCase Whether lowercase and uppercase letters are hidden as
+     *  the character that appears in symbols
+     */
+    private Alphabet(String symbols, boolean ignoreCase) {
+        if (symbols.isEmpty() || symbols.length() > POSITIONAL_MAX) {
+            throw new IllegalArgumentException("An alphabet needs between 1 and "
+                    + POSITIONAL_MAX + " characters");
+        }// if
+        this.symbols = symbols;
+
+        int highest = 0;
+        for (int i = 0; i < symbols.length(); i++) {
+            char c = symbols.charAt(i);
+            highest = Math.max(highest, c);
+            if (ignoreCase) {
+                highest = Math.max(highest, Character.toLowerCase(c));
+                highest = Math.max(highest, Character.toUpperCase(c));
+            }// if
+        }// for
+
+        digitTable = new int[highest + 1];
+        Arrays.fill(digitTable, NOT_HIDDEN);
+        charTable = new char[POSITIONAL_MAX];
+        Arrays.fill(charTable, symbols.charAt(0));
+
+        boolean sum = symbols.length() <= SUM_MAX;
+
+        for (int value = symbols.length() - 1; value >= 0; value--) {
+            char c = symbols.charAt(value);
+            int[] digits = sum ? separateSum(value) : separatePositional(value);
+            int packed = digits[0] | digits[1] << 4 | digits[2] << 8;
+
+            digitTable[c] = packed;
+            if (ignoreCase) {
+                digitTable[Character.toLowerCase(c)] = packed;
+                digitTable[Character.toUpperCase(c)] = packed;
+            }// if
+        }// for
+
+        for (int key = 0; key < POSITIONAL_MAX; key++) {
+            int value = sum ? key % 10 + key / 10 % 10 + key / 100 : key;
+            if (value < symbols.length()) {
+                charTable[key] = symbols.charAt(value);
+            }// if
+        }// for
+    }// Alphabet ( String , boolean )
+
+    /**
+     * Creates an alphabet from its characters.  Characters of a message that
+     * are not in the alphabet are left out when it is hidden.
+     * @param symbols The characters of the alphabet, at most 1000.  The first
+     *  character is also what is read from a pixel that holds no character.
+     * @param ignoreCase Whether lowercase and uppercase letters are hidden as
+     *  the character that appears in symbols
+     * @return The alphabet
+     */
+    public static Alphabet of(String symbols, boolean ignoreCase) {
+        return new Alphabet(symbols, ignoreCase);
+    }// of ( String , boolean )
+
+    /**
+     * @return The characters of the alphabet in order
+     */
+    public String getSymbols() {
+        return symbols;
+    }// getSymbols()
+
+    /**
+     * @return The number of characters in the alphabet
+     */
+    public int size() {
+        return symbols.length();
+    }// size()
+
+    /**
+     * @param c A character from a message
+     * @return Whether the character can be hidden with this alphabet
+     */
+    public boolean contains(char c) {
+        return c < digitTable.length && digitTable[c] != NOT_HIDDEN;
+    }// contains ( char )
+
+    /**
+     * Strips a message down to the characters in this alphabet.
+     * The message is scanned twice so the result is allocated only once.
+     * @param message The message to be hidden
+     * @return The characters of the message that can be hidden
+     */
+    char[] filter(CharSequence message) {
+        int length = 0;
+        for (int i = 0; i < message.length(); i++) {
+            if (contains(message.charAt(i))) {
+                length++;
+            }// if
+        }// for
+
+        char[] toReturn = new char[length];
+        length = 0;
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (contains(c)) {
+                toReturn[length++] = c;
+            }// if
+        }// for
+
+        return toReturn;
+    }// filter ( CharSequence )
+
+    /**
+     * Looks up the digits that hide a character.
+     * @param c A character in this alphabet
+     * @return The digits packed as R | G &lt;&lt; 4 | B &lt;&lt; 8
+     */
+    int digitsOf(char c) {
+        return digitTable[c];
+    }// digitsOf ( char )
+
+    /**
+     * Looks up the character hidden by three digits.
+     * @param r The digit in the R value
+     * @param g The digit in the G value
+     * @param b The digit in the B value
+     * @return The hidden character
+     */
+    char charOf(int r, int g, int b) {
+        return charTable[r + g * 10 + b * 100];
+    }// charOf ( int , int , int )
+
+    /**
+     * Splits a value so the three digits add up to it, filling R first.
+     * @param value The value to be split, 0 - 27
+     * @return An array of three digits
+     */
+    private static int[] separateSum(int value) {
+        int[] toReturn = {0, 0, 0};
+
+        if (value > 9) {
+            toReturn[0] = 9;
+            value -= 9;
+        }// if
+        if (value > 9) {
+            toReturn[1] = 9;
+            value -= 9;
+        }// if
+
+        toReturn[2] = value;
+        return toReturn;
+    }// separateSum ( int )
+
+    /**
+     * Splits a value into its ones, tens and hundreds.
+     * @param value The value to be split, 0 - 999
+     * @return An array of three digits
+     */
+    private static int[] separatePositional(int value) {
+        return new int[]{value % 10, value / 10 % 10, value / 100};
+    }// separatePositional ( int )
+
+    @Override
+    public String toString() {
+        return "Alphabet[" + symbols + "]";
+    }// toString()
+}// Alphabet
@@ -0,0 +1,233 @@
+package steganography;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Runs the slow steps of hiding a message, reading the image, encoding or
+ * decoding and writing the result, on background threads.  Each call
+ * returns at once with a {@link CodecTask} that can be waited on or
+ * cancelled, and reports the rows it has done to a listener as it goes.
+ * <br>
+ * Only {@link #encodeCopy} is offered for encoding, so a cancelled encode
+ * never leaves the caller's image half changed.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public final class AsyncCodec {
+
+    /**
+     * Threads are made as tasks come and go, so a task never waits behind
+     * another
+     */
+    private static final ExecutorService tasks =
+            Executors.newCachedThreadPool(new DaemonThreads("steg-codec"));
+
+    private AsyncCodec() {
+    }// AsyncCodec()
+
+    /**
+     * Reads an image file.
+     * @param file The image
+     * @param listener Told the rows read so far, or null
+     * @return The task, whose result is the image.  It fails with an
+     *  IOException if the file cannot be read as an image.
+     */
+    public static CodecTask<BufferedImage> read(final File file,
+            ProgressListener listener) {
+        final Progress progress = new Progress(listener);
+        return start(new Callable<BufferedImage>() {
+            @Override
+            public BufferedImage call() throws IOException {
+                return read(file, progress);
+            }// call()
+        }, progress);
+    }// read ( File , ProgressListener )
+
+    /**
+     * Encodes a message into a new image, leaving the original alone.
+     * @param message The message to be encoded
+     * @param original The image to start from, which is not changed
+     * @param alphabet The characters that can be hidden and how
+     * @param listener Told the rows searched for carriers so far, or null
+     * @return The task, whose result is the encoded image.  It fails with
+     *  an IllegalArgumentException if the message is empty or too long.
+     * @see Steganography#encodeCopy(String, BufferedImage, Alphabet)
+     */
+    public static CodecTask<EncodedImage> encodeCopy(final String message,
+            final BufferedImage original, final Alphabet alphabet,
+            ProgressListener listener) {
+        final Progress progress = new Progress(listener);
+        return start(new Callable<EncodedImage>() {
+            @Override
+            public EncodedImage call() {
+                return Steganography.encodeCopy(message, original, alphabet,
+                        progress);
+            }// call()
+        }, progress);
+    }// encodeCopy ( String , BufferedImage , Alphabet , ProgressListener )
+
+    /**
+     * Retrieves the message hidden in an image.
+     * @param toDecode The image holding the message
+     * @param alphabet The alphabet the message was hidden with
+     * @param listener Told the rows searched for carriers so far, or null
+     * @return The task, whose result is the message, or null if the image
+     *  holds none
+     * @see Steganography#decodeImage(RenderedImage, Alphabet)
+     */
+    public static CodecTask<String> decode(final RenderedImage toDecode,
+            final Alphabet alphabet, ProgressListener listener) {
+        final Progress progress = new Progress(listener);
+        return start(new Callable<String>() {
+            @Override
+            public String call() {
+                return Steganography.decodeImage(toDecode, alphabet, progress);
+            }// call()
+        }, progress);
+    }// decode ( RenderedImage , Alphabet , ProgressListener )
+
+    /**
+     * Writes an image to a file, replacing anything already there.  If the
+     * task is cancelled or the write fails the part written is deleted.
+     * @param image The image to write
+     * @param file Where to write it
+     * @param writer The format and compression to write with
+     * @param listener Told the rows written so far, or null
+     * @return The task, which fails with an IOException if the file cannot
+     *  be written
+     */
+    public static CodecTask<Void> write(final RenderedImage image,
+            final File file, final ImageFileWriter writer,
+            ProgressListener listener) {
+        final Progress progress = new Progress(listener);
+        return start(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                boolean written = false;
+                try {
+                    writer.write(image, file, progress);
+                    written = !progress.isCancelled();
+                } finally {
+                    // an interrupt can surface as any IOException
+                    if (!written) {
+                        file.delete();
+                    }// if
+                }// try, finally
+                if (!written) {
+                    throw new CancellationException();
+                }// if
+                return null;
+            }// call()
+        }, progress);
+    }// write ( RenderedImage , File , ImageFileWriter , ProgressListener )
+
+    private static <V> CodecTask<V> start(Callable<V> work, Progress progress) {
+        CodecTask<V> toReturn = new CodecTask<>(work, progress);
+        tasks.execute(toReturn);
+        return toReturn;
+    }// start ( Callable<V> , Progress )
+
+    /**
+     * Reads the first image in a file, passing on the reader's progress and
+     * aborting the read once cancelled.
+     */
+    private static BufferedImage read(File file, Progress progress)
+            throws IOException {
+        ImageInputStream input = ImageIO.createImageInputStream(file);
+        if (input == null) {
+            throw new IOException("Cannot open " + file);
+        }// if
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("No reader for " + file);
+            }// if
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int height = reader.getHeight(0);
+                progress.start(height);
+                reader.addIIOReadProgressListener(
+                        new ReadProgress(progress, height));
+                BufferedImage toReturn = reader.read(0);
+                progress.moveTo(height);
+                return toReturn;
+            } finally {
+                reader.dispose();
+            }// try, finally
+        } finally {
+            input.close();
+        }// try, finally
+    }// read ( File , Progress )
+
+    /**
+     * Turns a reader's percentages into rows.  Readers cannot be stopped by
+     * throwing from a listener, so a cancelled read is aborted instead and
+     * the cancellation is noticed once the reader returns.
+     */
+    private static final class ReadProgress implements IIOReadProgressListener {
+
+        private final Progress progress;
+        private final int height;
+
+        ReadProgress(Progress progress, int height) {
+            this.progress = progress;
+            this.height = height;
+        }// ReadProgress ( Progress , int )
+
+        @Override
+        public void imageProgress(ImageReader source, float percentageDone) {
+            if (progress.isCancelled()) {
+                source.abort();
+            } else {
+                progress.moveTo((long) (height * percentageDone / 100));
+            }// if, else
+        }// imageProgress ( ImageReader , float )
+
+        @Override
+        public void sequenceStarted(ImageReader source, int minIndex) {
+        }// sequenceStarted ( ImageReader , int )
+
+        @Override
+        public void sequenceComplete(ImageReader source) {
+        }// sequenceComplete ( ImageReader )
+
+        @Override
+        public void imageStarted(ImageReader source, int imageIndex) {
+        }// imageStarted ( ImageReader , int )
+
+        @Override
+        public void imageComplete(ImageReader source) {
+        }// imageComplete ( ImageReader )
+
+        @Override
+        public void thumbnailStarted(ImageReader source, int imageIndex,
+                int thumbnailIndex) {
+        }// thumbnailStarted ( ImageReader , int , int )
+
+        @Override
+        public void thumbnailProgress(ImageReader source,
+                float percentageDone) {
+        }// thumbnailProgress ( ImageReader , float )
+
+        @Override
+        public void thumbnailComplete(ImageReader source) {
+        }// thumbnailComplete ( ImageReader )
+
+        @Override
+        public void readAborted(ImageReader source) {
+        }// readAborted ( ImageReader )
+    }// ReadProgress
+}// AsyncCodec
@@ -0,0 +1,1091 @@
+package steganography;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Hides raw bytes in the low bits of every colour sample, for payloads far
+ * larger than the thousand characters the digit format can hold.
+ * <br>
+ * The samples are used in order, R, G and B of pixel 0, then of pixel 1 and
+ * so on, or just the grey sample of each pixel of a grey image; alpha is
+ * never touched.  The header goes first, one bit in each sample so it can
+ * be found before the number of bits is known:
+ * <pre>
+ * magic            32 bits, "STEG"
+ * version           4 bits
+ * bits per sample   4 bits, less one
+ * flags             8 bits, 1 if the payload is deflated
+ * payload length    unsigned LEB128 varint, up to five bytes
+ * payload CRC32     32 bits, from version 2
+ * </pre>
+ * The payload follows in the next sample, bitsPerSample bits to a sample,
+ * most significant bit first.  A varint may be padded with empty
+ * continuation bytes and still reads the same.  Version 1 images, which
+ * have no CRC, are still read.
+ * <br>
+ * The payload is written straight into the samples as it is read, or
+ * compressed into them when it is deflated, and the header goes in last
+ * once its length and CRC are known.  When the length is not known
+ * beforehand, because the payload comes from a stream or is deflated, it
+ * is padded to five bytes so the payload starts in the same place whatever
+ * it turns out to be.  Decoding reads or inflates straight from the
+ * samples, so neither side holds more than a small buffer.  The length and
+ * CRC of a deflated payload are those of the compressed bytes.
+ * <br>
+ * Once the header is behind it, the payload is packed into whole pixels at
+ * a time and handed to {@link CarrierRaster#setLowBits} a run of pixels at
+ * once, which rasters backed by an array do with one pass along each row.
+ * A run always holds a whole number of payload bytes, so once a byte starts
+ * on a pixel the runs after it are packed or unpacked on their own, split
+ * across the pool set by {@link Steganography#setParallelism(int)} when
+ * there are enough of them.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+final class BitPlaneCodec {
+
+    static final int MAGIC = 0x53544547;
+    static final int VERSION = 2;
+    /**
+     * Samples taken by the header before the length
+     */
+    static final int FIXED_HEADER_BITS = 48;
+    static final int CHECKSUM_BITS = 32;
+    static final int MAX_VARINT_BYTES = 5;
+    static final int MAX_BITS_PER_SAMPLE = 8;
+    static final int FLAG_DEFLATE = 1;
+    /**
+     * Samples taken by a header whose length is padded to its full size,
+     * the most any header takes
+     */
+    static final int PADDED_HEADER_BITS =
+            FIXED_HEADER_BITS + 8 * MAX_VARINT_BYTES + CHECKSUM_BITS;
+    private static final int DEFLATE_BUFFER = 8192;
+    /**
+     * Pixels packed or unpacked at a time once the payload reaches a pixel
+     * boundary
+     */
+    private static final int RUN_PIXELS = 1024;
+    /**
+     * Payload bytes packed or unpacked at a time on one thread, few enough
+     * to still be in the cache when the CRC is worked out over them
+     */
+    private static final int SLICE_BYTES = 1 << 15;
+
+    private BitPlaneCodec() {
+    }// BitPlaneCodec()
+
+    /**
+     * Hides bytes in a raster.
+     * @param raster Where to hide them
+     * @param data The bytes to hide
+     * @param bitsPerSample How many low bits of each sample to use, 1 to 8
+     *  and no more than the raster's samples hold
+     * @throws IllegalArgumentException If the bytes do not fit
+     */
+    static void encode(CarrierRaster raster, byte[] data, int bitsPerSample) {
+        encode(raster, ByteBuffer.wrap(data), bitsPerSample, false);
+    }// encode ( CarrierRaster , byte[] , int )
+
+    /**
+     * Hides the bytes left in a buffer in a raster, deflating them first if
+     * asked.  Nothing is changed unless they fit.  The buffer's position is
+     * moved to its limit.
+     * @param raster Where to hide them
+     * @param data The bytes to hide
+     * @param bitsPerSample How many low bits of each sample to use, 1 to 8
+     *  and no more than the raster's samples hold
+     * @param deflate Whether to compress the bytes on the way in
+     * @throws IllegalArgumentException If the bytes do not fit
+     */
+    static void encode(CarrierRaster raster, ByteBuffer data,
+            int bitsPerSample, boolean deflate) {
+        checkCarrier(raster, bitsPerSample);
+        int length = data.remaining();
+        if (deflate) {
+            long room = room(raster, MAX_VARINT_BYTES, bitsPerSample);
+            // deflating only counts the bytes first when they might not
+            // fit, so the image is never left half written
+            if (deflatedBound(length) > room) {
+                long deflated = deflatedLength(
+                        new BufferInput(data.duplicate()));
+                if (deflated > room) {
+                    throw new IllegalArgumentException(length
+                            + " bytes do not fit, deflated to " + deflated
+                            + " where the image holds " + room + " at "
+                            + bitsPerSample + " bits per sample");
+                }// if
+            }// if
+        }// if
+        try {
+            encode(raster, new BufferInput(data), bitsPerSample, deflate,
+                    length);
+        } // try
+        catch (IOException e) {
+            // a buffer never fails to give a byte
+            throw new IllegalStateException(e);
+        } // catch( IOException )
+    }// encode ( CarrierRaster , ByteBuffer , int , boolean )
+
+    /**
+     * Hides the bytes of a stream in a raster as they are read, holding
+     * only a small buffer of them.  The payload goes in first and the
+     * header last, so until the end the image holds no data, and it is
+     * left that way if the stream turns out too long to fit.
+     * @param raster Where to hide them
+     * @param in The bytes to hide, read to the end but not closed
+     * @param bitsPerSample How many low bits of each sample to use, 1 to 8
+     *  and no more than the raster's samples hold
+     * @param deflate Whether to compress the bytes on the way in
+     * @param length How many bytes the stream holds, or -1 if not known.
+     *  Bytes of known length are stored with the shortest length varint,
+     *  and are turned away before anything is changed if they cannot fit.
+     * @return The number of bytes read
+     * @throws IOException If the stream cannot be read
+     * @throws IllegalArgumentException If the bytes do not fit
+     */
+    static long encode(CarrierRaster raster, InputStream in,
+            int bitsPerSample, boolean deflate, long length)
+            throws IOException {
+        long start = System.nanoTime();
+        checkCarrier(raster, bitsPerSample);
+        int varintBytes = deflate || length < 0 ? MAX_VARINT_BYTES
+                : varintBytes(length);
+        int headerBits = FIXED_HEADER_BITS + 8 * varintBytes + CHECKSUM_BITS;
+        long room = room(raster, varintBytes, bitsPerSample);
+        if (samplesIn(raster) < headerBits) {
+            throw new IllegalArgumentException(
+                    "The image is too small to hold any bytes");
+        } else if (!deflate && length > room) {
+            throw new IllegalArgumentException(length
+                    + " bytes do not fit, the image holds "
+                    + capacity(samplesIn(raster), bitsPerSample) + " at "
+                    + bitsPerSample + " bits per sample");
+        }// if, else if
+
+        Samples samples = new Samples(raster);
+        samples.writeBits(0, 32);
+        samples.skip(headerBits - 32);
+        PayloadOutput payload = new PayloadOutput(samples, bitsPerSample, room,
+                Steganography.poolFor(raster));
+        long read = deflate ? deflate(in, payload) : copy(in, payload);
+        payload.close();
+        samples.flush();
+        int lastPixel = samples.pixel;
+
+        Samples header = new Samples(raster);
+        writeHeader(header, bitsPerSample, deflate ? FLAG_DEFLATE : 0,
+                (int) payload.count, varintBytes, payload.crc.getValue());
+        header.flush();
+        Steganography.recordByteEncode(lastPixel + 1, read, start);
+        return read;
+    }// encode ( CarrierRaster , InputStream , int , boolean , long )
+
+    /**
+     * Retrieves the bytes hidden in a raster.
+     * @param raster The raster holding them
+     * @return The hidden bytes
+     * @throws IllegalArgumentException If the raster holds no bit plane data
+     *  or the bytes fail their checksum
+     */
+    static byte[] decode(CarrierRaster raster) {
+        long start = System.nanoTime();
+        Samples samples = new Samples(raster);
+        Header header = readHeader(raster, samples, samplesIn(raster));
+        PayloadInput payload = new PayloadInput(samples, header.length,
+                header.bitsPerSample, Steganography.poolFor(raster));
+        byte[] toReturn = null;
+        if (header.isDeflated()) {
+            ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+            try {
+                if (inflate(payload, inflated) >= 0) {
+                    toReturn = inflated.toByteArray();
+                }// if
+            } // try
+            catch (IOException e) {
+                throw new IllegalStateException(e);
+            } // catch( IOException )
+        } else {
+            toReturn = new byte[(int) header.length];
+            payload.read(toReturn, 0, toReturn.length);
+        }// if, else
+        header.check(payload, toReturn != null);
+        Steganography.recordByteDecode(samples.pixel + 1, toReturn.length,
+                start);
+        return toReturn;
+    }// decode ( CarrierRaster )
+
+    /**
+     * Writes the bytes hidden in a raster to a stream as they are read,
+     * holding only a small buffer of them.  They are checked against their
+     * CRC only at the end, by when they have all been written.
+     * @param raster The raster holding them
+     * @param out Where to write them, which is not closed
+     * @return The number of bytes written
+     * @throws IOException If the stream cannot be written
+     * @throws IllegalArgumentException If the raster holds no bit plane data
+     *  or the bytes fail their checksum
+     */
+    static long decode(CarrierRaster raster, OutputStream out)
+            throws IOException {
+        long start = System.nanoTime();
+        Samples samples = new Samples(raster);
+        Header header = readHeader(raster, samples, samplesIn(raster));
+        PayloadInput payload = new PayloadInput(samples, header.length,
+                header.bitsPerSample, Steganography.poolFor(raster));
+        long written = header.isDeflated() ? inflate(payload, out)
+                : copy(payload, out);
+        header.check(payload, written >= 0);
+        Steganography.recordByteDecode(samples.pixel + 1, written, start);
+        return written;
+    }// decode ( CarrierRaster , OutputStream )
+
+    /**
+     * Reads the header of a payload and nothing more.
+     * @param raster The first pixels of the image, at least
+     *  {@link #PADDED_HEADER_BITS} samples of them or all of them
+     * @param totalPixels The number of pixels in the whole image
+     * @return What the header says, or null if the image holds no bit plane
+     *  data
+     */
+    static Header probe(CarrierRaster raster, long totalPixels) {
+        try {
+            return readHeader(raster, new Samples(raster),
+                    totalPixels * raster.getSamples());
+        } // try
+        catch (IllegalArgumentException e) {
+            // no magic number, or one that turned up by chance
+            return null;
+        } // catch( IllegalArgumentException )
+    }// probe ( CarrierRaster , long )
+
+    /**
+     * Reads and checks the header, leaving the samples at the payload.
+     * @param totalSamples The number of samples in the whole image, which
+     *  the raster may hold only the first of
+     * @throws IllegalArgumentException If the raster holds no bit plane data
+     */
+    private static Header readHeader(CarrierRaster raster, Samples samples,
+            long totalSamples) {
+        if (totalSamples < FIXED_HEADER_BITS + 8) {
+            throw new IllegalArgumentException("The image holds no hidden data");
+        }// if
+        if (samples.readBits(32) != MAGIC) {
+            throw new IllegalArgumentException("The image holds no hidden data");
+        }// if
+        int version = samples.readBits(4);
+        if (version > VERSION) {
+            throw new IllegalArgumentException("Unknown format version " + version);
+        }// if
+        int bitsPerSample = samples.readBits(4) + 1;
+        if (bitsPerSample > raster.getSampleBits()) {
+            throw new IllegalArgumentException("Corrupt bits per sample "
+                    + bitsPerSample);
+        }// if
+        int flags = samples.readBits(8);
+        if ((flags & ~FLAG_DEFLATE) != 0) {
+            throw new IllegalArgumentException("Unknown flags " + flags);
+        }// if
+
+        long length = 0;
+        int varintBytes = 0;
+        for (int group = 0x80; (group & 0x80) != 0; varintBytes++) {
+            if (varintBytes == MAX_VARINT_BYTES || totalSamples
+                    < FIXED_HEADER_BITS + 8L * (varintBytes + 1)) {
+                throw new IllegalArgumentException("Corrupt payload length");
+            }// if
+            group = samples.readBits(8);
+            length |= (long) (group & 0x7F) << (7 * varintBytes);
+        }// for
+        long checksum = 0;
+        int checksumBits = 0;
+        if (version >= 2) {
+            if (totalSamples < FIXED_HEADER_BITS + 8L * varintBytes
+                    + CHECKSUM_BITS) {
+                throw new IllegalArgumentException("Corrupt payload length");
+            }// if
+            checksum = samples.readBits(CHECKSUM_BITS) & 0xFFFFFFFFL;
+            checksumBits = CHECKSUM_BITS;
+        }// if
+        if (length > capacity(totalSamples + CHECKSUM_BITS - checksumBits,
+                bitsPerSample)) {
+            throw new IllegalArgumentException("Corrupt payload length "
+                    + length);
+        }// if
+        return new Header(version, bitsPerSample, flags, length, checksum);
+    }// readHeader ( CarrierRaster , Samples )
+
+    /**
+     * Works out how many bytes fit in an image.
+     * @param samples The number of colour samples in the image, three for
+     *  each pixel of a colour image and one for each pixel of a grey one
+     * @param bitsPerSample How many low bits of each sample are used
+     * @return The largest payload in bytes
+     */
+    static int capacity(long samples, int bitsPerSample) {
+        checkBits(bitsPerSample);
+        int toReturn = 0;
+        for (int size = 1; size <= MAX_VARINT_BYTES; size++) {
+            long room = samples - FIXED_HEADER_BITS - 8L * size - CHECKSUM_BITS;
+            long fits = Math.max(0, room) * bitsPerSample / 8;
+            long largest = size == MAX_VARINT_BYTES ? Integer.MAX_VALUE
+                    : (1L << (7 * size)) - 1;
+            toReturn = (int) Math.max(toReturn, Math.min(fits, largest));
+        }// for
+        return toReturn;
+    }// capacity ( long , int )
+
+    private static long samplesIn(CarrierRaster raster) {
+        return (long) raster.getPixelCount() * raster.getSamples();
+    }// samplesIn ( CarrierRaster )
+
+    /**
+     * @return The bytes the payload has room for after a header whose
+     *  length varint takes varintBytes
+     */
+    private static long room(CarrierRaster raster, int varintBytes,
+            int bitsPerSample) {
+        long samples = samplesIn(raster) - FIXED_HEADER_BITS - 8L * varintBytes
+                - CHECKSUM_BITS;
+        return Math.min(Integer.MAX_VALUE,
+                Math.max(0, samples) * bitsPerSample / 8);
+    }// room ( CarrierRaster , int , int )
+
+    /**
+     * @return The bytes of the shortest varint that holds length
+     */
+    private static int varintBytes(long length) {
+        int toReturn = 1;
+        while ((length >>>= 7) != 0) {
+            toReturn++;
+        }// while
+        return toReturn;
+    }// varintBytes ( long )
+
+    /**
+     * Makes sure bytes can be hidden in a raster before any pixel is
+     * changed.
+     * @throws IllegalArgumentException If the raster cannot be written or
+     *  its samples have too few bits
+     */
+    private static void checkCarrier(CarrierRaster raster, int bitsPerSample) {
+        checkBits(bitsPerSample);
+        if (!raster.isWritable()) {
+            throw new IllegalArgumentException(
+                    "Indexed images cannot be written, convert to RGB first");
+        }// if
+        if (bitsPerSample > raster.getSampleBits()) {
+            throw new IllegalArgumentException("The image's samples only have "
+                    + raster.getSampleBits() + " bits, not " + bitsPerSample);
+        }// if
+    }// checkCarrier ( CarrierRaster , int )
+
+    private static void checkBits(int bitsPerSample) {
+        if (bitsPerSample < 1 || bitsPerSample > MAX_BITS_PER_SAMPLE) {
+            throw new IllegalArgumentException("Bits per sample must be from 1 to "
+                    + MAX_BITS_PER_SAMPLE + ", not " + bitsPerSample);
+        }// if
+    }// checkBits ( int )
+
+    /**
+     * Writes the header, the length as a varint of at least minVarint bytes.
+     */
+    private static void writeHeader(Samples samples, int bitsPerSample,
+            int flags, int length, int minVarint, long checksum) {
+        samples.writeBits(MAGIC, 32);
+        samples.writeBits(VERSION, 4);
+        samples.writeBits(bitsPerSample - 1, 4);
+        samples.writeBits(flags, 8);
+        for (int i = 1; ; i++) {
+            int group = length & 0x7F;
+            length >>>= 7;
+            if (length == 0 && i >= minVarint) {
+                samples.writeBits(group, 8);
+                break;
+            }// if
+            samples.writeBits(group | 0x80, 8);
+        }// for
+        samples.writeBits((int) checksum, CHECKSUM_BITS);
+    }// writeHeader ( Samples , int , int , int , int , long )
+
+    /**
+     * The most bytes deflating length bytes can take, as zlib works it out
+     * with room to spare
+     */
+    private static long deflatedBound(long length) {
+        return length + (length >> 12) + (length >> 14) + (length >> 25) + 64;
+    }// deflatedBound ( long )
+
+    /**
+     * Deflates bytes only to count what they come to.
+     */
+    private static long deflatedLength(InputStream in) {
+        CountingSink counted = new CountingSink();
+        try {
+            deflate(in, counted);
+        } // try
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        } // catch( IOException )
+        return counted.count;
+    }// deflatedLength ( InputStream )
+
+    /**
+     * Deflates the whole of a stream into another.
+     * @return The number of bytes read
+     */
+    private static long deflate(InputStream in, OutputStream out)
+            throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            DeflaterOutputStream compressed =
+                    new DeflaterOutputStream(out, deflater, DEFLATE_BUFFER);
+            long toReturn = copy(in, compressed);
+            compressed.finish();
+            return toReturn;
+        } finally {
+            deflater.end();
+        }// try, finally
+    }// deflate ( InputStream , OutputStream )
+
+    /**
+     * Inflates the whole of a payload, and reads past any bytes the
+     * inflater leaves so the CRC covers them all.
+     * @return The number of bytes written, or -1 if the payload turned out
+     *  not to be a deflate stream
+     * @throws IOException If the bytes cannot be written
+     */
+    private static long inflate(PayloadInput payload, OutputStream out)
+            throws IOException {
+        long toReturn = 0;
+        InflaterInputStream inflater = new InflaterInputStream(payload);
+        try {
+            byte[] buffer = new byte[DEFLATE_BUFFER];
+            while (true) {
+                int n;
+                try {
+                    n = inflater.read(buffer);
+                } // try
+                catch (IOException e) {
+                    toReturn = -1;
+                    break;
+                } // catch( IOException )
+                if (n < 0) {
+                    break;
+                }// if
+                out.write(buffer, 0, n);
+                toReturn += n;
+            }// while
+        } finally {
+            inflater.close();
+        }// try, finally
+        byte[] rest = new byte[DEFLATE_BUFFER];
+        while (payload.read(rest, 0, rest.length) >= 0) {
+            // the CRC is of every stored byte
+        }// while
+        return toReturn;
+    }// inflate ( PayloadInput , OutputStream )
+
+    /**
+     * Copies the whole of a stream into another.
+     * @return The number of bytes copied
+     */
+    private static long copy(InputStream in, OutputStream out)
+            throws IOException {
+        if (in instanceof BufferInput) {
+            // handed over whole, so a large payload can be split up
+            return ((BufferInput) in).writeTo(out);
+        }// if
+        byte[] buffer = new byte[DEFLATE_BUFFER];
+        long toReturn = 0;
+        for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+            out.write(buffer, 0, n);
+            toReturn += n;
+        }// for
+        return toReturn;
+    }// copy ( InputStream , OutputStream )
+
+    /**
+     * What the header of a payload says about it
+     */
+    static final class Header {
+
+        private final int version;
+        private final int bitsPerSample;
+        private final int flags;
+        private final long length;
+        private final long checksum;
+
+        Header(int version, int bitsPerSample, int flags, long length,
+                long checksum) {
+            this.version = version;
+            this.bitsPerSample = bitsPerSample;
+            this.flags = flags;
+            this.length = length;
+            this.checksum = checksum;
+        }// Header ( int , int , int , long , long )
+
+        boolean isDeflated() {
+            return (flags & FLAG_DEFLATE) != 0;
+        }// isDeflated()
+
+        /**
+         * @return The number of bytes hidden, deflated if they were
+         */
+        long getLength() {
+            return length;
+        }// getLength()
+
+        /**
+         * @return The CRC32 of the bytes hidden, 0 before version 2
+         */
+        long getChecksum() {
+            return checksum;
+        }// getChecksum()
+
+        /**
+         * Checks a payload that has been read to the end.
+         * @param inflated False if a deflated payload would not inflate
+         * @throws IllegalArgumentException If it fails its checksum or
+         *  would not inflate
+         */
+        void check(PayloadInput payload, boolean inflated) {
+            if (version >= 2 && payload.crc.getValue() != checksum) {
+                throw new IllegalArgumentException(
+                        "The hidden data fails its checksum");
+            } else if (!inflated) {
+                throw new IllegalArgumentException("Corrupt deflated payload");
+            }// if, else if
+        }// check ( PayloadInput , boolean )
+    }// Header
+
+    /**
+     * Reads what is left of a buffer, moving its position on
+     */
+    private static final class BufferInput extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        BufferInput(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }// BufferInput ( ByteBuffer )
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }// read()
+
+        @Override
+        public int read(byte[] data, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return length == 0 ? 0 : -1;
+            }// if
+            int toRead = Math.min(length, buffer.remaining());
+            buffer.get(data, offset, toRead);
+            return toRead;
+        }// read ( byte[] , int , int )
+
+        /**
+         * Writes what is left of the buffer in one go.
+         * @return The number of bytes written
+         */
+        long writeTo(OutputStream out) throws IOException {
+            int toReturn = buffer.remaining();
+            if (buffer.hasArray()) {
+                out.write(buffer.array(), buffer.arrayOffset()
+                        + buffer.position(), toReturn);
+                buffer.position(buffer.limit());
+            } else {
+                byte[] data = new byte[toReturn];
+                buffer.get(data);
+                out.write(data, 0, toReturn);
+            }// if, else
+            return toReturn;
+        }// writeTo ( OutputStream )
+    }// BufferInput
+
+    /**
+     * Throws bytes away, counting them
+     */
+    private static final class CountingSink extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }// write ( int )
+
+        @Override
+        public void write(byte[] data, int offset, int length) {
+            count += length;
+        }// write ( byte[] , int , int )
+    }// CountingSink
+
+    /**
+     * Packs bytes into the low bits of samples, keeping a count and a CRC
+     * of them.  Closing it writes out the last part filled sample.
+     */
+    private static final class PayloadOutput extends OutputStream {
+
+        private final Samples samples;
+        private final int bitsPerSample;
+        private final int mask;
+        /**
+         * The most bytes the samples have room for
+         */
+        private final long room;
+        private final CRC32 crc = new CRC32();
+        private long count;
+        private long buffer;
+        private int buffered;
+        /**
+         * Bits in a whole pixel, and the pixels packed but not yet written
+         */
+        private final int pixelBits;
+        private final int pixelMask;
+        private final int[] run = new int[RUN_PIXELS];
+        private int runLength;
+        /**
+         * Where whole runs are packed, null to pack them on this thread
+         */
+        private final ForkJoinPool pool;
+
+        PayloadOutput(Samples samples, int bitsPerSample, long room,
+                ForkJoinPool pool) {
+            this.samples = samples;
+            this.bitsPerSample = bitsPerSample;
+            this.room = room;
+            this.pool = pool;
+            mask = (1 << bitsPerSample) - 1;
+            pixelBits = bitsPerSample * samples.getSamples();
+            pixelMask = (int) ((1L << pixelBits) - 1);
+        }// PayloadOutput ( Samples , int , long , ForkJoinPool )
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }// write ( int )
+
+        @Override
+        public void write(byte[] data, int offset, int length) {
+            if (count + length > room) {
+                throw new IllegalArgumentException(
+                        "The bytes do not fit in the image");
+            }// if
+            count += length;
+            int end = offset + length;
+            int i = offset;
+            // a byte at a time until one starts on a pixel
+            while (i < end && (buffered != 0 || !samples.atPixelStart())) {
+                pack(data[i++]);
+            }// while
+            crc.update(data, offset, i - offset);
+
+            int runBytes = RUN_PIXELS / 8 * pixelBits;
+            int runs = (end - i) / runBytes;
+            int sliceRuns = ParallelCodec.splits(pool, runs) ? runs
+                    : Math.max(1, SLICE_BYTES / runBytes);
+            while (runs > 0) {
+                int slice = Math.min(runs, sliceRuns);
+                crc.update(data, i, slice * runBytes);
+                writeRuns(data, i, slice);
+                i += slice * runBytes;
+                runs -= slice;
+            }// while
+
+            crc.update(data, i, end - i);
+            while (i < end) {
+                pack(data[i++]);
+            }// while
+        }// write ( byte[] , int , int )
+
+        /**
+         * Packs one byte, writing whole pixels a run at a time.
+         */
+        private void pack(byte b) {
+            buffer = buffer << 8 | (b & 0xFF);
+            buffered += 8;
+            // a sample at a time until the header's last pixel is full
+            while (buffered >= bitsPerSample && !samples.atPixelStart()) {
+                buffered -= bitsPerSample;
+                samples.write((int) (buffer >>> buffered) & mask,
+                        bitsPerSample);
+            }// while
+            while (buffered >= pixelBits && samples.atPixelStart()) {
+                buffered -= pixelBits;
+                run[runLength++] = (int) (buffer >>> buffered) & pixelMask;
+                if (runLength == run.length) {
+                    flushRun();
+                }// if
+            }// while
+        }// pack ( byte )
+
+        /**
+         * Packs whole runs of pixels, from a byte that starts on a pixel.
+         * @param runs How many runs the bytes fill
+         */
+        private void writeRuns(final byte[] data, final int offset,
+                int runs) {
+            final int runBytes = RUN_PIXELS / 8 * pixelBits;
+            flushRun();
+            final int first = samples.nextPixel();
+            ParallelCodec.forEachRun(pool, runs, new ParallelCodec.Range() {
+                @Override
+                public void process(int from, int to) {
+                    packRuns(samples.raster, data, offset + from * runBytes,
+                            first + from * RUN_PIXELS, to - from,
+                            bitsPerSample);
+                }// process ( int , int )
+            });
+            samples.skipPixels(runs * RUN_PIXELS);
+        }// writeRuns ( byte[] , int , int )
+
+        /**
+         * Writes the packed pixels to the raster.
+         */
+        private void flushRun() {
+            if (runLength > 0) {
+                samples.raster.setLowBits(samples.nextPixel(), run, runLength,
+                        bitsPerSample);
+                samples.skipPixels(runLength);
+                runLength = 0;
+            }// if
+        }// flushRun()
+
+        @Override
+        public void close() {
+            flushRun();
+            while (buffered > 0) {
+                int value = buffered >= bitsPerSample
+                        ? (int) (buffer >>> (buffered - bitsPerSample))
+                        : (int) (buffer << (bitsPerSample - buffered));
+                samples.write(value & mask, bitsPerSample);
+                buffered = Math.max(0, buffered - bitsPerSample);
+            }// while
+        }// close()
+    }// PayloadOutput
+
+    /**
+     * Unpacks a payload of known length from the low bits of samples,
+     * keeping a CRC of the bytes read.
+     */
+    private static final class PayloadInput extends InputStream {
+
+        private final Samples samples;
+        private final int bitsPerSample;
+        private final CRC32 crc = new CRC32();
+        private long remaining;
+        private long buffer;
+        private int buffered;
+        /**
+         * Bits of the payload not yet taken from the raster
+         */
+        private long unread;
+        private final int pixelBits;
+        private final int[] run = new int[RUN_PIXELS];
+        private int runLength;
+        private int runNext;
+        /**
+         * Where whole runs are unpacked, null to unpack them on this thread
+         */
+        private final ForkJoinPool pool;
+
+        PayloadInput(Samples samples, long length, int bitsPerSample,
+                ForkJoinPool pool) {
+            this.samples = samples;
+            this.remaining = length;
+            this.bitsPerSample = bitsPerSample;
+            this.pool = pool;
+            unread = length * 8;
+            pixelBits = bitsPerSample * samples.getSamples();
+        }// PayloadInput ( Samples , long , int , ForkJoinPool )
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }// read()
+
+        @Override
+        public int read(byte[] data, int offset, int length) {
+            if (remaining == 0) {
+                return length == 0 ? 0 : -1;
+            }// if
+            int toRead = (int) Math.min(length, remaining);
+            int end = offset + toRead;
+            int i = offset;
+            // a sample at a time until a byte starts on a pixel
+            while (i < end && (buffered != 0 || runNext < runLength
+                    || !samples.atPixelStart())) {
+                data[i++] = unpack(false);
+            }// while
+            crc.update(data, offset, i - offset);
+
+            int runBytes = RUN_PIXELS / 8 * pixelBits;
+            int runs = (end - i) / runBytes;
+            int sliceRuns = ParallelCodec.splits(pool, runs) ? runs
+                    : Math.max(1, SLICE_BYTES / runBytes);
+            while (runs > 0) {
+                int slice = Math.min(runs, sliceRuns);
+                readRuns(data, i, slice);
+                crc.update(data, i, slice * runBytes);
+                i += slice * runBytes;
+                runs -= slice;
+            }// while
+
+            int rest = i;
+            while (i < end) {
+                data[i++] = unpack(true);
+            }// while
+            crc.update(data, rest, end - rest);
+            remaining -= toRead;
+            return toRead;
+        }// read ( byte[] , int , int )
+
+        /**
+         * Unpacks one byte.
+         * @param fill Whether to take whole pixels a run at a time, rather
+         *  than only finishing the run already taken
+         */
+        private byte unpack(boolean fill) {
+            while (buffered < 8) {
+                if (fill && runNext == runLength && samples.atPixelStart()) {
+                    fillRun();
+                }// if
+                if (runNext < runLength) {
+                    buffer = buffer << pixelBits | run[runNext++];
+                    buffered += pixelBits;
+                } else {
+                    buffer = buffer << bitsPerSample
+                            | samples.read(bitsPerSample);
+                    buffered += bitsPerSample;
+                    unread -= bitsPerSample;
+                }// if, else
+            }// while
+            buffered -= 8;
+            return (byte) (buffer >>> buffered);
+        }// unpack ( boolean )
+
+        /**
+         * Unpacks whole runs of pixels, from a byte that starts on a pixel.
+         * @param runs How many runs the bytes fill
+         */
+        private void readRuns(final byte[] data, final int offset,
+                int runs) {
+            final int runBytes = RUN_PIXELS / 8 * pixelBits;
+            final int first = samples.nextPixel();
+            ParallelCodec.forEachRun(pool, runs, new ParallelCodec.Range() {
+                @Override
+                public void process(int from, int to) {
+                    unpackRuns(samples.raster, data, offset + from * runBytes,
+                            first + from * RUN_PIXELS, to - from,
+                            bitsPerSample);
+                }// process ( int , int )
+            });
+            samples.skipPixels(runs * RUN_PIXELS);
+            unread -= (long) runs * RUN_PIXELS * pixelBits;
+        }// readRuns ( byte[] , int , int )
+
+        /**
+         * Reads as many whole pixels as are left of the payload, up to a run.
+         * A payload ending part way through a pixel leaves it to be read a
+         * sample at a time.
+         */
+        private void fillRun() {
+            long pixels = Math.min(Math.min(run.length, unread / pixelBits),
+                    samples.raster.getPixelCount() - samples.nextPixel());
+            runLength = (int) Math.max(0, pixels);
+            runNext = 0;
+            if (runLength > 0) {
+                samples.raster.getLowBits(samples.nextPixel(), run, runLength,
+                        bitsPerSample);
+                samples.skipPixels(runLength);
+                unread -= (long) runLength * pixelBits;
+            }// if
+        }// fillRun()
+    }// PayloadInput
+
+    /**
+     * Packs whole runs of pixels' worth of bytes into a raster.
+     * @param offset The first byte, which starts a pixel
+     * @param pixel The first pixel of the first run
+     * @param runs How many runs of {@link #RUN_PIXELS} pixels
+     */
+    private static void packRuns(CarrierRaster raster, byte[] data,
+            int offset, int pixel, int runs, int bitsPerSample) {
+        int pixelBits = bitsPerSample * raster.getSamples();
+        int pixelMask = (int) ((1L << pixelBits) - 1);
+        int end = offset + runs * (RUN_PIXELS / 8 * pixelBits);
+        int[] chunks = new int[RUN_PIXELS];
+        int packed = 0;
+        long buffer = 0;
+        int buffered = 0;
+        for (int i = offset; i < end; i++) {
+            buffer = buffer << 8 | (data[i] & 0xFF);
+            buffered += 8;
+            while (buffered >= pixelBits) {
+                buffered -= pixelBits;
+                chunks[packed++] = (int) (buffer >>> buffered) & pixelMask;
+            }// while
+            // a run ends on a byte, so it is never overrun
+            if (packed == RUN_PIXELS) {
+                raster.setLowBits(pixel, chunks, RUN_PIXELS, bitsPerSample);
+                pixel += RUN_PIXELS;
+                packed = 0;
+            }// if
+        }// for
+    }// packRuns ( CarrierRaster , byte[] , int , int , int , int )
+
+    /**
+     * Unpacks whole runs of pixels' worth of bytes from a raster.
+     * @param offset Where the first byte goes, which starts a pixel
+     * @param pixel The first pixel of the first run
+     * @param runs How many runs of {@link #RUN_PIXELS} pixels
+     */
+    private static void unpackRuns(CarrierRaster raster, byte[] data,
+            int offset, int pixel, int runs, int bitsPerSample) {
+        int pixelBits = bitsPerSample * raster.getSamples();
+        int[] chunks = new int[RUN_PIXELS];
+        long buffer = 0;
+        int buffered = 0;
+        for (int r = 0; r < runs; r++) {
+            raster.getLowBits(pixel, chunks, RUN_PIXELS, bitsPerSample);
+            pixel += RUN_PIXELS;
+            for (int p = 0; p < RUN_PIXELS; p++) {
+                buffer = buffer << pixelBits | chunks[p];
+                buffered += pixelBits;
+                while (buffered >= 8) {
+                    buffered -= 8;
+                    data[offset++] = (byte) (buffer >>> buffered);
+                }// while
+            }// for
+        }// for
+    }// unpackRuns ( CarrierRaster , byte[] , int , int , int , int )
+
+    /**
+     * Walks the colour samples of a raster in order, a pixel at a time
+     */
+    private static final class Samples {
+
+        private final CarrierRaster raster;
+        private final int[] rgb;
+        private int pixel = -1;
+        private int channel;
+        private boolean changed;
+
+        Samples(CarrierRaster raster) {
+            this.raster = raster;
+            rgb = new int[raster.getSamples()];
+            channel = rgb.length;
+        }// Samples ( CarrierRaster )
+
+        /**
+         * Moves on to the next sample, loading the next pixel when needed.
+         * @return The channel of the sample in rgb
+         */
+        private int next() {
+            if (channel == rgb.length) {
+                flush();
+                raster.getPixel(++pixel, rgb);
+                channel = 0;
+            }// if
+            return channel++;
+        }// next()
+
+        /**
+         * @return The low bits of the next sample
+         */
+        int read(int bits) {
+            return rgb[next()] & ((1 << bits) - 1);
+        }// read ( int )
+
+        /**
+         * Replaces the low bits of the next sample.
+         */
+        void write(int value, int bits) {
+            int c = next();
+            int mask = (1 << bits) - 1;
+            rgb[c] = (rgb[c] & ~mask) | (value & mask);
+            changed = true;
+        }// write ( int , int )
+
+        /**
+         * Reads a number one bit per sample, most significant bit first.
+         */
+        int readBits(int count) {
+            int toReturn = 0;
+            for (int i = 0; i < count; i++) {
+                toReturn = toReturn << 1 | read(1);
+            }// for
+            return toReturn;
+        }// readBits ( int )
+
+        /**
+         * Writes a number one bit per sample, most significant bit first.
+         */
+        void writeBits(int value, int count) {
+            for (int i = count - 1; i >= 0; i--) {
+                write(value >>> i, 1);
+            }// for
+        }// writeBits ( int , int )
+
+        /**
+         * @return The number of samples in each pixel
+         */
+        int getSamples() {
+            return rgb.length;
+        }// getSamples()
+
+        /**
+         * @return Whether the next sample is the first of a pixel
+         */
+        boolean atPixelStart() {
+            return channel == rgb.length;
+        }// atPixelStart()
+
+        /**
+         * @return The index of the pixel after the one being worked on
+         */
+        int nextPixel() {
+            return pixel + 1;
+        }// nextPixel()
+
+        /**
+         * Moves past whole pixels, from the start of one, once they have
+         * been read or written another way.
+         */
+        void skipPixels(int count) {
+            flush();
+            pixel += count;
+        }// skipPixels ( int )
+
+        /**
+         * Moves past samples without reading or changing them.
+         */
+        void skip(int count) {
+            for (int i = 0; i < count; i++) {
+                next();
+            }// for
+        }// skip ( int )
+
+        /**
+         * Stores the pixel being worked on if it was changed.
+         */
+        void flush() {
+            if (changed) {
+                raster.setPixel(pixel, rgb);
+                changed = false;
+            }// if
+        }// flush()
+    }// Samples
+}// BitPlaneCodec
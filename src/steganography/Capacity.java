@@ -0,0 +1,255 @@
+package steganography;
+
+import java.awt.image.ColorModel;
+import java.awt.image.IndexColorModel;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * How much an image can hide, worked out from its size and number of colour
+ * samples alone.  Files are read only as far as their header, so carriers
+ * can be chosen for a message without decoding a single pixel.  Indexed
+ * images count as having no colour samples, since their pixels cannot be
+ * changed without changing the palette.
+ * <br>
+ * The depth of the samples counts too.  Bytes can only use as many low bits
+ * of a sample as the smallest sample has, and characters need samples of
+ * eight bits or more, since anything smaller, such as the five and six bits
+ * of a 565 image, is scaled to eight bits when saved and loses its digits.
+ * <br>
+ * Every query takes constant time, except that checking whether a message
+ * fits has to count the characters of the message the alphabet keeps.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public final class Capacity {
+
+    /**
+     * Colour samples per pixel the codec needs, R, G and B
+     */
+    private static final int MIN_CHANNELS = 3;
+    /**
+     * Bits a sample needs for its digits to survive being saved
+     */
+    static final int CHARACTER_SAMPLE_BITS = 8;
+    private static final int DEFAULT_SAMPLE_BITS = 8;
+
+    private final int width;
+    private final int height;
+    private final int channels;
+    /**
+     * Bits in the smallest colour sample
+     */
+    private final int sampleBits;
+
+    private Capacity(int width, int height, int channels, int sampleBits) {
+        if (width < 0 || height < 0 || channels < 0) {
+            throw new IllegalArgumentException("Negative image size");
+        }// if
+        this.width = width;
+        this.height = height;
+        this.channels = channels;
+        this.sampleBits = sampleBits;
+    }// Capacity ( int , int , int , int )
+
+    /**
+     * @param width Width of the image in pixels
+     * @param height Height of the image in pixels
+     * @param channels Colour samples in each pixel, not counting alpha, each
+     *  of eight bits
+     * @return The capacity of an image of that size
+     */
+    public static Capacity of(int width, int height, int channels) {
+        return new Capacity(width, height, channels, DEFAULT_SAMPLE_BITS);
+    }// of ( int , int , int )
+
+    /**
+     * @param image An image in memory
+     * @return The capacity of the image
+     */
+    public static Capacity of(RenderedImage image) {
+        int channels = channels(image.getSampleModel().getNumBands(),
+                image.getColorModel());
+        return new Capacity(image.getWidth(), image.getHeight(), channels,
+                sampleBits(image.getSampleModel(), channels));
+    }// of ( RenderedImage )
+
+    /**
+     * Reads the capacity of an image file from its header.
+     * @param file The image
+     * @return The capacity of the image
+     * @throws IOException If the file is not an image ImageIO can read
+     */
+    public static Capacity of(File file) throws IOException {
+        ImageInputStream input = ImageIO.createImageInputStream(file);
+        if (input == null) {
+            throw new IOException("Cannot open " + file);
+        }// if
+        try {
+            return of(input);
+        } finally {
+            input.close();
+        }// try, finally
+    }// of ( File )
+
+    /**
+     * Reads the capacity of an image from its header.  The stream is left
+     * open.
+     * @param input The image
+     * @return The capacity of the image
+     * @throws IOException If the stream is not an image ImageIO can read
+     */
+    public static Capacity of(ImageInputStream input) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            throw new IOException("No reader for the image");
+        }// if
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            int channels = 0;
+            int sampleBits = DEFAULT_SAMPLE_BITS;
+            Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+            if (types.hasNext()) {
+                ImageTypeSpecifier type = types.next();
+                channels = channels(type.getSampleModel().getNumBands(),
+                        type.getColorModel());
+                sampleBits = sampleBits(type.getSampleModel(), channels);
+            }// if
+            return new Capacity(reader.getWidth(0), reader.getHeight(0),
+                    channels, sampleBits);
+        } finally {
+            reader.dispose();
+        }// try, finally
+    }// of ( ImageInputStream )
+
+    /**
+     * The colour samples of an image's pixels, not counting alpha.
+     * @param bands Bands of the image's sample model
+     * @param model The image's colour model, or null
+     * @return The colour samples, or 0 for an indexed image
+     */
+    private static int channels(int bands, ColorModel model) {
+        if (model instanceof IndexColorModel) {
+            return 0;
+        } else if (model != null && model.hasAlpha()) {
+            return bands - 1;
+        }// if, else if
+        return bands;
+    }// channels ( int , ColorModel )
+
+    /**
+     * The bits of the smallest sample the codec uses, R, G and B or grey.
+     * @param model The image's sample model
+     * @param channels The colour samples of the image's pixels
+     * @return The bits, or 8 if the image has no colour samples
+     */
+    private static int sampleBits(SampleModel model, int channels) {
+        int used = channels >= MIN_CHANNELS ? MIN_CHANNELS : channels;
+        if (used == 0) {
+            return DEFAULT_SAMPLE_BITS;
+        }// if
+        int toReturn = Integer.MAX_VALUE;
+        for (int b = 0; b < used; b++) {
+            toReturn = Math.min(toReturn, model.getSampleSize(b));
+        }// for
+        return toReturn;
+    }// sampleBits ( SampleModel , int )
+
+    /**
+     * Works out how many characters the digit format can hide in an image.
+     * The header takes the first few pixels and every character takes a
+     * pixel of its own, with at least one pixel between two characters.
+     * @param pixels The number of pixels in the image
+     * @return The longest message, at most {@link Steganography#MESSAGE_MAX}
+     */
+    static int characters(long pixels) {
+        return (int) Math.max(0, Math.min(Steganography.MESSAGE_MAX,
+                (pixels - Steganography.HEADER_PIXELS) / 2));
+    }// characters ( long )
+
+    public int getWidth() {
+        return width;
+    }// getWidth()
+
+    public int getHeight() {
+        return height;
+    }// getHeight()
+
+    /**
+     * @return Colour samples in each pixel, not counting alpha
+     */
+    public int getChannels() {
+        return channels;
+    }// getChannels()
+
+    public long getPixels() {
+        return (long) width * height;
+    }// getPixels()
+
+    /**
+     * @return Bits in the smallest colour sample
+     */
+    public int getSampleBits() {
+        return sampleBits;
+    }// getSampleBits()
+
+    /**
+     * @return The longest message {@link Steganography#encodeImage} can hide
+     *  so that it survives the image being saved, 0 for samples of fewer
+     *  than eight bits
+     */
+    public int getCharacters() {
+        return channels < MIN_CHANNELS || sampleBits < CHARACTER_SAMPLE_BITS
+                ? 0 : characters(getPixels());
+    }// getCharacters()
+
+    /**
+     * Colour images hide bytes in R, G and B, grey ones in the grey sample.
+     * @param bitsPerSample Low bits of each sample to use, 1 to 8
+     * @return The most bytes {@link Steganography#encodeBytes} can hide, 0
+     *  if the samples have fewer bits than bitsPerSample
+     */
+    public int getBytes(int bitsPerSample) {
+        int samples = channels >= MIN_CHANNELS ? MIN_CHANNELS
+                : Math.min(channels, 1);
+        // worked out even with no samples so bitsPerSample is always checked
+        int toReturn = BitPlaneCodec.capacity(getPixels() * samples,
+                bitsPerSample);
+        return bitsPerSample > sampleBits ? 0 : toReturn;
+    }// getBytes ( int )
+
+    /**
+     * Checks whether a message fits once the alphabet has dropped the
+     * characters it cannot hide.  An empty message never fits.
+     * @param message The message
+     * @param alphabet The alphabet it would be hidden with
+     * @return Whether {@link Steganography#encodeImage} would accept it
+     */
+    public boolean fits(String message, Alphabet alphabet) {
+        int length = alphabet.filter(message).length;
+        return length > 0 && length <= getCharacters();
+    }// fits ( String , Alphabet )
+
+    /**
+     * @param bytes The size of a payload
+     * @param bitsPerSample Low bits of each sample to use, 1 to 8
+     * @return Whether {@link Steganography#encodeBytes} would accept it
+     */
+    public boolean fits(int bytes, int bitsPerSample) {
+        return bytes >= 0 && bytes <= getBytes(bitsPerSample);
+    }// fits ( int , int )
+
+    @Override
+    public String toString() {
+        return width + "x" + height + "x" + channels + ", "
+                + getCharacters() + " characters";
+    }// toString()
+}// Capacity
@@ -0,0 +1,281 @@
+package steganography;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+
+/**
+ * Keeps decoded carrier images in memory so that hiding many messages in
+ * the same few stock images decodes each file once instead of every time.
+ * <br>
+ * Images are keyed by their path and checked against the file's last
+ * modified time, so an image that changes on disk is read again.  Once the
+ * decoded pixels of all images pass the byte limit the least recently used
+ * are dropped.  The pixels can be kept off the heap in direct buffers so a
+ * large cache does not add to garbage collection pauses.
+ * <br>
+ * Every image is converted to TYPE_3BYTE_BGR, or TYPE_4BYTE_ABGR when it
+ * has alpha, which keeps the colours and gives one byte per sample.  The
+ * cached pixels are never handed out, only copies of them, so callers are
+ * free to change what they get.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public final class CarrierCache {
+
+    private final long maxBytes;
+    private final boolean offHeap;
+    /**
+     * Images in order of use, least recent first
+     */
+    private final LinkedHashMap<String, Entry> entries =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxBytes How many bytes of decoded pixels to keep at most
+     * @param offHeap Whether to keep the pixels in direct buffers
+     */
+    public CarrierCache(long maxBytes, boolean offHeap) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Negative cache size " + maxBytes);
+        }// if
+        this.maxBytes = maxBytes;
+        this.offHeap = offHeap;
+    }// CarrierCache ( long , boolean )
+
+    /**
+     * Gets a copy of an image, reading the file only if it is not cached
+     * or has changed.
+     * @param file The image file
+     * @return A copy of the image the caller owns
+     * @throws IOException If the file cannot be read as an image
+     */
+    public BufferedImage get(File file) throws IOException {
+        return lookUp(file).copy();
+    }// get ( File )
+
+    /**
+     * Hides a message in a cached image.  On the heap the result shares every
+     * unchanged row with the cached image, so nothing but the carrier rows
+     * is copied.
+     * @param message The message to hide
+     * @param file The carrier image file
+     * @param alphabet The characters that can be hidden and how
+     * @return The encoded image
+     * @throws IOException If the file cannot be read as an image
+     * @throws IllegalArgumentException If the message is empty or too long
+     * @see Steganography#encodeCopy(String, BufferedImage, Alphabet)
+     */
+    public EncodedImage encodeCopy(String message, File file, Alphabet alphabet)
+            throws IOException {
+        Entry entry = lookUp(file);
+        BufferedImage carrier = entry.image != null ? entry.image : entry.copy();
+        return Steganography.encodeCopy(message, carrier, alphabet);
+    }// encodeCopy ( String , File , Alphabet )
+
+    /**
+     * Finds the cached entry for a file, reading it if needed.  The file is
+     * read outside the lock so a slow read does not hold up hits on other
+     * images.
+     */
+    private Entry lookUp(File file) throws IOException {
+        String key = file.getAbsolutePath();
+        long modified = file.lastModified();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.modified == modified) {
+                hits.incrementAndGet();
+                return entry;
+            }// if
+        }// synchronized
+
+        misses.incrementAndGet();
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException("Not a readable image: " + file);
+        }// if
+        Entry entry = new Entry(normalize(image), modified, offHeap);
+        if (entry.size > maxBytes) {
+            // caching it would only push out everything else
+            return entry;
+        }// if
+
+        synchronized (this) {
+            Entry old = entries.put(key, entry);
+            if (old != null) {
+                bytes -= old.size;
+            }// if
+            bytes += entry.size;
+            evict();
+        }// synchronized
+        return entry;
+    }// lookUp ( File )
+
+    /**
+     * Drops the least recently used images until the cache is within its
+     * limit.  The caller holds the lock.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().size;
+            eldest.remove();
+            evictions.incrementAndGet();
+        }// while
+    }// evict()
+
+    /**
+     * Converts an image to one byte per sample, interleaved.
+     */
+    private static BufferedImage normalize(BufferedImage image) {
+        int type = image.getColorModel().hasAlpha()
+                ? BufferedImage.TYPE_4BYTE_ABGR : BufferedImage.TYPE_3BYTE_BGR;
+        if (image.getType() == type) {
+            return image;
+        }// if
+        BufferedImage toReturn = new BufferedImage(image.getWidth(),
+                image.getHeight(), type);
+        int width = image.getWidth();
+        int[] row = new int[width];
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            toReturn.setRGB(0, y, width, 1, row, 0, width);
+        }// for
+        return toReturn;
+    }// normalize ( BufferedImage )
+
+    /**
+     * Drops every image.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }// clear()
+
+    /**
+     * @return The number of images cached
+     */
+    public synchronized int size() {
+        return entries.size();
+    }// size()
+
+    /**
+     * @return Bytes of decoded pixels cached
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }// getBytes()
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }// getMaxBytes()
+
+    /**
+     * @return Lookups answered without reading the file
+     */
+    public long getHits() {
+        return hits.get();
+    }// getHits()
+
+    /**
+     * @return Lookups that had to read the file
+     */
+    public long getMisses() {
+        return misses.get();
+    }// getMisses()
+
+    /**
+     * @return Images dropped to stay within the limit
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }// getEvictions()
+
+    /**
+     * Prints the counters in the same form as {@link CodecMetrics}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder toReturn = new StringBuilder();
+        toReturn.append("steganography_cache_hits_total ").append(getHits())
+                .append('\n');
+        toReturn.append("steganography_cache_misses_total ").append(getMisses())
+                .append('\n');
+        toReturn.append("steganography_cache_evictions_total ")
+                .append(getEvictions()).append('\n');
+        toReturn.append("steganography_cache_bytes ").append(getBytes())
+                .append('\n');
+        return toReturn.toString();
+    }// toString()
+
+    /**
+     * One decoded image, either as the image itself or its bytes in a
+     * direct buffer
+     */
+    private static final class Entry {
+
+        final long modified;
+        final long size;
+        private final int width;
+        private final int height;
+        private final int type;
+        /**
+         * The image, when kept on the heap
+         */
+        final BufferedImage image;
+        /**
+         * The image's bytes, when kept off the heap
+         */
+        private final ByteBuffer pixels;
+
+        Entry(BufferedImage image, long modified, boolean offHeap) {
+            this.modified = modified;
+            width = image.getWidth();
+            height = image.getHeight();
+            type = image.getType();
+            byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer())
+                    .getData();
+            size = data.length;
+            if (offHeap) {
+                pixels = ByteBuffer.allocateDirect(data.length);
+                pixels.put(data);
+                this.image = null;
+            } else {
+                pixels = null;
+                this.image = image;
+            }// if, else
+        }// Entry ( BufferedImage , long , boolean )
+
+        /**
+         * @return A new image holding a copy of the pixels
+         */
+        BufferedImage copy() {
+            BufferedImage toReturn = new BufferedImage(width, height, type);
+            byte[] data = ((DataBufferByte) toReturn.getRaster().getDataBuffer())
+                    .getData();
+            if (image != null) {
+                byte[] cached = ((DataBufferByte) image.getRaster()
+                        .getDataBuffer()).getData();
+                System.arraycopy(cached, 0, data, 0, data.length);
+            } else {
+                // a duplicate keeps the position of the shared buffer alone
+                ByteBuffer view = pixels.duplicate();
+                view.clear();
+                view.get(data);
+            }// if, else
+            return toReturn;
+        }// copy()
+    }// Entry
+}// CarrierCache
@@ -0,0 +1,650 @@
+package steganography;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Gives the codec direct access to the pixels of an image by their index
+ * (row * width + column) instead of walking the raster pixel by pixel.
+ * The layout of the raster is worked out once, when it is wrapped, and
+ * every pixel after that goes straight to the data buffer's backing arrays:
+ * <ul>
+ * <li>Pixels packed into one int or short, such as TYPE_INT_RGB,
+ * TYPE_INT_ARGB, TYPE_INT_BGR, TYPE_USHORT_565_RGB and
+ * TYPE_USHORT_555_RGB.</li>
+ * <li>One byte or short per sample, interleaved or in banks of their own,
+ * such as TYPE_3BYTE_BGR, TYPE_4BYTE_ABGR, TYPE_BYTE_GRAY, TYPE_USHORT_GRAY
+ * and 16 bit images read from PNG files.</li>
+ * <li>Indexed images, read through their palette.  Changing a pixel would
+ * mean changing its palette entry, so these cannot be written.</li>
+ * </ul>
+ * Anything else goes through the raster one pixel at a time.
+ * <br>
+ * The low bits of a run of pixels can also be read or replaced in one go,
+ * see {@link #setLowBits}.  Packed and one-sample-a-byte rasters do it
+ * with a loop along each row of the backing array that reads and writes
+ * every pixel word once, masking all of its samples together, instead of
+ * working out where each pixel is and copying its samples in and out.
+ * <br>
+ * A raster of three bands or more holds colour and only the first three
+ * (R, G and B) are ever read or written.  A raster of one or two bands
+ * holds grey and only the first is.  Any other band, such as alpha, is left
+ * untouched.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+abstract class CarrierRaster {
+
+    /**
+     * The largest samples of 8 bit colour, shared and never changed
+     */
+    private static final int[] EIGHT_BIT_RGB = {255, 255, 255};
+
+    /**
+     * Width of the raster in pixels
+     */
+    protected final int width;
+    /**
+     * Height of the raster in pixels
+     */
+    protected final int height;
+    /**
+     * The largest value each sample can hold, three for colour and one for
+     * grey.  Never changed once set.
+     */
+    protected final int[] maxSamples;
+
+    /**
+     * A raster of 8 bit colour.
+     * @param width Width of the raster in pixels
+     * @param height Height of the raster in pixels
+     */
+    protected CarrierRaster(int width, int height) {
+        this(width, height, EIGHT_BIT_RGB);
+    }// CarrierRaster ( int , int )
+
+    /**
+     * @param width Width of the raster in pixels
+     * @param height Height of the raster in pixels
+     * @param maxSamples The largest value of each sample, three for colour
+     *  and one for grey
+     */
+    protected CarrierRaster(int width, int height, int[] maxSamples) {
+        this.width = width;
+        this.height = height;
+        this.maxSamples = maxSamples;
+    }// CarrierRaster ( int , int , int[] )
+
+    /**
+     * Picks the fastest way to reach the pixels of an image, reading an
+     * indexed image through its palette.
+     * @param image The image to read and write
+     * @return Access to the image's pixels by index
+     */
+    static CarrierRaster wrap(BufferedImage image) {
+        ColorModel model = image.getColorModel();
+        if (model instanceof IndexColorModel) {
+            return new Palette(image.getRaster(), (IndexColorModel) model);
+        }// if
+        return wrap(image.getRaster());
+    }// wrap ( BufferedImage )
+
+    /**
+     * Picks the fastest way to reach the pixels of a raster.
+     * @param raster The raster to read and write
+     * @return Access to the raster's pixels by index
+     */
+    static CarrierRaster wrap(WritableRaster raster) {
+        SampleModel model = raster.getSampleModel();
+        DataBuffer buffer = raster.getDataBuffer();
+
+        if (model instanceof SinglePixelPackedSampleModel
+                && (buffer instanceof DataBufferInt
+                || buffer instanceof DataBufferUShort)) {
+            return new Packed(raster);
+        } else if (model instanceof ComponentSampleModel
+                && (buffer instanceof DataBufferByte
+                || buffer instanceof DataBufferUShort)) {
+            return new Components(raster);
+        }// if, else if
+        return new Generic(raster);
+    }// wrap ( WritableRaster )
+
+    /**
+     * The samples of a raster that hold colour or grey.
+     * @param raster The raster
+     * @return Three for colour, one for grey
+     */
+    private static int colourSamples(Raster raster) {
+        return raster.getNumBands() >= 3 ? 3 : 1;
+    }// colourSamples ( Raster )
+
+    /**
+     * The largest value of each colour sample of a raster, from the sizes
+     * of its samples.  Samples of 31 bits or more, such as floats, are read
+     * as ints and capped at the largest int.
+     */
+    private static int[] largestSamples(Raster raster) {
+        SampleModel model = raster.getSampleModel();
+        int[] toReturn = new int[colourSamples(raster)];
+        for (int b = 0; b < toReturn.length; b++) {
+            int size = model.getSampleSize(b);
+            toReturn[b] = size >= 31 ? Integer.MAX_VALUE : (1 << size) - 1;
+        }// for
+        return toReturn;
+    }// largestSamples ( Raster )
+
+    /**
+     * @return The number of pixels in the raster
+     */
+    int getPixelCount() {
+        return width * height;
+    }// getPixelCount()
+
+    int getWidth() {
+        return width;
+    }// getWidth()
+
+    int getHeight() {
+        return height;
+    }// getHeight()
+
+    /**
+     * @return The samples of each pixel that are read and written, three
+     *  for colour and one for grey
+     */
+    int getSamples() {
+        return maxSamples.length;
+    }// getSamples()
+
+    /**
+     * @param sample Which sample, 0 to {@link #getSamples()} - 1
+     * @return The largest value the sample can hold
+     */
+    int getMaxSample(int sample) {
+        return maxSamples[sample];
+    }// getMaxSample ( int )
+
+    /**
+     * @return The number of bits in the smallest sample of a pixel
+     */
+    int getSampleBits() {
+        int smallest = Integer.MAX_VALUE;
+        for (int max : maxSamples) {
+            smallest = Math.min(smallest, max);
+        }// for
+        return 32 - Integer.numberOfLeadingZeros(smallest);
+    }// getSampleBits()
+
+    /**
+     * Whether pixels can be written as well as read.
+     * @return False if {@link #setPixel} is not supported
+     */
+    boolean isWritable() {
+        return true;
+    }// isWritable()
+
+    /**
+     * Whether different pixels can be read and written from several threads
+     * at once.  True when every pixel has storage of its own that no other
+     * pixel shares.
+     * @return True if carriers can be worked on in parallel
+     */
+    boolean supportsParallel() {
+        return true;
+    }// supportsParallel()
+
+    /**
+     * Reads the samples of a pixel, R, G and B or just grey.
+     * @param index The index of the pixel, row * width + column
+     * @param rgb Array of at least {@link #getSamples()} to hold the samples
+     */
+    abstract void getPixel(int index, int[] rgb);
+
+    /**
+     * Writes the samples of a pixel, R, G and B or just grey.
+     * @param index The index of the pixel, row * width + column
+     * @param rgb The samples to write
+     */
+    abstract void setPixel(int index, int[] rgb);
+
+    /**
+     * Replaces the low bits of every sample of a run of pixels, which may
+     * run over several rows.  Each pixel's bits come as one chunk, R's in
+     * the highest bits, then G's, then B's, or just grey's.
+     * @param index The index of the first pixel
+     * @param chunks The bits of each pixel, bits * {@link #getSamples()} of
+     *  them
+     * @param count How many pixels
+     * @param bits How many low bits of each sample to replace, no more than
+     *  {@link #getSampleBits()}
+     */
+    void setLowBits(int index, int[] chunks, int count, int bits) {
+        setLowBitsByPixel(this, index, chunks, count, bits);
+    }// setLowBits ( int , int[] , int , int )
+
+    /**
+     * Reads the low bits of every sample of a run of pixels, laid out as
+     * {@link #setLowBits} takes them.
+     * @param index The index of the first pixel
+     * @param chunks Where the bits of each pixel go
+     * @param count How many pixels
+     * @param bits How many low bits of each sample to read
+     */
+    void getLowBits(int index, int[] chunks, int count, int bits) {
+        getLowBitsByPixel(this, index, chunks, count, bits);
+    }// getLowBits ( int , int[] , int , int )
+
+    /**
+     * {@link #setLowBits} a pixel at a time through {@link #setPixel}, which
+     * works for every raster
+     */
+    static void setLowBitsByPixel(CarrierRaster raster, int index,
+            int[] chunks, int count, int bits) {
+        int[] rgb = new int[raster.getSamples()];
+        int mask = (1 << bits) - 1;
+        for (int i = 0; i < count; i++) {
+            raster.getPixel(index + i, rgb);
+            for (int b = 0, shift = bits * (rgb.length - 1); b < rgb.length;
+                    b++, shift -= bits) {
+                rgb[b] = (rgb[b] & ~mask) | (chunks[i] >>> shift & mask);
+            }// for
+            raster.setPixel(index + i, rgb);
+        }// for
+    }// setLowBitsByPixel ( CarrierRaster , int , int[] , int , int )
+
+    /**
+     * {@link #getLowBits} a pixel at a time through {@link #getPixel}, which
+     * works for every raster
+     */
+    static void getLowBitsByPixel(CarrierRaster raster, int index,
+            int[] chunks, int count, int bits) {
+        int[] rgb = new int[raster.getSamples()];
+        int mask = (1 << bits) - 1;
+        for (int i = 0; i < count; i++) {
+            raster.getPixel(index + i, rgb);
+            int chunk = 0;
+            for (int b = 0; b < rgb.length; b++) {
+                chunk = chunk << bits | (rgb[b] & mask);
+            }// for
+            chunks[i] = chunk;
+        }// for
+    }// getLowBitsByPixel ( CarrierRaster , int , int[] , int , int )
+
+    /**
+     * Pixels packed into one int or short each, such as TYPE_INT_RGB and
+     * TYPE_USHORT_565_RGB.
+     */
+    private static final class Packed extends CarrierRaster {
+
+        /**
+         * Exactly one of these is set, depending on the data buffer
+         */
+        private final int[] ints;
+        private final short[] shorts;
+        private final int base;
+        private final int scanlineStride;
+        private final int[] masks;
+        private final int[] shifts;
+
+        Packed(WritableRaster raster) {
+            super(raster.getWidth(), raster.getHeight(),
+                    largestPacked(raster));
+            SinglePixelPackedSampleModel model =
+                    (SinglePixelPackedSampleModel) raster.getSampleModel();
+            DataBuffer buffer = raster.getDataBuffer();
+
+            if (buffer instanceof DataBufferInt) {
+                ints = ((DataBufferInt) buffer).getData();
+                shorts = null;
+            } else {
+                ints = null;
+                shorts = ((DataBufferUShort) buffer).getData();
+            }// if, else
+            scanlineStride = model.getScanlineStride();
+            masks = model.getBitMasks();
+            shifts = model.getBitOffsets();
+
+            int x = raster.getMinX() - raster.getSampleModelTranslateX();
+            int y = raster.getMinY() - raster.getSampleModelTranslateY();
+            base = buffer.getOffset() + y * scanlineStride + x;
+        }// Packed ( WritableRaster )
+
+        private static int[] largestPacked(Raster raster) {
+            SinglePixelPackedSampleModel model =
+                    (SinglePixelPackedSampleModel) raster.getSampleModel();
+            int[] toReturn = new int[colourSamples(raster)];
+            for (int b = 0; b < toReturn.length; b++) {
+                toReturn[b] = model.getBitMasks()[b] >>> model.getBitOffsets()[b];
+            }// for
+            return toReturn;
+        }// largestPacked ( Raster )
+
+        private int offset(int index) {
+            return base + (index / width) * scanlineStride + index % width;
+        }// offset ( int )
+
+        @Override
+        void getPixel(int index, int[] rgb) {
+            int offset = offset(index);
+            int pixel = ints != null ? ints[offset] : shorts[offset] & 0xFFFF;
+            for (int b = 0; b < maxSamples.length; b++) {
+                rgb[b] = (pixel & masks[b]) >>> shifts[b];
+            }// for
+        }// getPixel ( int , int[] )
+
+        @Override
+        void setPixel(int index, int[] rgb) {
+            int offset = offset(index);
+            int pixel = ints != null ? ints[offset] : shorts[offset];
+            for (int b = 0; b < maxSamples.length; b++) {
+                pixel = (pixel & ~masks[b]) | ((rgb[b] << shifts[b]) & masks[b]);
+            }// for
+            if (ints != null) {
+                ints[offset] = pixel;
+            } else {
+                shorts[offset] = (short) pixel;
+            }// if, else
+        }// setPixel ( int , int[] )
+
+        @Override
+        void setLowBits(int index, int[] chunks, int count, int bits) {
+            if (maxSamples.length != 3) {
+                setLowBitsByPixel(this, index, chunks, count, bits);
+                return;
+            }// if
+            int mask = (1 << bits) - 1;
+            int shiftR = shifts[0];
+            int shiftG = shifts[1];
+            int shiftB = shifts[2];
+            int keep = ~(mask << shiftR | mask << shiftG | mask << shiftB);
+            int row = index / width;
+            int column = index % width;
+            for (int done = 0; done < count; row++, column = 0) {
+                int run = Math.min(count - done, width - column);
+                int offset = base + row * scanlineStride + column;
+                for (int i = done; i < done + run; i++, offset++) {
+                    int chunk = chunks[i];
+                    int lows = (chunk >>> 2 * bits) << shiftR
+                            | (chunk >>> bits & mask) << shiftG
+                            | (chunk & mask) << shiftB;
+                    if (ints != null) {
+                        ints[offset] = ints[offset] & keep | lows;
+                    } else {
+                        shorts[offset] = (short) (shorts[offset] & keep | lows);
+                    }// if, else
+                }// for
+                done += run;
+            }// for
+        }// setLowBits ( int , int[] , int , int )
+
+        @Override
+        void getLowBits(int index, int[] chunks, int count, int bits) {
+            if (maxSamples.length != 3) {
+                getLowBitsByPixel(this, index, chunks, count, bits);
+                return;
+            }// if
+            int mask = (1 << bits) - 1;
+            int shiftR = shifts[0];
+            int shiftG = shifts[1];
+            int shiftB = shifts[2];
+            int row = index / width;
+            int column = index % width;
+            for (int done = 0; done < count; row++, column = 0) {
+                int run = Math.min(count - done, width - column);
+                int offset = base + row * scanlineStride + column;
+                for (int i = done; i < done + run; i++, offset++) {
+                    int pixel = ints != null ? ints[offset] : shorts[offset];
+                    chunks[i] = (pixel >>> shiftR & mask) << 2 * bits
+                            | (pixel >>> shiftG & mask) << bits
+                            | (pixel >>> shiftB & mask);
+                }// for
+                done += run;
+            }// for
+        }// getLowBits ( int , int[] , int , int )
+    }// Packed
+
+    /**
+     * One byte or short per sample, with the samples of a pixel next to
+     * each other as in TYPE_3BYTE_BGR, or each band in a bank of its own.
+     */
+    private static final class Components extends CarrierRaster {
+
+        /**
+         * The bank holding each sample.  Exactly one of these is set,
+         * depending on the data buffer.
+         */
+        private final byte[][] bytes;
+        private final short[][] shorts;
+        /**
+         * Where the first pixel's sample is in its bank
+         */
+        private final int[] bases;
+        private final int scanlineStride;
+        private final int pixelStride;
+
+        Components(WritableRaster raster) {
+            super(raster.getWidth(), raster.getHeight(),
+                    largestSamples(raster));
+            ComponentSampleModel model =
+                    (ComponentSampleModel) raster.getSampleModel();
+            DataBuffer buffer = raster.getDataBuffer();
+            int samples = maxSamples.length;
+
+            scanlineStride = model.getScanlineStride();
+            pixelStride = model.getPixelStride();
+            int[] banks = model.getBankIndices();
+            int[] bandOffsets = model.getBandOffsets();
+            int[] bufferOffsets = buffer.getOffsets();
+            int x = raster.getMinX() - raster.getSampleModelTranslateX();
+            int y = raster.getMinY() - raster.getSampleModelTranslateY();
+
+            bases = new int[samples];
+            if (buffer instanceof DataBufferByte) {
+                bytes = new byte[samples][];
+                shorts = null;
+            } else {
+                bytes = null;
+                shorts = new short[samples][];
+            }// if, else
+            for (int b = 0; b < samples; b++) {
+                if (bytes != null) {
+                    bytes[b] = ((DataBufferByte) buffer).getData(banks[b]);
+                } else {
+                    shorts[b] = ((DataBufferUShort) buffer).getData(banks[b]);
+                }// if, else
+                bases[b] = bufferOffsets[banks[b]] + bandOffsets[b]
+                        + y * scanlineStride + x * pixelStride;
+            }// for
+        }// Components ( WritableRaster )
+
+        private int offset(int index) {
+            return (index / width) * scanlineStride
+                    + (index % width) * pixelStride;
+        }// offset ( int )
+
+        @Override
+        void getPixel(int index, int[] rgb) {
+            int offset = offset(index);
+            if (bytes != null) {
+                for (int b = 0; b < bases.length; b++) {
+                    rgb[b] = bytes[b][bases[b] + offset] & 0xFF;
+                }// for
+            } else {
+                for (int b = 0; b < bases.length; b++) {
+                    rgb[b] = shorts[b][bases[b] + offset] & 0xFFFF;
+                }// for
+            }// if, else
+        }// getPixel ( int , int[] )
+
+        @Override
+        void setPixel(int index, int[] rgb) {
+            int offset = offset(index);
+            if (bytes != null) {
+                for (int b = 0; b < bases.length; b++) {
+                    bytes[b][bases[b] + offset] = (byte) rgb[b];
+                }// for
+            } else {
+                for (int b = 0; b < bases.length; b++) {
+                    shorts[b][bases[b] + offset] = (short) rgb[b];
+                }// for
+            }// if, else
+        }// setPixel ( int , int[] )
+
+        @Override
+        void setLowBits(int index, int[] chunks, int count, int bits) {
+            if (bytes == null) {
+                setLowBitsByPixel(this, index, chunks, count, bits);
+                return;
+            }// if
+            int mask = (1 << bits) - 1;
+            int samples = bases.length;
+            int row = index / width;
+            int column = index % width;
+            for (int done = 0; done < count; row++, column = 0) {
+                int run = Math.min(count - done, width - column);
+                int offset = row * scanlineStride + column * pixelStride;
+                // each sample is a stripe of the row, pixelStride apart
+                for (int b = 0, shift = bits * (samples - 1); b < samples;
+                        b++, shift -= bits) {
+                    byte[] bank = bytes[b];
+                    int at = bases[b] + offset;
+                    for (int i = done; i < done + run; i++, at += pixelStride) {
+                        bank[at] = (byte) (bank[at] & ~mask
+                                | chunks[i] >>> shift & mask);
+                    }// for
+                }// for
+                done += run;
+            }// for
+        }// setLowBits ( int , int[] , int , int )
+
+        @Override
+        void getLowBits(int index, int[] chunks, int count, int bits) {
+            if (bytes == null) {
+                getLowBitsByPixel(this, index, chunks, count, bits);
+                return;
+            }// if
+            int mask = (1 << bits) - 1;
+            int samples = bases.length;
+            int row = index / width;
+            int column = index % width;
+            for (int done = 0; done < count; row++, column = 0) {
+                int run = Math.min(count - done, width - column);
+                int offset = row * scanlineStride + column * pixelStride;
+                for (int b = 0; b < samples; b++) {
+                    byte[] bank = bytes[b];
+                    int at = bases[b] + offset;
+                    for (int i = done; i < done + run; i++, at += pixelStride) {
+                        int before = b == 0 ? 0 : chunks[i] << bits;
+                        chunks[i] = before | (bank[at] & mask);
+                    }// for
+                }// for
+                done += run;
+            }// for
+        }// getLowBits ( int , int[] , int , int )
+    }// Components
+
+    /**
+     * An indexed image, such as TYPE_BYTE_INDEXED or TYPE_BYTE_BINARY, whose
+     * pixels are looked up in its palette.  Only ever read.
+     */
+    private static final class Palette extends CarrierRaster {
+
+        private final Raster raster;
+        private final int minX;
+        private final int minY;
+        private final byte[] reds;
+        private final byte[] greens;
+        private final byte[] blues;
+
+        Palette(Raster raster, IndexColorModel model) {
+            super(raster.getWidth(), raster.getHeight());
+            this.raster = raster;
+            minX = raster.getMinX();
+            minY = raster.getMinY();
+            int size = model.getMapSize();
+            reds = new byte[size];
+            greens = new byte[size];
+            blues = new byte[size];
+            model.getReds(reds);
+            model.getGreens(greens);
+            model.getBlues(blues);
+        }// Palette ( Raster , IndexColorModel )
+
+        /**
+         * A new colour might not be in the palette, so nothing is written.
+         */
+        @Override
+        boolean isWritable() {
+            return false;
+        }// isWritable()
+
+        @Override
+        void getPixel(int index, int[] rgb) {
+            int entry = raster.getSample(minX + index % width,
+                    minY + index / width, 0);
+            rgb[0] = reds[entry] & 0xFF;
+            rgb[1] = greens[entry] & 0xFF;
+            rgb[2] = blues[entry] & 0xFF;
+        }// getPixel ( int , int[] )
+
+        @Override
+        void setPixel(int index, int[] rgb) {
+            throw new UnsupportedOperationException("Indexed images are read only");
+        }// setPixel ( int , int[] )
+    }// Palette
+
+    /**
+     * Any other layout, read and written through the raster itself.
+     */
+    private static final class Generic extends CarrierRaster {
+
+        private final WritableRaster raster;
+        private final int minX;
+        private final int minY;
+        private final int[] samples;
+
+        Generic(WritableRaster raster) {
+            super(raster.getWidth(), raster.getHeight(),
+                    largestSamples(raster));
+            this.raster = raster;
+            minX = raster.getMinX();
+            minY = raster.getMinY();
+            samples = new int[raster.getNumBands()];
+        }// Generic ( WritableRaster )
+
+        /**
+         * Shares one array of samples between calls, and pixels of some
+         * layouts share bytes, so this stays on one thread.
+         */
+        @Override
+        boolean supportsParallel() {
+            return false;
+        }// supportsParallel()
+
+        @Override
+        void getPixel(int index, int[] rgb) {
+            raster.getPixel(minX + index % width, minY + index / width, samples);
+            System.arraycopy(samples, 0, rgb, 0, maxSamples.length);
+        }// getPixel ( int , int[] )
+
+        @Override
+        void setPixel(int index, int[] rgb) {
+            int x = minX + index % width;
+            int y = minY + index / width;
+            raster.getPixel(x, y, samples);
+            System.arraycopy(rgb, 0, samples, 0, maxSamples.length);
+            raster.setPixel(x, y, samples);
+        }// setPixel ( int , int[] )
+    }// Generic
+}// CarrierRaster
@@ -0,0 +1,87 @@
+package steganography;
+
+/**
+ * Spreads the carrier pixels of a message over the whole image in an order
+ * only the key can reproduce, instead of one every so many pixels.
+ * <br>
+ * The order is a keyed permutation of the pixels after the header, which
+ * stays in the top left so a decoder can check it first.  It is a four
+ * round Feistel network over just enough bits to cover every pixel index,
+ * and an index that lands past the last pixel is put through again until it
+ * lands inside, which takes fewer than four goes on average.  So the pixel
+ * of any character is worked out from its number alone, in constant time,
+ * and encoding or decoding touches only the message's own pixels however
+ * large the image is.
+ * <br>
+ * The permutation depends on the number of pixels as well as the key, so
+ * the same key scatters differently over images of different sizes.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+final class CarrierScatter {
+
+    private static final int ROUNDS = 4;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The pixels permuted, every pixel past the header
+     */
+    private final long domain;
+    /**
+     * Bits in each half of a permuted index
+     */
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    /**
+     * @param key The key the message is hidden with
+     * @param pixels The number of pixels in the image, at least one more
+     *  than the header
+     */
+    CarrierScatter(long key, long pixels) {
+        domain = pixels - Steganography.HEADER_PIXELS;
+        int bits = Math.max(2, 64 - Long.numberOfLeadingZeros(domain - 1));
+        halfBits = (bits + 1) / 2;
+        halfMask = (1L << halfBits) - 1;
+
+        long state = key ^ mix(pixels);
+        for (int i = 0; i < ROUNDS; i++) {
+            state += GOLDEN_GAMMA;
+            roundKeys[i] = mix(state);
+        }// for
+    }// CarrierScatter ( long , long )
+
+    /**
+     * @param n The number of a character, 0 for the first
+     * @return The index of the pixel it is hidden in, never in the header
+     */
+    int carrier(int n) {
+        long index = n;
+        do {
+            index = permute(index);
+        } while (index >= domain);
+        return (int) (index + Steganography.HEADER_PIXELS);
+    }// carrier ( int )
+
+    private long permute(long index) {
+        long left = index >>> halfBits;
+        long right = index & halfMask;
+        for (long roundKey : roundKeys) {
+            long next = left ^ (mix(right ^ roundKey) & halfMask);
+            left = right;
+            right = next;
+        }// for
+        return left << halfBits | right;
+    }// permute ( long )
+
+    /**
+     * The finaliser of SplitMix64, which spreads every bit of its input
+     * over every bit of its output
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }// mix ( long )
+}// CarrierScatter
@@ -0,0 +1,194 @@
+package steganography;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals of the work done by {@link Steganography}.  Every encode
+ * and decode adds to these counters, which costs a few atomic additions per
+ * message rather than per pixel, so they are always on.
+ * <br>
+ * {@link #toString()} prints every counter on its own line as
+ * <code>name value</code> so the totals can be scraped as plain text.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public final class CodecMetrics {
+
+    private final AtomicLong encodes = new AtomicLong();
+    private final AtomicLong decodes = new AtomicLong();
+    private final AtomicLong pixelsWritten = new AtomicLong();
+    private final AtomicLong pixelsRead = new AtomicLong();
+    private final AtomicLong charactersEmbedded = new AtomicLong();
+    private final AtomicLong charactersRetrieved = new AtomicLong();
+    private final AtomicLong bytesEmbedded = new AtomicLong();
+    private final AtomicLong bytesRetrieved = new AtomicLong();
+    private final AtomicLong encodeNanos = new AtomicLong();
+    private final AtomicLong decodeNanos = new AtomicLong();
+
+    /**
+     * Package private, the codec owns the only instance.
+     * @see Steganography#getMetrics()
+     */
+    CodecMetrics() {
+    }// CodecMetrics()
+
+    /**
+     * Records one finished encode.
+     * @param pixels The number of pixels written
+     * @param characters The number of characters hidden
+     * @param nanos How long the encode took
+     */
+    void recordEncode(long pixels, long characters, long nanos) {
+        encodes.incrementAndGet();
+        pixelsWritten.addAndGet(pixels);
+        charactersEmbedded.addAndGet(characters);
+        encodeNanos.addAndGet(nanos);
+    }// recordEncode ( long , long , long )
+
+    /**
+     * Records one finished decode.
+     * @param pixels The number of pixels read
+     * @param characters The number of characters retrieved
+     * @param nanos How long the decode took
+     */
+    void recordDecode(long pixels, long characters, long nanos) {
+        decodes.incrementAndGet();
+        pixelsRead.addAndGet(pixels);
+        charactersRetrieved.addAndGet(characters);
+        decodeNanos.addAndGet(nanos);
+    }// recordDecode ( long , long , long )
+
+    /**
+     * Records one finished encode of raw bytes.
+     * @param pixels The number of pixels written
+     * @param bytes The number of bytes hidden
+     * @param nanos How long the encode took
+     */
+    void recordByteEncode(long pixels, long bytes, long nanos) {
+        encodes.incrementAndGet();
+        pixelsWritten.addAndGet(pixels);
+        bytesEmbedded.addAndGet(bytes);
+        encodeNanos.addAndGet(nanos);
+    }// recordByteEncode ( long , long , long )
+
+    /**
+     * Records one finished decode of raw bytes.
+     * @param pixels The number of pixels read
+     * @param bytes The number of bytes retrieved
+     * @param nanos How long the decode took
+     */
+    void recordByteDecode(long pixels, long bytes, long nanos) {
+        decodes.incrementAndGet();
+        pixelsRead.addAndGet(pixels);
+        bytesRetrieved.addAndGet(bytes);
+        decodeNanos.addAndGet(nanos);
+    }// recordByteDecode ( long , long , long )
+
+    /**
+     * @return The number of messages encoded
+     */
+    public long getEncodes() {
+        return encodes.get();
+    }
+
+    /**
+     * @return The number of messages decoded
+     */
+    public long getDecodes() {
+        return decodes.get();
+    }
+
+    /**
+     * @return The number of pixels written by all encodes
+     */
+    public long getPixelsWritten() {
+        return pixelsWritten.get();
+    }
+
+    /**
+     * @return The number of pixels read by all decodes
+     */
+    public long getPixelsRead() {
+        return pixelsRead.get();
+    }
+
+    /**
+     * @return The number of characters hidden by all encodes
+     */
+    public long getCharactersEmbedded() {
+        return charactersEmbedded.get();
+    }
+
+    /**
+     * @return The number of characters retrieved by all decodes
+     */
+    public long getCharactersRetrieved() {
+        return charactersRetrieved.get();
+    }
+
+    /**
+     * @return The number of bytes hidden by all encodes of raw bytes
+     */
+    public long getBytesEmbedded() {
+        return bytesEmbedded.get();
+    }
+
+    /**
+     * @return The number of bytes retrieved by all decodes of raw bytes
+     */
+    public long getBytesRetrieved() {
+        return bytesRetrieved.get();
+    }
+
+    /**
+     * @return The total time spent encoding in nanoseconds
+     */
+    public long getEncodeNanos() {
+        return encodeNanos.get();
+    }
+
+    /**
+     * @return The total time spent decoding in nanoseconds
+     */
+    public long getDecodeNanos() {
+        return decodeNanos.get();
+    }
+
+    /**
+     * Sets every counter back to zero.
+     */
+    public void reset() {
+        encodes.set(0);
+        decodes.set(0);
+        pixelsWritten.set(0);
+        pixelsRead.set(0);
+        charactersEmbedded.set(0);
+        charactersRetrieved.set(0);
+        bytesEmbedded.set(0);
+        bytesRetrieved.set(0);
+        encodeNanos.set(0);
+        decodeNanos.set(0);
+    }// reset()
+
+    @Override
+    public String toString() {
+        StringBuilder toReturn = new StringBuilder();
+        line(toReturn, "steganography_encodes_total", getEncodes());
+        line(toReturn, "steganography_decodes_total", getDecodes());
+        line(toReturn, "steganography_pixels_written_total", getPixelsWritten());
+        line(toReturn, "steganography_pixels_read_total", getPixelsRead());
+        line(toReturn, "steganography_characters_embedded_total",
+                getCharactersEmbedded());
+        line(toReturn, "steganography_characters_retrieved_total",
+                getCharactersRetrieved());
+        line(toReturn, "steganography_bytes_embedded_total", getBytesEmbedded());
+        line(toReturn, "steganography_bytes_retrieved_total", getBytesRetrieved());
+        line(toReturn, "steganography_encode_nanos_total", getEncodeNanos());
+        line(toReturn, "steganography_decode_nanos_total", getDecodeNanos());
+        return toReturn.toString();
+    }// toString()
+
+    private static void line(StringBuilder out, String name, long value) {
+        out.append(name).append(' ').append(value).append('\n');
+    }// line ( StringBuilder , String , long )
+}// CodecMetrics
@@ -0,0 +1,56 @@
+package steganography;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Work started by {@link AsyncCodec}, which can be waited on, cancelled
+ * and asked how far it has got.
+ * <br>
+ * Cancelling stops the work at its next row or strip even when it is
+ * spread over a pool's threads, and an image that was being written is
+ * deleted rather than left half finished.
+ * @param <V> What the work produces
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public final class CodecTask<V> extends FutureTask<V> {
+
+    private final Progress progress;
+
+    /**
+     * Package private, see {@link AsyncCodec}.
+     * @param work The work to run
+     * @param progress Passed down to the work and cancelled along with it
+     */
+    CodecTask(Callable<V> work, Progress progress) {
+        super(work);
+        this.progress = progress;
+    }// CodecTask ( Callable<V> , Progress )
+
+    /**
+     * Stops the work as soon as it next reports progress.
+     * @param mayInterruptIfRunning Whether to interrupt the thread running
+     *  the task as well, which stops a read or write blocked on I/O
+     * @return False if the task had already finished
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        progress.cancel();
+        return super.cancel(mayInterruptIfRunning);
+    }// cancel ( boolean )
+
+    /**
+     * @return Rows finished so far
+     */
+    public long getRowsDone() {
+        return progress.getDone();
+    }// getRowsDone()
+
+    /**
+     * @return Rows in the whole task, 0 until it is known
+     */
+    public long getRowsTotal() {
+        return progress.getTotal();
+    }// getRowsTotal()
+}// CodecTask
@@ -0,0 +1,31 @@
+package steganography;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Makes numbered daemon threads, so pools the codec starts on its own never
+ * keep the JVM running.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+final class DaemonThreads implements ThreadFactory {
+
+    private final String prefix;
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * @param prefix The start of every thread's name
+     */
+    DaemonThreads(String prefix) {
+        this.prefix = prefix;
+    }// DaemonThreads ( String )
+
+    @Override
+    public Thread newThread(Runnable task) {
+        Thread toReturn = new Thread(task,
+                prefix + "-" + count.incrementAndGet());
+        toReturn.setDaemon(true);
+        return toReturn;
+    }// newThread ( Runnable )
+}// DaemonThreads
@@ -0,0 +1,292 @@
+package steganography;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Vector;
+
+/**
+ * An encoded image that shares every unchanged row with the image it was
+ * encoded from.  A row is copied the first time a pixel in it is written,
+ * so encoding a message of n characters copies at most n + 1 rows instead
+ * of the whole image, and the original is never changed.
+ * <br>
+ * Each row is one tile, so anything that takes a RenderedImage, such as
+ * {@link javax.imageio.ImageIO#write(RenderedImage, String, java.io.File)}
+ * or {@link java.awt.Graphics2D#drawRenderedImage}, reads the copied rows
+ * and the shared ones alike.  Changes made to the original afterwards show
+ * through the shared rows, so leave it alone while this image is in use.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ * @see Steganography#encodeCopy(String, BufferedImage)
+ */
+public final class EncodedImage implements RenderedImage {
+
+    private final BufferedImage original;
+    private final WritableRaster source;
+    private final int width;
+    private final int height;
+    /**
+     * The copied rows, null where the row is still shared
+     */
+    private final WritableRaster[] rows;
+    private final CarrierRaster[] rowCarriers;
+    private final Carriers carriers;
+    private int copiedRows;
+
+    /**
+     * Package private, see {@link Steganography#encodeCopy}.
+     * @param original The image to share rows with
+     */
+    EncodedImage(BufferedImage original) {
+        this.original = original;
+        source = original.getRaster();
+        width = original.getWidth();
+        height = original.getHeight();
+        rows = new WritableRaster[height];
+        rowCarriers = new CarrierRaster[height];
+        carriers = new Carriers(CarrierRaster.wrap(original));
+    }// EncodedImage ( BufferedImage )
+
+    /**
+     * Pixels of this image by index, copying a row the first time one of
+     * its pixels is set.
+     */
+    CarrierRaster getCarrierRaster() {
+        return carriers;
+    }// getCarrierRaster()
+
+    /**
+     * @return The image this one was encoded from, which is unchanged
+     */
+    public BufferedImage getOriginal() {
+        return original;
+    }// getOriginal()
+
+    /**
+     * @return How many rows have been copied from the original
+     */
+    public int getCopiedRows() {
+        return copiedRows;
+    }// getCopiedRows()
+
+    /**
+     * Copies the whole image into a new BufferedImage.
+     * @return A BufferedImage of the same type holding this image's pixels
+     */
+    public BufferedImage toBufferedImage() {
+        ColorModel model = original.getColorModel();
+        return new BufferedImage(model, copyData(null),
+                model.isAlphaPremultiplied(), null);
+    }// toBufferedImage()
+
+    /**
+     * Copies a row the first time it is written.  Scattered carriers from
+     * different threads can land in the same row, so the copy is made under
+     * a lock, but once made a row is found without one.  The copy is only
+     * reached through final fields of its CarrierRaster, so a thread that
+     * finds it also sees the copied pixels.
+     */
+    private CarrierRaster copyRow(int y) {
+        CarrierRaster toReturn = rowCarriers[y];
+        if (toReturn == null) {
+            synchronized (this) {
+                toReturn = rowCarriers[y];
+                if (toReturn == null) {
+                    WritableRaster row = source.createCompatibleWritableRaster(
+                            source.getMinX(), source.getMinY() + y, width, 1);
+                    row.setRect(source.createChild(source.getMinX(),
+                            source.getMinY() + y, width, 1, source.getMinX(),
+                            source.getMinY() + y, null));
+                    rows[y] = row;
+                    toReturn = CarrierRaster.wrap(row);
+                    rowCarriers[y] = toReturn;
+                    copiedRows++;
+                }// if
+            }// synchronized
+        }// if
+        return toReturn;
+    }// copyRow ( int )
+
+    @Override
+    public Vector<RenderedImage> getSources() {
+        return null;
+    }// getSources()
+
+    @Override
+    public Object getProperty(String name) {
+        return original.getProperty(name);
+    }// getProperty ( String )
+
+    @Override
+    public String[] getPropertyNames() {
+        return original.getPropertyNames();
+    }// getPropertyNames()
+
+    @Override
+    public ColorModel getColorModel() {
+        return original.getColorModel();
+    }// getColorModel()
+
+    @Override
+    public SampleModel getSampleModel() {
+        return source.getSampleModel();
+    }// getSampleModel()
+
+    @Override
+    public int getWidth() {
+        return width;
+    }// getWidth()
+
+    @Override
+    public int getHeight() {
+        return height;
+    }// getHeight()
+
+    @Override
+    public int getMinX() {
+        return 0;
+    }// getMinX()
+
+    @Override
+    public int getMinY() {
+        return 0;
+    }// getMinY()
+
+    @Override
+    public int getNumXTiles() {
+        return 1;
+    }// getNumXTiles()
+
+    @Override
+    public int getNumYTiles() {
+        return height;
+    }// getNumYTiles()
+
+    @Override
+    public int getMinTileX() {
+        return 0;
+    }// getMinTileX()
+
+    @Override
+    public int getMinTileY() {
+        return 0;
+    }// getMinTileY()
+
+    @Override
+    public int getTileWidth() {
+        return width;
+    }// getTileWidth()
+
+    @Override
+    public int getTileHeight() {
+        return 1;
+    }// getTileHeight()
+
+    @Override
+    public int getTileGridXOffset() {
+        return 0;
+    }// getTileGridXOffset()
+
+    @Override
+    public int getTileGridYOffset() {
+        return 0;
+    }// getTileGridYOffset()
+
+    /**
+     * The row tileY, either the copy or a view of the original's row.
+     * Either way the raster is placed at (0, tileY).
+     */
+    @Override
+    public Raster getTile(int tileX, int tileY) {
+        if (tileX != 0 || tileY < 0 || tileY >= height) {
+            throw new IllegalArgumentException("No tile " + tileX + ", " + tileY);
+        }// if
+        Raster row = rows[tileY] != null ? rows[tileY] : source.createChild(
+                source.getMinX(), source.getMinY() + tileY, width, 1,
+                source.getMinX(), source.getMinY() + tileY, null);
+        return row.createTranslatedChild(0, tileY);
+    }// getTile ( int , int )
+
+    @Override
+    public Raster getData() {
+        return copyData(null);
+    }// getData()
+
+    @Override
+    public Raster getData(Rectangle rect) {
+        WritableRaster toReturn = source.createCompatibleWritableRaster(
+                rect.x, rect.y, rect.width, rect.height);
+        return copyData(toReturn);
+    }// getData ( Rectangle )
+
+    /**
+     * Copies the part of this image that falls inside raster.
+     * @param raster Where to copy to, or null for a copy of the whole image
+     * @return The raster that was copied to
+     */
+    @Override
+    public WritableRaster copyData(WritableRaster raster) {
+        if (raster == null) {
+            raster = source.createCompatibleWritableRaster(width, height);
+        }// if
+        int top = Math.max(0, raster.getMinY());
+        int bottom = Math.min(height, raster.getMinY() + raster.getHeight());
+        for (int y = top; y < bottom; y++) {
+            raster.setRect(getTile(0, y));
+        }// for
+        return raster;
+    }// copyData ( WritableRaster )
+
+    /**
+     * Reads shared rows from the original and everything else, and all
+     * writes, from the copies.
+     */
+    private final class Carriers extends CarrierRaster {
+
+        private final CarrierRaster shared;
+
+        Carriers(CarrierRaster shared) {
+            super(EncodedImage.this.width, EncodedImage.this.height,
+                    shared.maxSamples);
+            this.shared = shared;
+        }// Carriers ( CarrierRaster )
+
+        /**
+         * An indexed original cannot be written, and neither can its rows.
+         */
+        @Override
+        boolean isWritable() {
+            return shared.isWritable();
+        }// isWritable()
+
+        /**
+         * Rows are copied under a lock and pixels never share storage once
+         * copied, so this is as safe as the original's raster.
+         */
+        @Override
+        boolean supportsParallel() {
+            return shared.supportsParallel();
+        }// supportsParallel()
+
+        @Override
+        void getPixel(int index, int[] rgb) {
+            CarrierRaster row = rowCarriers[index / width];
+            if (row == null) {
+                shared.getPixel(index, rgb);
+            } else {
+                row.getPixel(index % width, rgb);
+            }// if, else
+        }// getPixel ( int , int[] )
+
+        @Override
+        void setPixel(int index, int[] rgb) {
+            copyRow(index / width).setPixel(index % width, rgb);
+        }// setPixel ( int , int[] )
+    }// Carriers
+}// EncodedImage
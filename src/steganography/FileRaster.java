@@ -0,0 +1,448 @@
+package steganography;
+
+import java.awt.Rectangle;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.Locale;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Reads single pixels straight out of an image file without decoding the
+ * rest of it, so a decode only touches the pixel holding the length and
+ * the carrier pixels.
+ * <br>
+ * Uncompressed BMP and binary PPM files are read by working out where the
+ * pixel is in the file, through a memory mapping when given a file.  Formats
+ * whose ImageIO reader can decode a region without the rows above it, such
+ * as TIFF, read a one pixel region per carrier.  Formats that can only be
+ * decoded from the top, PNG, JPEG and GIF, are not handled here; see
+ * {@link StreamingCodec} for those.
+ * <br>
+ * These rasters are read only.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+abstract class FileRaster extends CarrierRaster implements Closeable {
+
+    /**
+     * Largest file mapped into memory in one piece
+     */
+    private static final long MAX_MAPPED = Integer.MAX_VALUE;
+
+    /**
+     * @param width Width of the image in pixels
+     * @param height Height of the image in pixels
+     */
+    protected FileRaster(int width, int height) {
+        super(width, height);
+    }// FileRaster ( int , int )
+
+    /**
+     * Opens an image file for reading single pixels.
+     * @param file The image
+     * @return The raster, or null if the format has to be decoded from the top
+     * @throws IOException If the file cannot be read
+     */
+    static FileRaster open(File file) throws IOException {
+        FileRaster raw = openRaw(file);
+        if (raw != null) {
+            return raw;
+        }// if
+
+        ImageInputStream input = ImageIO.createImageInputStream(file);
+        FileRaster toReturn = open(input);
+        if (toReturn == null) {
+            input.close();
+        }// if
+        return toReturn;
+    }// open ( File )
+
+    /**
+     * Opens a BMP or PPM file whose samples are stored as they are, so
+     * every sample read is the one in the file rather than one converted
+     * to 8-bit RGB.
+     * @param file The image
+     * @return The raster, or null if the file is not one of those
+     * @throws IOException If the file cannot be read
+     */
+    static FileRaster openRaw(File file) throws IOException {
+        RandomAccessFile random = new RandomAccessFile(file, "r");
+        boolean keep = false;
+        try {
+            if (random.length() <= MAX_MAPPED) {
+                FileChannel channel = random.getChannel();
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY,
+                        0, channel.size());
+                FileRaster raw = Raw.open(new MappedBytes(map, random));
+                if (raw != null) {
+                    keep = true;
+                    return raw;
+                }// if
+            }// if
+        } finally {
+            if (!keep) {
+                random.close();
+            }// if
+        }// try, finally
+        return null;
+    }// openRaw ( File )
+
+    /**
+     * Opens an image stream for reading single pixels.  The stream is closed
+     * along with the raster.
+     * @param input The image, which has to support seeking back
+     * @return The raster, or null if the format has to be decoded from the top
+     * @throws IOException If the stream cannot be read
+     */
+    static FileRaster open(ImageInputStream input) throws IOException {
+        FileRaster raw = Raw.open(new StreamBytes(input));
+        if (raw != null) {
+            return raw;
+        }// if
+        input.seek(0);
+
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            return null;
+        }// if
+        ImageReader reader = readers.next();
+        String format = reader.getFormatName().toLowerCase(Locale.ROOT);
+        if (format.equals("png") || format.equals("jpeg")
+                || format.equals("gif")) {
+            reader.dispose();
+            input.seek(0);
+            return null;
+        }// if
+        reader.setInput(input, false, true);
+        return new Region(reader, input);
+    }// open ( ImageInputStream )
+
+    /**
+     * Always fails, these rasters are read only.
+     */
+    @Override
+    void setPixel(int index, int[] rgb) {
+        throw new UnsupportedOperationException("Image files are read only");
+    }// setPixel ( int , int[] )
+
+    /**
+     * Image files are read only.
+     */
+    @Override
+    boolean isWritable() {
+        return false;
+    }// isWritable()
+
+    /**
+     * Pixels can be read concurrently only through a mapping, so keep to
+     * one thread.
+     */
+    @Override
+    boolean supportsParallel() {
+        return false;
+    }// supportsParallel()
+
+    /**
+     * Thrown from {@link #getPixel} when the file cannot be read, since
+     * CarrierRaster methods do not throw IOException.
+     */
+    static final class ReadFailure extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ReadFailure(IOException cause) {
+            super(cause);
+        }// ReadFailure ( IOException )
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }// getCause()
+    }// ReadFailure
+
+    /**
+     * Random access to the bytes of an image
+     */
+    private abstract static class Bytes implements Closeable {
+
+        /**
+         * @return The number of bytes, or -1 if a stream does not know yet
+         */
+        abstract long length() throws IOException;
+
+        /**
+         * @return Whether the bytes reach end, always true when the length
+         *  is unknown; a short stream then fails once it is read
+         */
+        boolean reaches(long end) throws IOException {
+            long length = length();
+            return length < 0 || end <= length;
+        }// reaches ( long )
+
+        abstract void read(long position, byte[] into, int count)
+                throws IOException;
+    }// Bytes
+
+    private static final class MappedBytes extends Bytes {
+
+        private final MappedByteBuffer map;
+        private final RandomAccessFile file;
+
+        MappedBytes(MappedByteBuffer map, RandomAccessFile file) {
+            this.map = map;
+            this.file = file;
+        }// MappedBytes ( MappedByteBuffer , RandomAccessFile )
+
+        @Override
+        long length() {
+            return map.capacity();
+        }// length()
+
+        @Override
+        void read(long position, byte[] into, int count) {
+            for (int i = 0; i < count; i++) {
+                into[i] = map.get((int) position + i);
+            }// for
+        }// read ( long , byte[] , int )
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }// close()
+    }// MappedBytes
+
+    private static final class StreamBytes extends Bytes {
+
+        private final ImageInputStream input;
+
+        StreamBytes(ImageInputStream input) {
+            this.input = input;
+        }// StreamBytes ( ImageInputStream )
+
+        @Override
+        long length() throws IOException {
+            return input.length();
+        }// length()
+
+        @Override
+        void read(long position, byte[] into, int count) throws IOException {
+            input.seek(position);
+            input.readFully(into, 0, count);
+        }// read ( long , byte[] , int )
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }// close()
+    }// StreamBytes
+
+    /**
+     * Uncompressed pixels at a computable place in the file: 24 and 32 bit
+     * BMP, and binary PPM with one byte per sample.
+     */
+    private static final class Raw extends FileRaster {
+
+        private final Bytes bytes;
+        /**
+         * Where the top row starts in the file
+         */
+        private final long base;
+        /**
+         * Bytes from one row to the next, negative for bottom up BMP files
+         */
+        private final long rowStride;
+        private final int pixelStride;
+        /**
+         * Where R, G and B sit within a pixel
+         */
+        private final int red;
+        private final int green;
+        private final int blue;
+        private final byte[] pixel;
+
+        private Raw(Bytes bytes, int width, int height, long base,
+                long rowStride, int pixelStride, int red, int green, int blue) {
+            super(width, height);
+            this.bytes = bytes;
+            this.base = base;
+            this.rowStride = rowStride;
+            this.pixelStride = pixelStride;
+            this.red = red;
+            this.green = green;
+            this.blue = blue;
+            pixel = new byte[pixelStride];
+        }// Raw ( Bytes , int , int , long , long , int , int , int , int )
+
+        /**
+         * Reads the header of a BMP or PPM file.
+         * @return The raster, or null if the bytes are not a supported file
+         */
+        static Raw open(Bytes bytes) throws IOException {
+            long length = bytes.length();
+            if (length >= 0 && length < 16) {
+                return null;
+            }// if
+            byte[] header = new byte[(int) (length < 0 ? 54 : Math.min(length, 54))];
+            try {
+                bytes.read(0, header, header.length);
+            } // try
+            catch (EOFException e) {
+                // a stream too short to be either
+                return null;
+            } // catch( EOFException )
+
+            if (header[0] == 'B' && header[1] == 'M' && header.length == 54) {
+                return bmp(bytes, header);
+            } else if (header[0] == 'P' && header[1] == '6') {
+                return ppm(bytes, header);
+            }// if, else if
+            return null;
+        }// open ( Bytes )
+
+        private static Raw bmp(Bytes bytes, byte[] header) throws IOException {
+            ByteBuffer little = ByteBuffer.wrap(header)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            long offset = little.getInt(10) & 0xFFFFFFFFL;
+            int width = little.getInt(18);
+            int height = little.getInt(22);
+            int bitCount = little.getShort(28);
+            int compression = little.getInt(30);
+
+            if (compression != 0 || (bitCount != 24 && bitCount != 32)
+                    || width <= 0 || height == 0) {
+                return null;
+            }// if
+            int pixelStride = bitCount / 8;
+            long rowBytes = ((bitCount * (long) width + 31) / 32) * 4;
+            boolean bottomUp = height > 0;
+            height = Math.abs(height);
+            if (!bytes.reaches(offset + rowBytes * height)) {
+                return null;
+            }// if
+
+            long base = bottomUp ? offset + rowBytes * (height - 1) : offset;
+            return new Raw(bytes, width, height, base,
+                    bottomUp ? -rowBytes : rowBytes, pixelStride, 2, 1, 0);
+        }// bmp ( Bytes , byte[] )
+
+        private static Raw ppm(Bytes bytes, byte[] header) throws IOException {
+            int[] position = {2};
+            int width = ppmNumber(header, position);
+            int height = ppmNumber(header, position);
+            int maxValue = ppmNumber(header, position);
+            // a single whitespace byte separates the header from the pixels
+            long offset = position[0] + 1;
+
+            if (width <= 0 || height <= 0 || maxValue <= 0 || maxValue > 255
+                    || !bytes.reaches(offset + 3L * width * height)) {
+                return null;
+            }// if
+            return new Raw(bytes, width, height, offset, 3L * width, 3, 0, 1, 2);
+        }// ppm ( Bytes , byte[] )
+
+        /**
+         * Reads the next decimal number of a PPM header, skipping whitespace
+         * and comments before it.
+         * @param header The start of the file
+         * @param position Where to start, moved past the number
+         * @return The number, or -1 if the header is cut off or malformed
+         */
+        private static int ppmNumber(byte[] header, int[] position) {
+            int i = position[0];
+            while (i < header.length) {
+                if (header[i] == '#') {
+                    while (i < header.length && header[i] != '\n') {
+                        i++;
+                    }// while
+                } else if (Character.isWhitespace(header[i])) {
+                    i++;
+                } else {
+                    break;
+                }// if, else if, else
+            }// while
+
+            int value = 0;
+            int digits = 0;
+            while (i < header.length && header[i] >= '0' && header[i] <= '9'
+                    && digits < 9) {
+                value = value * 10 + header[i] - '0';
+                digits++;
+                i++;
+            }// while
+            position[0] = i;
+            return digits == 0 || i >= header.length ? -1 : value;
+        }// ppmNumber ( byte[] , int[] )
+
+        @Override
+        void getPixel(int index, int[] rgb) {
+            long position = base + (index / width) * rowStride
+                    + (long) (index % width) * pixelStride;
+            try {
+                bytes.read(position, pixel, 3);
+            } // try
+            catch (IOException e) {
+                throw new ReadFailure(e);
+            } // catch( IOException )
+            rgb[0] = pixel[red] & 0xFF;
+            rgb[1] = pixel[green] & 0xFF;
+            rgb[2] = pixel[blue] & 0xFF;
+        }// getPixel ( int , int[] )
+
+        @Override
+        public void close() throws IOException {
+            bytes.close();
+        }// close()
+    }// Raw
+
+    /**
+     * Reads a one pixel region through an ImageIO reader for every pixel
+     */
+    private static final class Region extends FileRaster {
+
+        private final ImageReader reader;
+        private final ImageInputStream input;
+        private final ImageReadParam param;
+        private final Rectangle region = new Rectangle(0, 0, 1, 1);
+
+        Region(ImageReader reader, ImageInputStream input) throws IOException {
+            super(reader.getWidth(0), reader.getHeight(0));
+            this.reader = reader;
+            this.input = input;
+            param = reader.getDefaultReadParam();
+        }// Region ( ImageReader , ImageInputStream )
+
+        @Override
+        void getPixel(int index, int[] rgb) {
+            region.x = index % width;
+            region.y = index / width;
+            param.setSourceRegion(region);
+            int color;
+            try {
+                color = reader.read(0, param).getRGB(0, 0);
+            } // try
+            catch (IOException e) {
+                throw new ReadFailure(e);
+            } // catch( IOException )
+            rgb[0] = (color >> 16) & 0xFF;
+            rgb[1] = (color >> 8) & 0xFF;
+            rgb[2] = color & 0xFF;
+        }// getPixel ( int , int[] )
+
+        @Override
+        public void close() throws IOException {
+            reader.dispose();
+            input.close();
+        }// close()
+    }// Region
+}// FileRaster
@@ -0,0 +1,684 @@
+package steganography;
+
+import java.awt.Rectangle;
+import java.awt.color.ColorSpace;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DirectColorModel;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+import javax.imageio.ImageIO;
+
+/**
+ * Writes encoded images to disk faster than ImageIO's PNG writer.
+ * <br>
+ * PNG output is compressed the way pigz does it: the image is cut into
+ * strips of rows, every strip is deflated on its own thread as a raw
+ * deflate block primed with the end of the strip before it, and the blocks
+ * are joined into a single zlib stream with the checksums combined.  Any
+ * PNG reader sees one ordinary stream.  Rows use the Sub filter.
+ * <br>
+ * When speed matters more than size the image can instead be written as an
+ * uncompressed 24 bit BMP or binary PPM, which is little more than a copy
+ * and can be read back without decoding by {@link StreamingCodec#decode}.
+ * Neither keeps alpha.
+ * <br>
+ * Every sample is written as it is, since the low bits are where the
+ * payload lives.  PNG keeps grey and RGB images of eight or sixteen bits a
+ * sample, BMP and PPM eight bit RGB, and all three keep indexed images as
+ * the RGB of their palette.  Any other image, such as a 565 one, is handed
+ * to ImageIO's writer for the format, and an image that has none fails to
+ * write rather than being written with its samples changed.
+ * <br>
+ * Everything goes out through a buffered file channel.  A writer owns a
+ * pool of threads when it compresses in parallel, so close it when done.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public final class ImageFileWriter implements Closeable {
+
+    /**
+     * The file formats the writer can produce
+     */
+    public enum Format {
+
+        /**
+         * Deflated PNG, grey or RGB with or without alpha, 8 or 16 bits a
+         * sample
+         */
+        PNG,
+        /**
+         * Uncompressed 24 bit BMP, top row first
+         */
+        BMP,
+        /**
+         * Binary PPM, P6 with one byte per sample
+         */
+        PPM
+    }// Format
+
+    /**
+     * Uncompressed bytes of image data in a strip
+     */
+    static final int STRIP_BYTES = 1 << 18;
+    /**
+     * The most a deflate block can look back, and so the most of the
+     * previous strip worth priming with
+     */
+    private static final int WINDOW = 1 << 15;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int BMP_HEADER = 54;
+
+    private final Format format;
+    private final int level;
+    private final int threads;
+    private final ExecutorService pool;
+
+    /**
+     * Creates a writer for compressed PNGs at the default level, using a
+     * thread per processor.
+     */
+    public ImageFileWriter() {
+        this(Format.PNG, Deflater.DEFAULT_COMPRESSION,
+                Runtime.getRuntime().availableProcessors());
+    }// ImageFileWriter()
+
+    /**
+     * @param format The file format to write
+     * @param level The deflate level for PNG, 0 to 9, or -1 for the default
+     * @param threads How many strips to compress at once, 1 to compress on
+     *  the calling thread
+     */
+    public ImageFileWriter(Format format, int level, int threads) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Deflate level must be from -1 to 9");
+        }// if
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }// if
+        this.format = format;
+        this.level = level;
+        this.threads = threads;
+        pool = threads > 1 && format == Format.PNG
+                ? Executors.newFixedThreadPool(threads,
+                new DaemonThreads("steg-deflate")) : null;
+    }// ImageFileWriter ( Format , int , int )
+
+    public Format getFormat() {
+        return format;
+    }// getFormat()
+
+    /**
+     * Writes an image to a file, replacing anything already there.
+     * @param image The image to write
+     * @param file Where to write it
+     * @throws IOException If the file cannot be written
+     */
+    public void write(RenderedImage image, File file) throws IOException {
+        write(image, file, null);
+    }// write ( RenderedImage , File )
+
+    /**
+     * Writes an image to a file, reporting the rows written.  A cancelled
+     * write leaves part of the file behind.
+     * @param progress Where to report the rows, or null
+     * @throws java.util.concurrent.CancellationException If the progress is
+     *  cancelled
+     * @see AsyncCodec#write(RenderedImage, File, ImageFileWriter,
+     *  ProgressListener)
+     */
+    void write(RenderedImage image, File file, Progress progress)
+            throws IOException {
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            out.setLength(0);
+            FileChannel channel = out.getChannel();
+            write(image, channel, progress);
+        } finally {
+            out.close();
+        }// try, finally
+    }// write ( RenderedImage , File , Progress )
+
+    /**
+     * Writes an image to a channel, which is left open.
+     * @param image The image to write
+     * @param channel Where to write it
+     * @throws IOException If the channel cannot be written
+     */
+    public void write(RenderedImage image, WritableByteChannel channel)
+            throws IOException {
+        write(image, channel, null);
+    }// write ( RenderedImage , WritableByteChannel )
+
+    private void write(RenderedImage image, WritableByteChannel channel,
+            Progress progress) throws IOException {
+        if (progress == null) {
+            progress = new Progress(null);
+        }// if
+        progress.start(image.getHeight());
+        ChannelOutput out = new ChannelOutput(channel);
+        boolean png = format == Format.PNG;
+        Rows rows = Rows.of(image, png && image.getColorModel().hasAlpha(),
+                png);
+        if (rows == null) {
+            writeImageIO(image, out, progress);
+            out.flush();
+            return;
+        }// if
+        switch (format) {
+            case PNG:
+                writePng(image, rows, new DataOutputStream(out), progress);
+                break;
+            case BMP:
+                writeBmp(image, rows, out, progress);
+                break;
+            case PPM:
+                writePpm(image, rows, out, progress);
+                break;
+            default:
+                throw new IllegalStateException("Unknown format " + format);
+        }// switch
+        out.flush();
+    }// write ( RenderedImage , WritableByteChannel , Progress )
+
+    /**
+     * Shuts down the compression threads.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }// if
+    }// close()
+
+    /**
+     * Writes an image the writer cannot copy sample for sample with
+     * ImageIO, which keeps layouts such as 565 that the writer does not.
+     * @throws IOException If ImageIO has no writer for the image in the
+     *  format
+     */
+    private void writeImageIO(RenderedImage image, OutputStream out,
+            Progress progress) throws IOException {
+        if (!ImageIO.write(image, format.name().toLowerCase(Locale.ROOT),
+                out)) {
+            throw new IOException("A " + format + " file cannot hold this"
+                    + " image without changing its samples");
+        }// if
+        progress.advance(image.getHeight());
+    }// writeImageIO ( RenderedImage , OutputStream , Progress )
+
+    private void writePng(RenderedImage image, Rows rows, DataOutputStream out,
+            Progress progress) throws IOException {
+        int height = image.getHeight();
+        int rowBytes = rows.rowBytes + 1;
+        int stripRows = Math.max(1, STRIP_BYTES / rowBytes);
+
+        PngStripWriter.writeHeader(out, image.getWidth(), height,
+                rows.sampleBytes * 8, rows.colorType());
+        // the stream is cut across IDAT chunks anyway, so the zlib header
+        // and trailer get chunks of their own
+        byte[] zlib = zlibHeader(level);
+        PngStripWriter.writeChunk(out, PngStripReader.IDAT, zlib, 0, zlib.length);
+
+        // strips are handed out in order, with no more than two per thread
+        // waiting to be written so memory stays bounded
+        ArrayDeque<Future<Block>> waiting = new ArrayDeque<>();
+        long adler = 1;
+        try {
+            for (int top = 0; top < height || !waiting.isEmpty(); ) {
+                if (top < height && (pool == null ? waiting.isEmpty()
+                        : waiting.size() < 2 * threads)) {
+                    int bottom = Math.min(height, top + stripRows);
+                    Deflate task = new Deflate(rows, top, bottom, bottom == height);
+                    waiting.add(pool == null ? new Done(task.call())
+                            : pool.submit(task));
+                    top = bottom;
+                } else {
+                    Block block = await(waiting.remove());
+                    adler = combine(adler, block.adler, block.length);
+                    PngStripWriter.writeChunk(out, PngStripReader.IDAT,
+                            block.data, 0, block.data.length);
+                    progress.advance(block.rows);
+                }// if, else
+            }// for
+        } finally {
+            // strips still queued when a write fails or is cancelled
+            for (Future<Block> strip : waiting) {
+                strip.cancel(false);
+            }// for
+        }// try, finally
+
+        byte[] trailer = new byte[4];
+        PngStripWriter.putInt(trailer, 0, (int) adler);
+        PngStripWriter.writeChunk(out, PngStripReader.IDAT, trailer, 0, 4);
+        PngStripWriter.writeChunk(out, PngStripWriter.IEND, new byte[0], 0, 0);
+        out.flush();
+    }// writePng ( RenderedImage , Rows , DataOutputStream , Progress )
+
+    private static Block await(Future<Block> future) throws IOException {
+        try {
+            return future.get();
+        } // try
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing", e);
+        } // catch( InterruptedException )
+        catch (ExecutionException e) {
+            throw new IOException("Compressing a strip failed", e.getCause());
+        } // catch( ExecutionException )
+    }// await ( Future<Block> )
+
+    private void writeBmp(RenderedImage image, Rows rows, OutputStream out,
+            Progress progress) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int padded = (width * 3 + 3) & ~3;
+        long dataBytes = (long) padded * height;
+        if (BMP_HEADER + dataBytes > Integer.MAX_VALUE) {
+            throw new IOException("Image is too large for a BMP file");
+        }// if
+
+        ByteBuffer header = ByteBuffer.allocate(BMP_HEADER)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        header.put((byte) 'B').put((byte) 'M');
+        header.putInt((int) (BMP_HEADER + dataBytes));
+        header.putInt(0);
+        header.putInt(BMP_HEADER);
+        header.putInt(40);
+        header.putInt(width);
+        header.putInt(-height); // top row first, so strips go out in order
+        header.putShort((short) 1);
+        header.putShort((short) 24);
+        header.putInt(0);
+        header.putInt((int) dataBytes);
+        header.putInt(2835); // 72 dpi
+        header.putInt(2835);
+        header.putInt(0);
+        header.putInt(0);
+        out.write(header.array());
+
+        byte[] rgb = new byte[rows.rowBytes];
+        byte[] bgr = new byte[padded];
+        for (int y = 0; y < height; y++) {
+            rows.row(y, rgb);
+            for (int i = 0; i < rgb.length; i += 3) {
+                bgr[i] = rgb[i + 2];
+                bgr[i + 1] = rgb[i + 1];
+                bgr[i + 2] = rgb[i];
+            }// for
+            out.write(bgr);
+            progress.advance(1);
+        }// for
+    }// writeBmp ( RenderedImage , Rows , OutputStream , Progress )
+
+    private void writePpm(RenderedImage image, Rows rows, OutputStream out,
+            Progress progress) throws IOException {
+        out.write(("P6\n" + image.getWidth() + " " + image.getHeight()
+                + "\n255\n").getBytes("US-ASCII"));
+        byte[] rgb = new byte[rows.rowBytes];
+        for (int y = 0; y < image.getHeight(); y++) {
+            rows.row(y, rgb);
+            out.write(rgb);
+            progress.advance(1);
+        }// for
+    }// writePpm ( RenderedImage , Rows , OutputStream , Progress )
+
+    /**
+     * The two byte zlib header for a stream deflated at a level
+     */
+    static byte[] zlibHeader(int level) {
+        int flevel;
+        if (level == Deflater.DEFAULT_COMPRESSION || level == 6) {
+            flevel = 2;
+        } else if (level < 2) {
+            flevel = 0;
+        } else if (level < 6) {
+            flevel = 1;
+        } else {
+            flevel = 3;
+        }// if, else if, else if, else
+        int cmf = 0x78;
+        int flg = flevel << 6;
+        flg += 31 - (cmf * 256 + flg) % 31;
+        return new byte[]{(byte) cmf, (byte) flg};
+    }// zlibHeader ( int )
+
+    /**
+     * Works out the Adler-32 of two pieces of data from the checksums of
+     * each, the same as zlib's adler32_combine.
+     * @param first The checksum of the first piece
+     * @param second The checksum of the second piece
+     * @param secondLength The length of the second piece
+     * @return The checksum of both pieces one after the other
+     */
+    static long combine(long first, long second, long secondLength) {
+        final long base = 65521;
+        long remainder = secondLength % base;
+        long sum1 = first & 0xFFFF;
+        long sum2 = (remainder * sum1) % base;
+        sum1 += (second & 0xFFFF) + base - 1;
+        sum2 += ((first >>> 16) & 0xFFFF) + ((second >>> 16) & 0xFFFF)
+                + base - remainder;
+        sum1 %= base;
+        sum2 %= base;
+        return sum2 << 16 | sum1;
+    }// combine ( long , long , long )
+
+    /**
+     * One strip's raw deflate block and the checksum of what went in
+     */
+    private static final class Block {
+
+        final byte[] data;
+        final long adler;
+        final int length;
+        final int rows;
+
+        Block(byte[] data, long adler, int length, int rows) {
+            this.data = data;
+            this.adler = adler;
+            this.length = length;
+            this.rows = rows;
+        }// Block ( byte[] , long , int , int )
+    }// Block
+
+    /**
+     * Filters and deflates the rows top (inclusive) to bottom (exclusive).
+     * Sub only looks within a row, so the strip and the end of the strip
+     * above, for priming, can be filtered without the rest of the image.
+     */
+    private final class Deflate implements Callable<Block> {
+
+        private final Rows rows;
+        private final int top;
+        private final int bottom;
+        private final boolean last;
+
+        Deflate(Rows rows, int top, int bottom, boolean last) {
+            this.rows = rows;
+            this.top = top;
+            this.bottom = bottom;
+            this.last = last;
+        }// Deflate ( Rows , int , int , boolean )
+
+        @Override
+        public Block call() {
+            int rowBytes = rows.rowBytes + 1;
+            int primeRows = Math.min(top, (WINDOW + rowBytes - 1) / rowBytes);
+            byte[] input = new byte[(bottom - top + primeRows) * rowBytes];
+            byte[] raw = new byte[rows.rowBytes];
+            for (int y = top - primeRows, at = 0; y < bottom; y++, at += rowBytes) {
+                rows.row(y, raw);
+                input[at] = 1;
+                System.arraycopy(raw, 0, input, at + 1, rows.bpp);
+                for (int i = rows.bpp; i < raw.length; i++) {
+                    input[at + 1 + i] = (byte) (raw[i] - raw[i - rows.bpp]);
+                }// for
+            }// for
+
+            int offset = primeRows * rowBytes;
+            int length = input.length - offset;
+            Deflater deflater = new Deflater(level, true);
+            try {
+                if (offset > 0) {
+                    int window = Math.min(WINDOW, offset);
+                    deflater.setDictionary(input, offset - window, window);
+                }// if
+                deflater.setInput(input, offset, length);
+                if (last) {
+                    deflater.finish();
+                }// if
+
+                byte[] out = new byte[length / 2 + 1024];
+                int size = 0;
+                while (true) {
+                    if (size == out.length) {
+                        out = Arrays.copyOf(out, out.length * 2);
+                    }// if
+                    int count = last ? deflater.deflate(out, size, out.length - size)
+                            : deflater.deflate(out, size, out.length - size,
+                            Deflater.SYNC_FLUSH);
+                    size += count;
+                    if (last ? deflater.finished() : size < out.length) {
+                        break;
+                    }// if
+                }// while
+
+                Adler32 adler = new Adler32();
+                adler.update(input, offset, length);
+                return new Block(Arrays.copyOf(out, size),
+                        adler.getValue(), length, bottom - top);
+            } finally {
+                deflater.end();
+            }// try, finally
+        }// call()
+    }// Deflate
+
+    /**
+     * A finished block, when compressing on the calling thread
+     */
+    private static final class Done implements Future<Block> {
+
+        private final Block block;
+
+        Done(Block block) {
+            this.block = block;
+        }// Done ( Block )
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }// cancel ( boolean )
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }// isCancelled()
+
+        @Override
+        public boolean isDone() {
+            return true;
+        }// isDone()
+
+        @Override
+        public Block get() {
+            return block;
+        }// get()
+
+        @Override
+        public Block get(long timeout, TimeUnit unit) {
+            return block;
+        }// get ( long , TimeUnit )
+    }// Done
+
+    /**
+     * Reads rows of an image as bytes, R, G and B or grey, then alpha when
+     * asked for, each sample one byte or two high byte first.  Images whose
+     * samples already are that are copied sample for sample; indexed ones
+     * go through their palette a pixel at a time.
+     */
+    private static final class Rows {
+
+        private static final int RGB = 3;
+
+        private final RenderedImage image;
+        private final ColorModel model;
+        /**
+         * Whether samples are copied, otherwise the palette is looked up
+         */
+        private final boolean direct;
+        final int colours;
+        final boolean alpha;
+        final int sampleBytes;
+        final int bpp;
+        final int rowBytes;
+
+        private Rows(RenderedImage image, boolean direct, int colours,
+                boolean alpha, int sampleBytes) {
+            this.image = image;
+            this.direct = direct;
+            this.colours = colours;
+            this.alpha = alpha;
+            this.sampleBytes = sampleBytes;
+            model = image.getColorModel();
+            bpp = (colours + (alpha ? 1 : 0)) * sampleBytes;
+            rowBytes = image.getWidth() * bpp;
+        }// Rows ( RenderedImage , boolean , int , boolean , int )
+
+        /**
+         * Works out how to read an image's rows without changing a sample.
+         * @param image The image
+         * @param alpha Whether to keep alpha
+         * @param anyDepth Whether grey and sixteen bit samples can be
+         *  written, otherwise only eight bit RGB
+         * @return The rows, or null if the image has samples that would be
+         *  changed
+         */
+        static Rows of(RenderedImage image, boolean alpha, boolean anyDepth) {
+            ColorModel model = image.getColorModel();
+            if (model instanceof IndexColorModel) {
+                return new Rows(image, false, RGB, alpha, 1);
+            }// if
+            if (!(model instanceof ComponentColorModel
+                    || model instanceof DirectColorModel)
+                    || model.isAlphaPremultiplied()) {
+                return null;
+            }// if
+            int type = model.getColorSpace().getType();
+            int colours = type == ColorSpace.TYPE_RGB ? RGB
+                    : type == ColorSpace.TYPE_GRAY ? 1 : 0;
+            int[] sizes = image.getSampleModel().getSampleSize();
+            if (colours == 0 || sizes.length
+                    != colours + (model.hasAlpha() ? 1 : 0)) {
+                return null;
+            }// if
+            for (int size : sizes) {
+                if (size != sizes[0]) {
+                    return null;
+                }// if
+            }// for
+            if (sizes[0] == 8 && colours == RGB
+                    || anyDepth && (sizes[0] == 8 || sizes[0] == 16)) {
+                return new Rows(image, true, colours, alpha, sizes[0] / 8);
+            }// if
+            return null;
+        }// of ( RenderedImage , boolean , boolean )
+
+        /**
+         * @return The PNG colour type of the rows
+         */
+        int colorType() {
+            if (colours == 1) {
+                return alpha ? PngStripReader.COLOR_GREY_ALPHA
+                        : PngStripReader.COLOR_GREY;
+            }// if
+            return alpha ? PngStripReader.COLOR_RGBA : PngStripReader.COLOR_RGB;
+        }// colorType()
+
+        /**
+         * Reads row y of the image into out.  Safe to call from several
+         * threads at once.
+         */
+        void row(int y, byte[] out) {
+            int width = image.getWidth();
+            int minX = image.getMinX();
+            Raster raster = image.getData(
+                    new Rectangle(minX, image.getMinY() + y, width, 1));
+            int rasterY = image.getMinY() + y;
+
+            if (direct) {
+                int bands = raster.getNumBands();
+                int kept = colours + (alpha ? 1 : 0);
+                int[] samples = raster.getPixels(minX, rasterY, width, 1,
+                        (int[]) null);
+                int o = 0;
+                for (int i = 0; i < samples.length; i += bands) {
+                    for (int b = i; b < i + kept; b++) {
+                        if (sampleBytes == 2) {
+                            out[o++] = (byte) (samples[b] >>> 8);
+                        }// if
+                        out[o++] = (byte) samples[b];
+                    }// for
+                }// for
+            } else {
+                Object pixel = null;
+                for (int x = 0, o = 0; x < width; x++) {
+                    pixel = raster.getDataElements(minX + x, rasterY, pixel);
+                    int argb = model.getRGB(pixel);
+                    out[o++] = (byte) (argb >> 16);
+                    out[o++] = (byte) (argb >> 8);
+                    out[o++] = (byte) argb;
+                    if (alpha) {
+                        out[o++] = (byte) (argb >>> 24);
+                    }// if
+                }// for
+            }// if, else
+        }// row ( int , byte[] )
+    }// Rows
+
+    /**
+     * Gathers small writes into a direct buffer before they reach the
+     * channel
+     */
+    private static final class ChannelOutput extends OutputStream {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        ChannelOutput(WritableByteChannel channel) {
+            this.channel = channel;
+        }// ChannelOutput ( WritableByteChannel )
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }// if
+            buffer.put((byte) b);
+        }// write ( int )
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }// if
+                int count = Math.min(length, buffer.remaining());
+                buffer.put(data, offset, count);
+                offset += count;
+                length -= count;
+            }// while
+        }// write ( byte[] , int , int )
+
+        @Override
+        public void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }// while
+            buffer.clear();
+        }// flush()
+    }// ChannelOutput
+}// ImageFileWriter
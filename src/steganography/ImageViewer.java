@@ -3,8 +3,12 @@ package steganography;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.geom.AffineTransform;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
 
 import javax.swing.JPanel;
 
@@ -18,57 +22,147 @@ import javax.swing.JPanel;
  */
 public class ImageViewer extends JPanel {
     private BufferedImage image;
+    /**
+     * The last encoding of image, which is itself never changed
+     */
+    private EncodedImage encoded;
+    /**
+     * image halved until no bigger than the screen, made once per image
+     */
+    private BufferedImage base;
+    /**
+     * base scaled to the panel, made again only when the panel is resized
+     */
+    private BufferedImage preview;
 
 
     public ImageViewer(){
         this.setBackground(Color.DARK_GRAY);
 
     }
+    /**
+     * Draws the cached preview, scaling it again only if the panel has
+     * changed size.  An encoded image is shown by the preview of the image
+     * it came from, the carrier pixels it changed are lost when scaling
+     * down anyway.
+     */
     @Override
     public void paintComponent(Graphics g) {
+        super.paintComponent(g);
         if (image != null) {
-            // {Begin} Just create Image
-            super.paintComponent(g);
-            Graphics2D g2d = (Graphics2D) g;
+            int panelWidth = Math.max(1, this.getWidth());
+            int panelHeight = Math.max(1, this.getHeight());
+
+            if (base == null) {
+                Rectangle screen = getGraphicsConfiguration() != null
+                        ? getGraphicsConfiguration().getBounds()
+                        : new Rectangle(panelWidth, panelHeight);
+                base = scale(image, Math.min(image.getWidth(), screen.width),
+                        Math.min(image.getHeight(), screen.height));
+                preview = null;
+            }// if
+            if (preview == null || preview.getWidth() != panelWidth
+                    || preview.getHeight() != panelHeight) {
+                preview = scale(base, panelWidth, panelHeight);
+            }// if
 
-            double panelWidth = this.getWidth();
-            double imageWidth = image.getWidth(this);
+            g.drawImage(preview, 0, 0, null);
+        }// if
+    }// paintComponent(Graphics)
 
-            double panelHeight = this.getHeight();
-            double imageHeight = image.getHeight(this);
+    /**
+     * Scales an image into one that draws quickly on this panel's screen.
+     * Shrinking goes by halves, since one bilinear step of more than half
+     * skips pixels and the preview would shimmer.
+     * @param source The image to scale
+     * @param width The width wanted
+     * @param height The height wanted
+     * @return A new image of that size
+     */
+    private BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        int stepWidth = source.getWidth();
+        int stepHeight = source.getHeight();
+        do {
+            // halve towards the size wanted, or go straight there to grow
+            stepWidth = stepWidth / 2 > width ? stepWidth / 2 : width;
+            stepHeight = stepHeight / 2 > height ? stepHeight / 2 : height;
 
-            AffineTransform scale = new AffineTransform();
-            scale.setToScale(panelWidth / imageWidth,
-                    panelHeight / imageHeight);
-            //{End} Just create Image
+            BufferedImage next = compatibleImage(stepWidth, stepHeight,
+                    source.getColorModel().hasAlpha());
+            Graphics2D g2d = next.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.drawImage(current, 0, 0, stepWidth, stepHeight, null);
+            g2d.dispose();
+            current = next;
+        } while (stepWidth != width || stepHeight != height);
+        return current;
+    }// scale ( BufferedImage , int , int )
 
-            g2d.drawImage(image, scale, this);
+    /**
+     * An image laid out the way the screen is, so drawing it is a copy
+     */
+    private BufferedImage compatibleImage(int width, int height,
+            boolean alpha) {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (config == null) {
+            return new BufferedImage(width, height, alpha
+                    ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
         }// if
-    }// paintComponent(Graphics)
+        return config.createCompatibleImage(width, height,
+                alpha ? Transparency.TRANSLUCENT : Transparency.OPAQUE);
+    }// compatibleImage ( int , int , boolean )
+
     /**
-     * Encodes the image held in this frame with a message
+     * Encodes the image held in this frame with a message.  The image that
+     * was loaded is left as it is, so encoding again replaces the last
+     * message rather than writing over it.
      * @param message Message to Encode
      */
     public void manipImage(String message) {
-        Steganography.encodeImage(message, image);
+        encoded = Steganography.encodeCopy(message, image);
     }//manipImage(String)
 
     public void setImage(BufferedImage image){
         this.image = image;
+        encoded = null;
+        base = null;
+        preview = null;
     }// setImage ( BufferedImage )
 
+    /**
+     * Shows an encoding of the image held in this frame, such as one made
+     * in the background by {@link AsyncCodec#encodeCopy}.
+     * @param encoded The image held here with a message hidden in it
+     */
+    public void setEncoded(EncodedImage encoded) {
+        if (encoded.getOriginal() != image) {
+            throw new IllegalArgumentException("Not an encoding of this image");
+        }// if
+        this.encoded = encoded;
+    }// setEncoded ( EncodedImage )
+
     /**
      * Gets the message encoded in the image
-     * @return The encoded message
+     * @return The encoded message, or null if the image holds none
      */
     public String getMessage(){
-        return Steganography.decodeImage(image);
+        return Steganography.decodeImage(getImage());
     }
     /**
      * Getter
-     * @return The private variable image
+     * @return The encoded image, or the image as loaded if it has not been
+     *  encoded yet
+     */
+    public RenderedImage getImage() {
+        return encoded != null ? encoded : image;
+    }
+
+    /**
+     * @return The image as loaded, which encoding never changes
      */
-    public BufferedImage getImage() {
+    public BufferedImage getOriginal() {
         return image;
     }
 
@@ -0,0 +1,83 @@
+package steganography;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how long requests took in fixed buckets, from a millisecond to ten
+ * seconds.  Recording is a couple of atomic additions and never blocks, so
+ * every request can be recorded.
+ * <br>
+ * {@link #append} prints the buckets in the same plain text form as
+ * {@link CodecMetrics}, cumulative and in seconds, so the counts can be
+ * scraped and turned into percentiles.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+final class LatencyHistogram {
+
+    /**
+     * Upper bounds of the buckets in seconds, a last bucket takes the rest
+     */
+    private static final double[] BOUNDS = {0.001, 0.0025, 0.005, 0.01,
+        0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final long[] BOUND_NANOS = new long[BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUND_NANOS[i] = (long) (BOUNDS[i] * 1e9);
+        }// for
+    }// static
+
+    /**
+     * Requests in each bucket, not cumulative
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+
+    /**
+     * Records one request.
+     * @param elapsed How long it took in nanoseconds
+     */
+    void record(long elapsed) {
+        int bucket = 0;
+        while (bucket < BOUND_NANOS.length && elapsed > BOUND_NANOS[bucket]) {
+            bucket++;
+        }// while
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        nanos.addAndGet(elapsed);
+    }// record ( long )
+
+    /**
+     * @return The number of requests recorded
+     */
+    long getCount() {
+        return count.get();
+    }// getCount()
+
+    /**
+     * Prints the buckets, the total time and the count.
+     * @param out Where to print
+     * @param name The name of the histogram
+     * @param labels Labels for every line, such as <code>endpoint="decode"</code>
+     */
+    void append(StringBuilder out, String name, String labels) {
+        long cumulative = 0;
+        for (int i = 0; i <= BOUNDS.length; i++) {
+            cumulative += buckets.get(i);
+            String bound = i < BOUNDS.length
+                    ? String.valueOf(BOUNDS[i]) : "+Inf";
+            out.append(name).append("_bucket{").append(labels)
+                    .append(",le=\"").append(bound).append("\"} ")
+                    .append(cumulative).append('\n');
+        }// for
+        out.append(name).append("_sum{").append(labels).append("} ")
+                .append(String.format(Locale.ROOT, "%.6f", nanos.get() / 1e9))
+                .append('\n');
+        out.append(name).append("_count{").append(labels).append("} ")
+                .append(count.get()).append('\n');
+    }// append ( StringBuilder , String , String )
+}// LatencyHistogram
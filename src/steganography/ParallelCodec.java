@@ -0,0 +1,265 @@
+package steganography;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits the carrier pixels of an image into bands of rows and hands the
+ * bands to a fork join pool.  Every carrier's position is known from its
+ * number alone, so each band can be encoded or decoded on its own and the
+ * result is the same as doing the whole image in order.
+ * <br>
+ * Carriers scattered by a {@link CarrierScatter} are spread over every row,
+ * so they are split by number instead of by row, as are the runs of pixels
+ * the bit plane codec packs its bytes into.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+final class ParallelCodec {
+
+    /**
+     * Bands with fewer carriers than this are not split any further
+     */
+    static final int MIN_CARRIERS_PER_BAND = 256;
+    /**
+     * How many times work on one thread stops to report progress
+     */
+    private static final int PROGRESS_STEPS = 100;
+
+    /**
+     * Work done on a run of carriers
+     */
+    interface Range {
+
+        /**
+         * Encodes or decodes carriers from (inclusive) to (exclusive)
+         * @param from The number of the first carrier
+         * @param to One past the number of the last carrier
+         */
+        void process(int from, int to);
+    }// Range
+
+    /**
+     * Where the carriers of an image sit.  Carrier n is the pixel
+     * first + n * spacing, counting along the rows.
+     */
+    private final int first;
+    private final int spacing;
+    private final long width;
+    private final int carriers;
+    private final Range work;
+    private final Progress progress;
+
+    private ParallelCodec(int carriers, int first, int spacing, int width,
+            Range work, Progress progress) {
+        this.carriers = carriers;
+        this.first = first;
+        this.spacing = spacing;
+        this.width = width;
+        this.work = work;
+        this.progress = progress;
+    }// ParallelCodec ( int , int , int , int , Range , Progress )
+
+    /**
+     * Processes every carrier, in bands on the pool if there is one and
+     * there are enough carriers to be worth splitting.
+     * @param pool The pool to run the bands on, or null to run in order on
+     *  the calling thread
+     * @param carriers The number of carriers
+     * @param first The index of carrier 0
+     * @param spacing The number of pixels between two carriers
+     * @param width The width of the image in pixels
+     * @param height The height of the image in pixels
+     * @param work What to do with each run of carriers
+     */
+    static void forEach(ForkJoinPool pool, int carriers, int first, int spacing,
+            int width, int height, Range work) {
+        forEach(pool, carriers, first, spacing, width, height, work, null);
+    }// forEach ( ForkJoinPool , int , int , int , int , int , Range )
+
+    /**
+     * Processes every carrier as {@link #forEach(ForkJoinPool, int, int, int,
+     * int, int, Range)} does, reporting the rows of each band as it is
+     * finished.  Without a pool the rows are still worked through a slice
+     * at a time so there is progress to report and a chance to cancel.
+     * @param progress Where to report the rows, or null
+     * @throws java.util.concurrent.CancellationException If the progress is
+     *  cancelled, which leaves some carriers unprocessed
+     */
+    static void forEach(ForkJoinPool pool, int carriers, int first, int spacing,
+            int width, int height, Range work, Progress progress) {
+        if (progress != null) {
+            progress.start(height);
+        }// if
+        ParallelCodec codec =
+                new ParallelCodec(carriers, first, spacing, width, work, progress);
+        if (splits(pool, carriers)) {
+            pool.invoke(codec.new Band(0, height));
+        } else if (progress == null) {
+            work.process(0, carriers);
+        } else {
+            int slice = Math.max(1, height / PROGRESS_STEPS);
+            for (int top = 0; top < height; top += slice) {
+                codec.processRows(top, Math.min(height, top + slice));
+            }// for
+        }// if, else if, else
+    }// forEach ( ForkJoinPool , int , int , int , int , int , Range , Progress )
+
+    /**
+     * Processes every carrier of a scattered message, in runs on the pool if
+     * there is one and there are enough carriers to be worth splitting.
+     * Progress is still counted in rows, each run standing for its share of
+     * the image's height.
+     * @param pool The pool to run the runs on, or null to run in order on
+     *  the calling thread
+     * @param carriers The number of carriers
+     * @param height The height of the image in pixels
+     * @param work What to do with each run of carriers
+     * @param progress Where to report the rows, or null
+     * @throws java.util.concurrent.CancellationException If the progress is
+     *  cancelled, which leaves some carriers unprocessed
+     */
+    static void forEachScattered(ForkJoinPool pool, int carriers, int height,
+            Range work, Progress progress) {
+        if (progress != null) {
+            progress.start(height);
+        }// if
+        if (splits(pool, carriers)) {
+            pool.invoke(new Run(0, carriers, carriers, height, work, progress));
+        } else if (progress == null) {
+            work.process(0, carriers);
+        } else {
+            int slice = Math.max(1, carriers / PROGRESS_STEPS);
+            for (int from = 0; from < carriers; from += slice) {
+                Run.process(from, Math.min(carriers, from + slice), carriers,
+                        height, work, progress);
+            }// for
+        }// if, else if, else
+    }// forEachScattered ( ForkJoinPool , int , int , Range , Progress )
+
+    /**
+     * @param pool The pool there is, or null
+     * @param carriers The number of carriers
+     * @return Whether the carriers would be split across the pool
+     */
+    static boolean splits(ForkJoinPool pool, int carriers) {
+        return pool != null && carriers >= 2 * MIN_CARRIERS_PER_BAND;
+    }// splits ( ForkJoinPool , int )
+
+    /**
+     * Processes carriers that can each be worked on alone, in runs on the
+     * pool if there is one and there are enough of them to be worth
+     * splitting.
+     * @param pool The pool to run the runs on, or null to run in order on
+     *  the calling thread
+     * @param carriers The number of carriers
+     * @param work What to do with each run of carriers
+     */
+    static void forEachRun(ForkJoinPool pool, int carriers, Range work) {
+        if (splits(pool, carriers)) {
+            pool.invoke(new Run(0, carriers, carriers, 0, work, null));
+        } else {
+            work.process(0, carriers);
+        }// if, else
+    }// forEachRun ( ForkJoinPool , int , Range )
+
+    /**
+     * Processes the carriers in the rows top (inclusive) to bottom
+     * (exclusive) and reports the rows.
+     */
+    private void processRows(int top, int bottom) {
+        if (progress != null) {
+            progress.checkCancelled();
+        }// if
+        int from = Steganography.carrierAtOrAfter(top * width, first,
+                spacing, carriers);
+        int to = Steganography.carrierAtOrAfter(bottom * width, first,
+                spacing, carriers);
+        if (from < to) {
+            work.process(from, to);
+        }// if
+        if (progress != null) {
+            progress.advance(bottom - top);
+        }// if
+    }// processRows ( int , int )
+
+    /**
+     * The rows top (inclusive) to bottom (exclusive)
+     */
+    private final class Band extends RecursiveAction {
+
+        private final int top;
+        private final int bottom;
+
+        Band(int top, int bottom) {
+            this.top = top;
+            this.bottom = bottom;
+        }// Band ( int , int )
+
+        @Override
+        protected void compute() {
+            int from = Steganography.carrierAtOrAfter(top * width, first,
+                    spacing, carriers);
+            int to = Steganography.carrierAtOrAfter(bottom * width, first,
+                    spacing, carriers);
+
+            if (to - from < 2 * MIN_CARRIERS_PER_BAND || bottom - top < 2) {
+                processRows(top, bottom);
+            } else {
+                int middle = (top + bottom) >>> 1;
+                invokeAll(new Band(top, middle), new Band(middle, bottom));
+            }// if, else
+        }// compute()
+    }// Band
+
+    /**
+     * The scattered carriers from (inclusive) to to (exclusive)
+     */
+    private static final class Run extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final int carriers;
+        private final int height;
+        private final Range work;
+        private final Progress progress;
+
+        Run(int from, int to, int carriers, int height, Range work,
+                Progress progress) {
+            this.from = from;
+            this.to = to;
+            this.carriers = carriers;
+            this.height = height;
+            this.work = work;
+            this.progress = progress;
+        }// Run ( int , int , int , int , Range , Progress )
+
+        @Override
+        protected void compute() {
+            if (to - from < 2 * MIN_CARRIERS_PER_BAND) {
+                process(from, to, carriers, height, work, progress);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Run(from, middle, carriers, height, work,
+                        progress), new Run(middle, to, carriers, height, work,
+                        progress));
+            }// if, else
+        }// compute()
+
+        /**
+         * Processes a run of carriers and reports the rows it stands for,
+         * which add up to exactly the height over all the runs.
+         */
+        static void process(int from, int to, int carriers, int height,
+                Range work, Progress progress) {
+            if (progress != null) {
+                progress.checkCancelled();
+            }// if
+            work.process(from, to);
+            if (progress != null) {
+                progress.advance((long) height * to / carriers
+                        - (long) height * from / carriers);
+            }// if
+        }// process ( int , int , int , int , Range , Progress )
+    }// Run
+}// ParallelCodec
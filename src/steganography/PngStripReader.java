@@ -0,0 +1,281 @@
+package steganography;
+
+import java.awt.image.DataBufferByte;
+import java.awt.image.WritableRaster;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Inflates a PNG file one row after another, handing out strips of rows
+ * without ever holding the whole image.  Only what the codec needs is
+ * supported: non-interlaced RGB and RGBA with eight bits per sample.
+ * {@link StripSource#open} falls back to ImageIO for everything else.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+final class PngStripReader extends StripSource {
+
+    static final byte[] SIGNATURE = {(byte) 137, 'P', 'N', 'G', '\r', '\n', 26, '\n'};
+    static final int IHDR = 0x49484452;
+    static final int IDAT = 0x49444154;
+    static final int COLOR_GREY = 0;
+    static final int COLOR_RGB = 2;
+    static final int COLOR_GREY_ALPHA = 4;
+    static final int COLOR_RGBA = 6;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream pixels;
+    private final int bytesPerPixel;
+    private byte[] previous;
+    private byte[] current;
+
+    private PngStripReader(DataInputStream file, int width, int height,
+            boolean alpha, long stripBytes) {
+        super(width, height, alpha, rowsFor(width, alpha ? 4 : 3, stripBytes));
+        bytesPerPixel = alpha ? 4 : 3;
+        pixels = new InflaterInputStream(new IdatInputStream(file),
+                new Inflater(), BUFFER_SIZE);
+        previous = new byte[width * bytesPerPixel];
+        current = new byte[width * bytesPerPixel];
+    }// PngStripReader ( DataInputStream , int , int , boolean , long )
+
+    /**
+     * Opens a PNG file if it is one this reader supports.
+     * @param file The file to read
+     * @param stripBytes Roughly how many bytes each strip may take
+     * @return The reader, or null if the file is not a supported PNG
+     * @throws IOException If the file cannot be read
+     */
+    static PngStripReader open(File file, long stripBytes) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file), BUFFER_SIZE));
+        boolean keep = false;
+        try {
+            byte[] signature = new byte[SIGNATURE.length];
+            in.readFully(signature);
+            if (!Arrays.equals(signature, SIGNATURE)) {
+                return null;
+            }// if
+            int length = in.readInt();
+            if (in.readInt() != IHDR || length != 13) {
+                return null;
+            }// if
+            int width = in.readInt();
+            int height = in.readInt();
+            int depth = in.readUnsignedByte();
+            int colorType = in.readUnsignedByte();
+            in.readUnsignedByte(); // compression, always deflate
+            in.readUnsignedByte(); // filter method, always adaptive
+            int interlace = in.readUnsignedByte();
+            in.readInt(); // crc
+
+            if (depth != 8 || interlace != 0
+                    || (colorType != COLOR_RGB && colorType != COLOR_RGBA)) {
+                return null;
+            }// if
+            keep = true;
+            return new PngStripReader(in, width, height,
+                    colorType == COLOR_RGBA, stripBytes);
+        } // try
+        catch (EOFException e) {
+            return null;
+        } // catch( EOFException )
+        finally {
+            if (!keep) {
+                in.close();
+            }// if
+        }// try, finally
+    }// open ( File , long )
+
+    @Override
+    WritableRaster next() throws IOException {
+        int rows = Math.min(stripRows, height - row);
+        WritableRaster strip = createStrip(width, rows, alpha);
+        byte[] data = ((DataBufferByte) strip.getDataBuffer()).getData();
+
+        for (int y = 0; y < rows; y++) {
+            readRow();
+            System.arraycopy(current, 0, data, y * current.length, current.length);
+        }// for
+
+        row += rows;
+        return strip;
+    }// next()
+
+    /**
+     * Inflates the next row into current and undoes its filter.
+     */
+    private void readRow() throws IOException {
+        byte[] swap = previous;
+        previous = current;
+        current = swap;
+
+        int filter = pixels.read();
+        if (filter < 0) {
+            throw new EOFException("Image data ends early");
+        }// if
+        readFully(current);
+        unfilter(filter, current, previous, bytesPerPixel);
+    }// readRow()
+
+    private void readFully(byte[] buffer) throws IOException {
+        int read = 0;
+        while (read < buffer.length) {
+            int count = pixels.read(buffer, read, buffer.length - read);
+            if (count < 0) {
+                throw new EOFException("Image data ends early");
+            }// if
+            read += count;
+        }// while
+    }// readFully ( byte[] )
+
+    /**
+     * Undoes one of the five PNG row filters in place.
+     * @param filter The filter type from the start of the row
+     * @param row The filtered row, replaced by the raw row
+     * @param above The raw row above, all zeros for the first row
+     * @param bpp Bytes per pixel
+     * @throws IOException If the filter type is unknown
+     */
+    static void unfilter(int filter, byte[] row, byte[] above, int bpp)
+            throws IOException {
+        switch (filter) {
+            case 0:
+                break;
+            case 1:
+                for (int i = bpp; i < row.length; i++) {
+                    row[i] += row[i - bpp];
+                }// for
+                break;
+            case 2:
+                for (int i = 0; i < row.length; i++) {
+                    row[i] += above[i];
+                }// for
+                break;
+            case 3:
+                for (int i = 0; i < row.length; i++) {
+                    int left = i >= bpp ? row[i - bpp] & 0xFF : 0;
+                    row[i] += (left + (above[i] & 0xFF)) >>> 1;
+                }// for
+                break;
+            case 4:
+                for (int i = 0; i < row.length; i++) {
+                    int left = i >= bpp ? row[i - bpp] & 0xFF : 0;
+                    int upLeft = i >= bpp ? above[i - bpp] & 0xFF : 0;
+                    row[i] += paeth(left, above[i] & 0xFF, upLeft);
+                }// for
+                break;
+            default:
+                throw new IOException("Unknown PNG filter " + filter);
+        }// switch
+    }// unfilter ( int , byte[] , byte[] , int )
+
+    /**
+     * The Paeth predictor from the PNG specification
+     */
+    static int paeth(int left, int above, int upLeft) {
+        int estimate = left + above - upLeft;
+        int toLeft = Math.abs(estimate - left);
+        int toAbove = Math.abs(estimate - above);
+        int toUpLeft = Math.abs(estimate - upLeft);
+        if (toLeft <= toAbove && toLeft <= toUpLeft) {
+            return left;
+        } else if (toAbove <= toUpLeft) {
+            return above;
+        }// if, else if
+        return upLeft;
+    }// paeth ( int , int , int )
+
+    @Override
+    public void close() throws IOException {
+        pixels.close();
+    }// close()
+
+    /**
+     * The data of every IDAT chunk joined into one stream.  Other chunks
+     * are skipped and the stream ends at the first chunk after the image
+     * data.
+     */
+    private static final class IdatInputStream extends InputStream {
+
+        private final DataInputStream file;
+        /**
+         * Bytes left in the IDAT chunk being read
+         */
+        private int remaining;
+        /**
+         * Whether the first IDAT chunk has been reached
+         */
+        private boolean inData;
+        private boolean finished;
+
+        IdatInputStream(DataInputStream file) {
+            this.file = file;
+        }// IdatInputStream ( DataInputStream )
+
+        /**
+         * Moves on to the next IDAT chunk if the current one is used up.
+         * @return False once the image data has ended
+         */
+        private boolean advance() throws IOException {
+            while (remaining == 0 && !finished) {
+                if (inData) {
+                    file.readInt(); // crc of the chunk just finished
+                }// if
+                int length = file.readInt();
+                int type = file.readInt();
+                if (type == IDAT) {
+                    remaining = length;
+                    inData = true;
+                } else if (inData) {
+                    finished = true;
+                } else {
+                    skipFully(length + 4L);
+                }// if, else if, else
+            }// while
+            return !finished;
+        }// advance()
+
+        private void skipFully(long count) throws IOException {
+            while (count > 0) {
+                long skipped = file.skip(count);
+                if (skipped <= 0) {
+                    throw new EOFException("PNG ends early");
+                }// if
+                count -= skipped;
+            }// while
+        }// skipFully ( long )
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }// read()
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (!advance()) {
+                return -1;
+            }// if
+            int count = file.read(buffer, offset, Math.min(length, remaining));
+            if (count < 0) {
+                throw new EOFException("PNG ends early");
+            }// if
+            remaining -= count;
+            return count;
+        }// read ( byte[] , int , int )
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }// close()
+    }// IdatInputStream
+}// PngStripReader
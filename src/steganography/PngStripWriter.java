@@ -0,0 +1,240 @@
+package steganography;
+
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a PNG file a strip of rows at a time, so an image can be written
+ * while it is still being read.  Rows are written as eight bit RGB, or RGBA
+ * when the image has alpha, with the Sub filter.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+final class PngStripWriter implements Closeable {
+
+    static final int IEND = 0x49454E44;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final DataOutputStream file;
+    private final DeflaterOutputStream pixels;
+    private final Deflater deflater;
+    private final int bytesPerPixel;
+    private final byte[] raw;
+    private final byte[] filtered;
+    private final int width;
+    private final int height;
+    private int row;
+
+    /**
+     * Writes the PNG header and gets ready for the first strip.
+     * @param out Where the PNG is written
+     * @param width Width of the image in pixels
+     * @param height Height of the image in pixels
+     * @param alpha Whether the image has an alpha band
+     * @param level The deflate level from 0 to 9
+     * @throws IOException If the header cannot be written
+     */
+    PngStripWriter(OutputStream out, int width, int height, boolean alpha,
+            int level) throws IOException {
+        this.width = width;
+        this.height = height;
+        file = new DataOutputStream(out);
+        bytesPerPixel = alpha ? 4 : 3;
+        raw = new byte[width * bytesPerPixel];
+        filtered = new byte[raw.length + 1];
+
+        writeHeader(file, width, height, alpha);
+
+        deflater = new Deflater(level);
+        pixels = new DeflaterOutputStream(new IdatOutputStream(file), deflater,
+                CHUNK_SIZE);
+    }// PngStripWriter ( OutputStream , int , int , boolean , int )
+
+    /**
+     * Appends the rows of a strip.
+     * @param strip Rows in the layout of {@link StripSource#createStrip}
+     * @throws IOException If the rows cannot be written
+     */
+    void write(Raster strip) throws IOException {
+        if (strip.getWidth() != width || row + strip.getHeight() > height) {
+            throw new IllegalArgumentException("Strip does not fit the image");
+        }// if
+        for (int y = 0; y < strip.getHeight(); y++) {
+            rowBytes(strip, y, raw);
+            filtered[0] = 1;
+            System.arraycopy(raw, 0, filtered, 1, bytesPerPixel);
+            for (int i = bytesPerPixel; i < raw.length; i++) {
+                filtered[i + 1] = (byte) (raw[i] - raw[i - bytesPerPixel]);
+            }// for
+            pixels.write(filtered);
+        }// for
+        row += strip.getHeight();
+    }// write ( Raster )
+
+    /**
+     * Copies one row of a strip as R, G, B (, A) bytes.
+     */
+    private void rowBytes(Raster strip, int y, byte[] out) {
+        if (strip.getDataBuffer() instanceof DataBufferByte
+                && strip.getSampleModel() instanceof ComponentSampleModel
+                && strip.getNumBands() == bytesPerPixel) {
+            ComponentSampleModel model = (ComponentSampleModel) strip.getSampleModel();
+            if (model.getPixelStride() == bytesPerPixel && isInOrder(model)) {
+                byte[] data = ((DataBufferByte) strip.getDataBuffer()).getData();
+                int offset = strip.getDataBuffer().getOffset()
+                        + (y + strip.getMinY() - strip.getSampleModelTranslateY())
+                        * model.getScanlineStride()
+                        + (strip.getMinX() - strip.getSampleModelTranslateX())
+                        * bytesPerPixel;
+                System.arraycopy(data, offset, out, 0, out.length);
+                return;
+            }// if
+        }// if
+
+        int[] samples = strip.getPixels(strip.getMinX(), strip.getMinY() + y,
+                width, 1, (int[]) null);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (byte) samples[i];
+        }// for
+    }// rowBytes ( Raster , int , byte[] )
+
+    private static boolean isInOrder(ComponentSampleModel model) {
+        int[] offsets = model.getBandOffsets();
+        for (int b = 0; b < offsets.length; b++) {
+            if (offsets[b] != b) {
+                return false;
+            }// if
+        }// for
+        return true;
+    }// isInOrder ( ComponentSampleModel )
+
+    /**
+     * Finishes the image data and writes the end of the file.  The stream
+     * the PNG was written to is closed as well.
+     * @throws IOException If the image is not complete or cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (row != height) {
+                throw new IOException("Only " + row + " of " + height
+                        + " rows were written");
+            }// if
+            pixels.finish();
+            pixels.flush();
+            writeChunk(file, IEND, new byte[0], 0, 0);
+            file.flush();
+        } finally {
+            deflater.end();
+            file.close();
+        }// try, finally
+    }// close()
+
+    /**
+     * Writes the PNG signature and the IHDR chunk of an eight bit RGB or
+     * RGBA image.
+     */
+    static void writeHeader(DataOutputStream out, int width, int height,
+            boolean alpha) throws IOException {
+        writeHeader(out, width, height, 8, alpha ? PngStripReader.COLOR_RGBA
+                : PngStripReader.COLOR_RGB);
+    }// writeHeader ( DataOutputStream , int , int , boolean )
+
+    /**
+     * Writes the PNG signature and the IHDR chunk.
+     * @param depth Bits in each sample, 8 or 16
+     * @param colorType The PNG colour type, grey or RGB with or without
+     *  alpha
+     */
+    static void writeHeader(DataOutputStream out, int width, int height,
+            int depth, int colorType) throws IOException {
+        out.write(PngStripReader.SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = (byte) depth;
+        header[9] = (byte) colorType;
+        writeChunk(out, PngStripReader.IHDR, header, 0, header.length);
+    }// writeHeader ( DataOutputStream , int , int , int , int )
+
+    /**
+     * Writes a complete chunk: length, type, data and CRC.
+     */
+    static void writeChunk(DataOutputStream out, int type, byte[] data,
+            int offset, int length) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] typeBytes = new byte[4];
+        putInt(typeBytes, 0, type);
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, offset, length);
+        out.writeInt((int) crc.getValue());
+    }// writeChunk ( DataOutputStream , int , byte[] , int , int )
+
+    static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }// putInt ( byte[] , int , int )
+
+    /**
+     * Cuts the deflated image data into IDAT chunks
+     */
+    private static final class IdatOutputStream extends OutputStream {
+
+        private final DataOutputStream file;
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+        private int length;
+
+        IdatOutputStream(DataOutputStream file) {
+            this.file = file;
+        }// IdatOutputStream ( DataOutputStream )
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }// write ( int )
+
+        @Override
+        public void write(byte[] data, int offset, int count) throws IOException {
+            while (count > 0) {
+                int copy = Math.min(count, chunk.length - length);
+                System.arraycopy(data, offset, chunk, length, copy);
+                length += copy;
+                offset += copy;
+                count -= copy;
+                if (length == chunk.length) {
+                    flush();
+                }// if
+            }// while
+        }// write ( byte[] , int , int )
+
+        @Override
+        public void flush() throws IOException {
+            if (length > 0) {
+                writeChunk(file, PngStripReader.IDAT, chunk, 0, length);
+                length = 0;
+            }// if
+        }// flush()
+
+        /**
+         * The PNG file is closed by the writer once IEND is written
+         */
+        @Override
+        public void close() throws IOException {
+            flush();
+        }// close()
+    }// IdatOutputStream
+}// PngStripWriter
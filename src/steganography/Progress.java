@@ -0,0 +1,92 @@
+package steganography;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The rows a piece of work has finished and whether it has been cancelled,
+ * handed down to the loops that do the work.  Every report is also a
+ * chance to stop: once cancelled, the next report throws
+ * CancellationException, which unwinds the work from whichever thread it
+ * is on, including the threads of a fork join pool that an interrupt would
+ * never reach.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+final class Progress {
+
+    private final ProgressListener listener;
+    private final AtomicLong done = new AtomicLong();
+    private volatile long total;
+    private volatile boolean cancelled;
+
+    /**
+     * @param listener Told of every report, or null
+     */
+    Progress(ProgressListener listener) {
+        this.listener = listener;
+    }// Progress ( ProgressListener )
+
+    /**
+     * Starts counting again towards a new total.
+     * @param rows Rows in the work about to start
+     */
+    void start(long rows) {
+        total = rows;
+        done.set(0);
+        report(0);
+    }// start ( long )
+
+    /**
+     * Adds finished rows.
+     * @param rows Rows just finished
+     * @throws CancellationException If the work has been cancelled
+     */
+    void advance(long rows) {
+        checkCancelled();
+        report(done.addAndGet(rows));
+    }// advance ( long )
+
+    /**
+     * Sets how many rows are finished, for work that only knows the total
+     * so far.
+     * @param rows Rows finished
+     * @throws CancellationException If the work has been cancelled
+     */
+    void moveTo(long rows) {
+        checkCancelled();
+        done.set(rows);
+        report(rows);
+    }// moveTo ( long )
+
+    /**
+     * @throws CancellationException If the work has been cancelled
+     */
+    void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException();
+        }// if
+    }// checkCancelled()
+
+    void cancel() {
+        cancelled = true;
+    }// cancel()
+
+    boolean isCancelled() {
+        return cancelled;
+    }// isCancelled()
+
+    long getDone() {
+        return done.get();
+    }// getDone()
+
+    long getTotal() {
+        return total;
+    }// getTotal()
+
+    private void report(long rows) {
+        if (listener != null) {
+            listener.progressed(rows, total);
+        }// if
+    }// report ( long )
+}// Progress
@@ -0,0 +1,20 @@
+package steganography;
+
+/**
+ * Told how far a {@link CodecTask} has got, counted in rows of the image.
+ * <br>
+ * It is called on whichever thread is doing the work, and from several at
+ * once when an image is split across threads, so a GUI has to hand the
+ * numbers over to its own thread.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ * @see AsyncCodec
+ */
+public interface ProgressListener {
+
+    /**
+     * @param done Rows finished so far
+     * @param total Rows in the whole task
+     */
+    void progressed(long done, long total);
+}// ProgressListener
@@ -0,0 +1,301 @@
+package steganography;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Splits a payload too large for one image across several, each holding a
+ * shard of it in the bit plane format of
+ * {@link Steganography#encodeBytes(byte[], BufferedImage, int)}.  Every
+ * shard starts with a small header of its own:
+ * <pre>
+ * magic            4 bytes, "SHRD"
+ * payload id       8 bytes, the same in every shard of a payload
+ * sequence         4 bytes, 0 for the first shard
+ * total            4 bytes, the number of shards
+ * </pre>
+ * and the bit plane format already checks each shard's length and CRC.
+ * <br>
+ * Shards are encoded at the same time on the pool set by
+ * {@link Steganography#setParallelism(int)}, one image to a task.  They can
+ * be decoded in any order with an {@link Assembler}, which passes each
+ * shard on as soon as every shard before it has arrived, so only the shards
+ * that came early are held in memory.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public final class ShardCodec {
+
+    static final int MAGIC = 0x53485244;
+    /**
+     * Bytes of each shard taken by its header
+     */
+    public static final int HEADER_BYTES = 20;
+
+    private ShardCodec() {
+    }// ShardCodec()
+
+    /**
+     * Works out how many bytes of payload a set of images can hold between
+     * them.
+     * @param carriers The images
+     * @param bitsPerSample How many low bits of each sample to use, 1 to 8
+     * @return The largest payload in bytes
+     */
+    public static long getCapacity(List<? extends BufferedImage> carriers,
+            int bitsPerSample) {
+        long toReturn = 0;
+        for (BufferedImage carrier : carriers) {
+            toReturn += shardCapacity(carrier, bitsPerSample);
+        }// for
+        return toReturn;
+    }// getCapacity ( List<? extends BufferedImage> , int )
+
+    /**
+     * Hides a payload across images, filling each in turn before starting
+     * on the next.  Images that are not needed, or that cannot hold a shard,
+     * are left as they are.  Nothing is changed unless the whole payload
+     * fits.
+     * @param payload The bytes to hide
+     * @param carriers The images to hide them in, changed in place
+     * @param bitsPerSample How many low bits of each sample to use, 1 to 8
+     * @return The number of images used, from the start of carriers
+     * @throws IllegalArgumentException If the payload does not fit
+     * @see #decode(List)
+     */
+    public static int encode(byte[] payload,
+            List<? extends BufferedImage> carriers, int bitsPerSample) {
+        List<BufferedImage> images = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        int offset = 0;
+        for (BufferedImage carrier : carriers) {
+            if (offset == payload.length && !images.isEmpty()) {
+                break;
+            }// if
+            int room = shardCapacity(carrier, bitsPerSample);
+            if (room > 0) {
+                images.add(carrier);
+                offsets.add(offset);
+                offset += Math.min(room, payload.length - offset);
+            }// if
+        }// for
+        if (offset < payload.length || images.isEmpty()) {
+            throw new IllegalArgumentException(payload.length
+                    + " bytes do not fit, the images hold "
+                    + getCapacity(carriers, bitsPerSample) + " at "
+                    + bitsPerSample + " bits per sample");
+        }// if
+        offsets.add(payload.length);
+
+        long id = ThreadLocalRandom.current().nextLong();
+        final Shard[] shards = new Shard[images.size()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(images.get(i), shard(payload, id, i,
+                    shards.length, offsets.get(i), offsets.get(i + 1)),
+                    bitsPerSample);
+        }// for
+
+        ForkJoinPool pool = Steganography.getPool();
+        if (pool != null && shards.length > 1) {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(shards);
+                }// compute()
+            });
+        } else {
+            for (Shard shard : shards) {
+                shard.compute();
+            }// for
+        }// if, else
+        return shards.length;
+    }// encode ( byte[] , List<? extends BufferedImage> , int )
+
+    /**
+     * Retrieves a payload hidden by {@link #encode}.
+     * @param shards Every image holding a shard of the payload, in any
+     *  order
+     * @return The payload
+     * @throws IllegalArgumentException If a shard is missing, or an image
+     *  holds no shard or a shard of another payload
+     */
+    public static byte[] decode(List<? extends BufferedImage> shards) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        Assembler assembler = new Assembler(payload);
+        try {
+            for (BufferedImage shard : shards) {
+                assembler.add(shard);
+            }// for
+        } // try
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        } // catch( IOException )
+        if (!assembler.isComplete()) {
+            throw new IllegalArgumentException("Only "
+                    + assembler.getReceived() + " of "
+                    + assembler.getTotal() + " shards were given");
+        }// if
+        return payload.toByteArray();
+    }// decode ( List<? extends BufferedImage> )
+
+    /**
+     * @return The payload bytes one image can hold beside a shard header
+     */
+    private static int shardCapacity(BufferedImage carrier, int bitsPerSample) {
+        CarrierRaster raster = CarrierRaster.wrap(carrier);
+        if (!raster.isWritable() || raster.getSampleBits() < bitsPerSample) {
+            return 0;
+        }// if
+        return Math.max(0,
+                Capacity.of(carrier).getBytes(bitsPerSample) - HEADER_BYTES);
+    }// shardCapacity ( BufferedImage , int )
+
+    /**
+     * Puts the header in front of the payload bytes from (inclusive) to to
+     * (exclusive).
+     */
+    private static byte[] shard(byte[] payload, long id, int sequence,
+            int total, int from, int to) {
+        ByteBuffer toReturn = ByteBuffer.allocate(HEADER_BYTES + to - from);
+        toReturn.putInt(MAGIC).putLong(id).putInt(sequence).putInt(total);
+        toReturn.put(payload, from, to - from);
+        return toReturn.array();
+    }// shard ( byte[] , long , int , int , int , int )
+
+    /**
+     * One image and the shard it is to hold
+     */
+    private static final class Shard extends RecursiveAction {
+
+        private final BufferedImage carrier;
+        private final byte[] data;
+        private final int bitsPerSample;
+
+        Shard(BufferedImage carrier, byte[] data, int bitsPerSample) {
+            this.carrier = carrier;
+            this.data = data;
+            this.bitsPerSample = bitsPerSample;
+        }// Shard ( BufferedImage , byte[] , int )
+
+        @Override
+        protected void compute() {
+            Steganography.encodeBytes(data, carrier, bitsPerSample);
+        }// compute()
+    }// Shard
+
+    /**
+     * Puts a payload back together from its shards in whatever order they
+     * arrive, writing it out as soon as each next part is known.  Shards
+     * may be added from several threads at once, and are decoded at the
+     * same time; only the writing is done one at a time.  A shard added a
+     * second time is ignored.
+     */
+    public static final class Assembler {
+
+        private final OutputStream out;
+        /**
+         * Shards that arrived before the ones ahead of them, by sequence
+         */
+        private final Map<Integer, byte[]> waiting = new HashMap<>();
+        private long id;
+        private int total;
+        private int received;
+        /**
+         * The sequence of the next shard to be written
+         */
+        private int next;
+
+        /**
+         * @param out Where the payload is written, in order.  It is not
+         *  closed.
+         */
+        public Assembler(OutputStream out) {
+            this.out = out;
+        }// Assembler ( OutputStream )
+
+        /**
+         * Decodes the shard an image holds and writes out every part of the
+         * payload that is now in order.
+         * @param image An image holding a shard
+         * @return Whether every shard has now been added
+         * @throws IOException If the payload cannot be written
+         * @throws IllegalArgumentException If the image holds no shard or a
+         *  shard of another payload
+         */
+        public boolean add(BufferedImage image) throws IOException {
+            ByteBuffer shard = ByteBuffer.wrap(Steganography.decodeBytes(image));
+            if (shard.remaining() < HEADER_BYTES || shard.getInt() != MAGIC) {
+                throw new IllegalArgumentException(
+                        "The image holds no shard of a payload");
+            }// if
+            long shardId = shard.getLong();
+            int sequence = shard.getInt();
+            int shardTotal = shard.getInt();
+            if (shardTotal < 1 || sequence < 0 || sequence >= shardTotal) {
+                throw new IllegalArgumentException("Corrupt shard "
+                        + sequence + " of " + shardTotal);
+            }// if
+            byte[] data = new byte[shard.remaining()];
+            shard.get(data);
+
+            synchronized (this) {
+                if (total == 0) {
+                    id = shardId;
+                    total = shardTotal;
+                } else if (shardId != id || shardTotal != total) {
+                    throw new IllegalArgumentException(
+                            "The image holds a shard of another payload");
+                }// if, else if
+                if (sequence < next || waiting.containsKey(sequence)) {
+                    return isComplete();
+                }// if
+                received++;
+                if (sequence > next) {
+                    waiting.put(sequence, data);
+                    return false;
+                }// if
+
+                out.write(data);
+                next++;
+                for (byte[] ready = waiting.remove(next); ready != null;
+                        ready = waiting.remove(next)) {
+                    out.write(ready);
+                    next++;
+                }// for
+                return isComplete();
+            }// synchronized
+        }// add ( BufferedImage )
+
+        /**
+         * @return Whether every shard has been added and written
+         */
+        public synchronized boolean isComplete() {
+            return total > 0 && next == total;
+        }// isComplete()
+
+        /**
+         * @return The number of different shards added so far
+         */
+        public synchronized int getReceived() {
+            return received;
+        }// getReceived()
+
+        /**
+         * @return The number of shards in the payload, or 0 before the first
+         *  has been added
+         */
+        public synchronized int getTotal() {
+            return total;
+        }// getTotal()
+    }// Assembler
+}// ShardCodec
@@ -0,0 +1,467 @@
+package steganography;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import javax.imageio.ImageIO;
+
+/**
+ * Encodes or decodes many images at once without opening a window, for
+ * running the codec on a server.
+ * <br>
+ * Every image goes through three stages, read, code and write, and each
+ * stage has its own small pool of threads.  While one image is being
+ * encoded the next is already being read and the last is being written.
+ * The queues between the stages are bounded, so when a later stage falls
+ * behind the earlier ones wait instead of filling memory with decoded
+ * images.  Decoding is done in the read stage alone with
+ * {@link StreamingCodec#decode(File)}, which reads only the pixels it needs.
+ * <br>
+ * Usage:
+ * <pre>
+ * StegBatch encode &lt;manifest or directory&gt; &lt;output directory&gt; [threads]
+ * StegBatch decode &lt;manifest or directory&gt; [threads]
+ * </pre>
+ * A manifest is a text file with one image per line, the image path and
+ * the message separated by a tab.  Relative paths are relative to the
+ * manifest.  Given a directory instead, every PNG, JPG and BMP in it is
+ * used, and when encoding the message comes from the .txt file of the same
+ * name beside the image.  Encoded images are written as PNGs named after
+ * the image, so two images whose names differ only in their extension, or
+ * that come from different directories, would write the same file; the
+ * later one in the list fails instead.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public class StegBatch {
+
+    private static final String ENCODE = "encode";
+    private static final String DECODE = "decode";
+    private static final String NO_MESSAGE = "(no message)";
+    private static final String USAGE =
+            "Usage: StegBatch encode <manifest or directory> <output directory> [threads]\n"
+            + "       StegBatch decode <manifest or directory> [threads]";
+    private static final List<String> IMAGE_EXTENSIONS =
+            Arrays.asList("png", "jpg", "jpeg", "bmp");
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Whether images are being encoded, otherwise decoded
+     */
+    private final boolean encoding;
+    /**
+     * Where encoded images are written, null when decoding
+     */
+    private final File outputDir;
+    private final ExecutorService readers;
+    private final ExecutorService coders;
+    private final ExecutorService writers;
+    /**
+     * Compresses on the write threads, the code stage already has every
+     * processor
+     */
+    private final ImageFileWriter pngWriter = new ImageFileWriter(
+            ImageFileWriter.Format.PNG, Deflater.DEFAULT_COMPRESSION, 1);
+
+    /**
+     * Creates the three stages.
+     * @param encoding Whether images are being encoded, otherwise decoded
+     * @param outputDir Where encoded images are written
+     * @param ioThreads Threads for each of the read and write stages
+     */
+    StegBatch(boolean encoding, File outputDir, int ioThreads) {
+        this.encoding = encoding;
+        this.outputDir = outputDir;
+        readers = stage(ioThreads);
+        coders = stage(Runtime.getRuntime().availableProcessors());
+        writers = stage(ioThreads);
+    }// StegBatch ( boolean , File , int )
+
+    /**
+     * Runs the batch from the command line.
+     * @param args encode or decode, the input, the output directory when
+     *  encoding and optionally the number of threads per I/O stage
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }// if
+
+        boolean encoding = args[0].equals(ENCODE);
+        if (!encoding && !args[0].equals(DECODE)) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }// if
+
+        int threadArg = encoding ? 3 : 2;
+        if (encoding && args.length < 3) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }// if
+        int threads = 2;
+        if (args.length > threadArg) {
+            try {
+                threads = Integer.parseInt(args[threadArg]);
+            } // try
+            catch (NumberFormatException e) {
+                threads = 0;
+            } // catch( NumberFormatException )
+            if (threads < 1) {
+                System.err.println(USAGE);
+                System.exit(2);
+            }// if
+        }// if
+
+        File outputDir = null;
+        if (encoding) {
+            outputDir = new File(args[2]);
+            if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+                System.err.println("Cannot create " + outputDir);
+                System.exit(1);
+            }// if
+        }// if
+
+        try {
+            List<Job> jobs = findJobs(new File(args[1]), encoding);
+            StegBatch batch = new StegBatch(encoding, outputDir, threads);
+            boolean allPassed = batch.run(jobs);
+            System.exit(allPassed ? 0 : 1);
+        } // try
+        catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } // catch( IOException )
+        catch (InterruptedException e) {
+            System.exit(1);
+        } // catch( InterruptedException )
+    }// main( String[] )
+
+    /**
+     * Sends every job through the stages, waits for all of them and prints
+     * the timings.
+     * @param jobs The images to work on
+     * @return True if every image succeeded
+     * @throws InterruptedException If interrupted while waiting
+     */
+    boolean run(List<Job> jobs) throws InterruptedException {
+        long start = System.nanoTime();
+        CountDownLatch done = new CountDownLatch(jobs.size());
+
+        Map<String, Job> outputs = new HashMap<>();
+        for (Job job : jobs) {
+            if (encoding) {
+                String name = baseName(job.image) + ".png";
+                job.output = new File(outputDir, name);
+                // compared without case, which some file systems ignore
+                name = name.toLowerCase(Locale.ROOT);
+                Job first = outputs.get(name);
+                if (first != null) {
+                    fail(job, done, new IOException("Would overwrite "
+                            + job.output + ", encoded from " + first.image));
+                    continue;
+                }// if
+                outputs.put(name, job);
+            }// if
+            readers.execute(new Read(job, done));
+        }// for
+        done.await();
+        long wall = System.nanoTime() - start;
+
+        readers.shutdown();
+        coders.shutdown();
+        writers.shutdown();
+        pngWriter.close();
+
+        report(jobs, wall);
+
+        for (Job job : jobs) {
+            if (job.error != null) {
+                return false;
+            }// if
+        }// for
+        return true;
+    }// run ( List<Job> )
+
+    /**
+     * Creates a stage whose queue holds a couple of images per thread.
+     * When the queue is full the thread handing over the work does it
+     * itself, which slows the earlier stage down to the speed of this one.
+     */
+    private static ExecutorService stage(int threads) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * 2),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }// stage ( int )
+
+    /**
+     * Prints one line per image and the totals.
+     */
+    private void report(List<Job> jobs, long wall) {
+        long read = 0;
+        long code = 0;
+        long write = 0;
+        int failed = 0;
+
+        for (Job job : jobs) {
+            if (job.error != null) {
+                failed++;
+                System.out.println(job.image + "\tFAILED\t" + job.error);
+                continue;
+            }// if
+            read += job.readNanos;
+            code += job.codeNanos;
+            write += job.writeNanos;
+
+            if (encoding) {
+                System.out.println(String.format(Locale.ROOT,
+                        "%s\tread %.1f ms\tencode %.2f ms\twrite %.1f ms",
+                        job.image, job.readNanos / NANOS_PER_MILLI,
+                        job.codeNanos / NANOS_PER_MILLI,
+                        job.writeNanos / NANOS_PER_MILLI));
+            } else {
+                System.out.println(String.format(Locale.ROOT,
+                        "%s\tdecode %.2f ms\t%s",
+                        job.image, job.codeNanos / NANOS_PER_MILLI,
+                        job.message != null ? job.message : NO_MESSAGE));
+            }// if, else
+        }// for
+
+        System.out.println(String.format(Locale.ROOT,
+                "%d images, %d failed in %.1f ms (%.1f images/s)",
+                jobs.size(), failed, wall / NANOS_PER_MILLI,
+                jobs.size() / (wall / 1e9)));
+        if (encoding) {
+            System.out.println(String.format(Locale.ROOT,
+                    "total read %.1f ms, encode %.1f ms, write %.1f ms",
+                    read / NANOS_PER_MILLI, code / NANOS_PER_MILLI,
+                    write / NANOS_PER_MILLI));
+        } else {
+            System.out.println(String.format(Locale.ROOT,
+                    "total decode %.1f ms", code / NANOS_PER_MILLI));
+        }// if, else
+    }// report ( List<Job> , long )
+
+    /**
+     * Builds the list of images to work on.
+     * @param input A manifest file or a directory of images
+     * @param encoding Whether every image needs a message
+     * @return The jobs in the order they were listed
+     * @throws IOException If the input cannot be read
+     */
+    static List<Job> findJobs(File input, boolean encoding) throws IOException {
+        List<Job> jobs = new ArrayList<Job>();
+
+        if (input.isDirectory()) {
+            File[] files = input.listFiles();
+            if (files == null) {
+                throw new IOException("Cannot list " + input);
+            }// if
+            Arrays.sort(files);
+            for (File file : files) {
+                if (file.isFile() && isImage(file)) {
+                    File text = new File(file.getParentFile(),
+                            baseName(file) + ".txt");
+                    if (!encoding) {
+                        jobs.add(new Job(file, null));
+                    } else if (text.isFile()) {
+                        jobs.add(new Job(file, readText(text)));
+                    }// if, else if
+                }// if
+            }// for
+        } else {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(input), StandardCharsets.UTF_8));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }// if
+                    int tab = line.indexOf('\t');
+                    String path = tab < 0 ? line : line.substring(0, tab);
+                    String message = tab < 0 ? "" : line.substring(tab + 1);
+
+                    File image = new File(path);
+                    if (!image.isAbsolute()) {
+                        image = new File(input.getAbsoluteFile().getParentFile(), path);
+                    }// if
+                    jobs.add(new Job(image, encoding ? message : null));
+                }// while
+            } finally {
+                reader.close();
+            }// try, finally
+        }// if, else
+
+        return jobs;
+    }// findJobs ( File , boolean )
+
+    private static boolean isImage(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && IMAGE_EXTENSIONS.contains(
+                name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }// isImage ( File )
+
+    private static String baseName(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }// baseName ( File )
+
+    private static String readText(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        return new String(bytes, StandardCharsets.UTF_8);
+    }// readText ( File )
+
+    /**
+     * One image on its way through the stages, and how long each stage took
+     */
+    static final class Job {
+
+        final File image;
+        /**
+         * The message to hide, or the message found once decoded, null if
+         * the image holds none
+         */
+        String message;
+        /**
+         * Where the encoded image is written, null when decoding
+         */
+        File output;
+        BufferedImage pixels;
+        String error;
+        long readNanos;
+        long codeNanos;
+        long writeNanos;
+
+        Job(File image, String message) {
+            this.image = image;
+            this.message = message;
+        }// Job ( File , String )
+    }// Job
+
+    /**
+     * Reads the image, then hands it to the code stage
+     */
+    private final class Read implements Runnable {
+
+        private final Job job;
+        private final CountDownLatch done;
+
+        Read(Job job, CountDownLatch done) {
+            this.job = job;
+            this.done = done;
+        }// Read ( Job , CountDownLatch )
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            try {
+                if (!encoding) {
+                    // only the carrier pixels are read, so there is
+                    // nothing left for the code stage to do
+                    job.message = StreamingCodec.decode(job.image);
+                    job.codeNanos = System.nanoTime() - start;
+                    done.countDown();
+                    return;
+                }// if
+                job.pixels = ImageIO.read(job.image);
+                if (job.pixels == null) {
+                    throw new IOException("Not a readable image");
+                }// if
+            } // try
+            catch (Throwable e) {
+                fail(job, done, e);
+                return;
+            } // catch( Throwable )
+            job.readNanos = System.nanoTime() - start;
+            coders.execute(new Code(job, done));
+        }// run()
+    }// Read
+
+    /**
+     * Encodes the image, then hands it to the write stage
+     */
+    private final class Code implements Runnable {
+
+        private final Job job;
+        private final CountDownLatch done;
+
+        Code(Job job, CountDownLatch done) {
+            this.job = job;
+            this.done = done;
+        }// Code ( Job , CountDownLatch )
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            try {
+                Steganography.encodeImage(job.message, job.pixels);
+            } // try
+            catch (Throwable e) {
+                fail(job, done, e);
+                return;
+            } // catch( Throwable )
+            job.codeNanos = System.nanoTime() - start;
+            writers.execute(new Write(job, done));
+        }// run()
+    }// Code
+
+    /**
+     * Writes the encoded image as a PNG in the output directory
+     */
+    private final class Write implements Runnable {
+
+        private final Job job;
+        private final CountDownLatch done;
+
+        Write(Job job, CountDownLatch done) {
+            this.job = job;
+            this.done = done;
+        }// Write ( Job , CountDownLatch )
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            try {
+                pngWriter.write(job.pixels, job.output);
+            } // try
+            catch (Throwable e) {
+                fail(job, done, e);
+                return;
+            } // catch( Throwable )
+            job.pixels = null;
+            job.writeNanos = System.nanoTime() - start;
+            done.countDown();
+        }// run()
+    }// Write
+
+    /**
+     * Records why a job failed and counts it as done.  Errors are caught as
+     * well, so that one image too large for memory fails on its own
+     * instead of leaving {@link #run} waiting for it forever.
+     */
+    private static void fail(Job job, CountDownLatch done, Throwable e) {
+        job.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        job.pixels = null;
+        done.countDown();
+    }// fail ( Job , CountDownLatch , Throwable )
+}// StegBatch
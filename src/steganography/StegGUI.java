@@ -7,17 +7,22 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.File;
-import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.imageio.ImageIO;
 import javax.swing.JButton;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.JProgressBar;
 import javax.swing.JTextArea;
+import javax.swing.SwingWorker;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 /**
@@ -47,9 +52,11 @@ public class StegGUI extends JFrame implements ActionListener, KeyListener {
     private JButton btnEncodeMessage,
             btnSelectImage,
             btnDecodeMessage;
+    private JButton btnCancel;
     private JLabel lblCharactersLeft,
             lblImagePreview;
     private JTextArea txtInput;
+    private JProgressBar barProgress;
     private static final String ENCODE_MESSAGE = "Encode Message";
     private static final String SELECT_IMAGE = "Select Image";
     private static final String CHARS_LEFT = "Characters Left: ";
@@ -58,10 +65,25 @@ public class StegGUI extends JFrame implements ActionListener, KeyListener {
     private static final String DECODE_MESSAGE = "Decode Message";
     private static final String SAVE_ENCODED = "Save Encoded Image";
     private static final String SAVE = "Save";
+    private static final String CANCEL = "Cancel";
+    private static final String READING = "Reading image";
+    private static final String ENCODING = "Encoding";
+    private static final String DECODING = "Decoding";
+    private static final String SAVING = "Saving";
+    private static final String CANCELLED = "Cancelled";
+    private static final String NO_MESSAGE = "No message found";
     /**
      * A preview of the image with the encoded message.
      */
     private ImageViewer previewImage;
+    /**
+     * Writes saved images, compressing on every processor
+     */
+    private final ImageFileWriter writer = new ImageFileWriter();
+    /**
+     * The task running in the background, null when idle
+     */
+    private Worker<?> running;
 
     /**
      * Creates a new GUI and creates the Menus associated with it.
@@ -101,6 +123,15 @@ public class StegGUI extends JFrame implements ActionListener, KeyListener {
 
         lblImagePreview = new JLabel(IMAGE_PREVIEW);
 
+        barProgress = new JProgressBar(0, 100);
+        barProgress.setStringPainted(true);
+        barProgress.setString("");
+
+        btnCancel = new JButton(CANCEL);
+        btnCancel.addActionListener(this);
+        btnCancel.setActionCommand(CANCEL);
+        btnCancel.setEnabled(false);
+
         //Add in nice order
         pane.add(lblCharactersLeft);
         pane.add(txtInput);
@@ -109,15 +140,25 @@ public class StegGUI extends JFrame implements ActionListener, KeyListener {
         pane.add(lblImagePreview);
         pane.add(previewImage);
         pane.add(btnDecodeMessage);
+        pane.add(barProgress);
+        pane.add(btnCancel);
 
         this.setVisible(true);
 
         generalTesting();
     }// PosterGUI()
 
+    /**
+     * Counts the characters left for the selected image, or for the
+     * largest image if none is selected yet.  Characters the alphabet
+     * drops do not count.
+     */
     private String getCharsLeft() {
-        logger.log(Level.INFO, "" + txtInput.getText().toCharArray().length);
-        return CHARS_LEFT + (1000 - txtInput.getText().length());
+        RenderedImage image = previewImage.getImage();
+        int capacity = image == null ? Steganography.MESSAGE_MAX
+                : Capacity.of(image).getCharacters();
+        return CHARS_LEFT
+                + (capacity - Alphabet.LETTERS.filter(txtInput.getText()).length);
     }
 
     /**
@@ -146,8 +187,9 @@ public class StegGUI extends JFrame implements ActionListener, KeyListener {
 
     /**
      * Code Stolen From ImageReadWrite
+     * @return The image file the user picked, or null
      */
-    private BufferedImage localFile() {
+    private File localFile() {
         // Create a pop-up window that displays files
         // and directories from which we can select an
         // image file.
@@ -163,18 +205,8 @@ public class StegGUI extends JFrame implements ActionListener, KeyListener {
         // user to select a file.
         int status = chooser.showOpenDialog(this);
         if (status == JFileChooser.APPROVE_OPTION) {
-            File file = chooser.getSelectedFile();
-            try {
-                // Read image file and create a BufferedImage from
-                // the data.
-                BufferedImage image = ImageIO.read(file);
-
-                //Returns the Image
-                return image;
-            } // try
-            catch (IOException e) {
-                System.out.println(e.getMessage());
-            } // catch( IOException )
+            // Read in the background, see actionPerformed
+            return chooser.getSelectedFile();
         } // if
         return null;
     }//localFile()
@@ -183,17 +215,89 @@ public class StegGUI extends JFrame implements ActionListener, KeyListener {
     public void actionPerformed(ActionEvent e) {
         String command = e.getActionCommand();
 
-        if (command.equals(ENCODE_MESSAGE)) {
-            previewImage.manipImage(txtInput.getText());
-            SaveLocal();
+        if (command.equals(CANCEL)) {
+            if (running != null) {
+                running.stop();
+            }// if
+        } else if (previewImage.getOriginal() == null
+                && !command.equals(SELECT_IMAGE)) {
+            JOptionPane.showMessageDialog(this, SELECT_IMAGE + " first");
+        } else if (command.equals(ENCODE_MESSAGE)) {
+            final String message = txtInput.getText();
+            final BufferedImage original = previewImage.getOriginal();
+            run(new Worker<EncodedImage>(ENCODING) {
+                @Override
+                CodecTask<EncodedImage> start(ProgressListener listener) {
+                    return AsyncCodec.encodeCopy(message, original,
+                            Alphabet.LETTERS, listener);
+                }// start ( ProgressListener )
+
+                @Override
+                void finished(EncodedImage encoded) {
+                    previewImage.setEncoded(encoded);
+                    SaveLocal();
+                }// finished ( EncodedImage )
+            });
         } else if (command.equals(SELECT_IMAGE)) {
-            previewImage.setImage(localFile());
+            final File file = localFile();
+            if (file != null) {
+                run(new Worker<BufferedImage>(READING) {
+                    @Override
+                    CodecTask<BufferedImage> start(ProgressListener listener) {
+                        return AsyncCodec.read(file, listener);
+                    }// start ( ProgressListener )
+
+                    @Override
+                    void finished(BufferedImage image) {
+                        previewImage.setImage(image);
+                        lblCharactersLeft.setText(getCharsLeft());
+                    }// finished ( BufferedImage )
+                });
+            }// if
         } else if (command.equals(DECODE_MESSAGE)){
-            JOptionPane.showMessageDialog(this, previewImage.getMessage());
+            final RenderedImage image = previewImage.getImage();
+            run(new Worker<String>(DECODING) {
+                @Override
+                CodecTask<String> start(ProgressListener listener) {
+                    return AsyncCodec.decode(image, Alphabet.LETTERS, listener);
+                }// start ( ProgressListener )
+
+                @Override
+                void finished(String message) {
+                    JOptionPane.showMessageDialog(StegGUI.this,
+                            message != null ? message : NO_MESSAGE);
+                }// finished ( String )
+            });
         }//if, else if
         this.repaint();
     }//actionPerformed( ActionEvent )
 
+    /**
+     * Starts a background task, keeping the buttons off until it is done.
+     */
+    private void run(Worker<?> worker) {
+        running = worker;
+        setBusy(true, worker.stage);
+        worker.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if ("progress".equals(evt.getPropertyName())) {
+                    barProgress.setValue((Integer) evt.getNewValue());
+                }// if
+            }// propertyChange ( PropertyChangeEvent )
+        });
+        worker.execute();
+    }// run ( Worker<?> )
+
+    private void setBusy(boolean busy, String stage) {
+        btnSelectImage.setEnabled(!busy);
+        btnEncodeMessage.setEnabled(!busy);
+        btnDecodeMessage.setEnabled(!busy);
+        btnCancel.setEnabled(busy);
+        barProgress.setValue(0);
+        barProgress.setString(stage);
+    }// setBusy ( boolean , String )
+
     /**
      * Opens a save Dialogue for the user to save the file
      */
@@ -219,15 +323,18 @@ public class StegGUI extends JFrame implements ActionListener, KeyListener {
             if (!file_name.endsWith(".png"))
                 file_name += ".png";
             
-            File toWrite = new File(file_name);
-            try {
-
-                ImageIO.write(previewImage.getImage(), "PNG", toWrite);
-
-            } // try
-            catch (IOException e) {
-                System.out.println(e.getMessage());
-            } // catch( IOException )
+            final File toWrite = new File(file_name);
+            final RenderedImage image = previewImage.getImage();
+            run(new Worker<Void>(SAVING) {
+                @Override
+                CodecTask<Void> start(ProgressListener listener) {
+                    return AsyncCodec.write(image, toWrite, writer, listener);
+                }// start ( ProgressListener )
+
+                @Override
+                void finished(Void nothing) {
+                }// finished ( Void )
+            });
         } // if
     }// SaveLocal()
 
@@ -249,5 +356,82 @@ public class StegGUI extends JFrame implements ActionListener, KeyListener {
     public void keyReleased(KeyEvent e) {
         lblCharactersLeft.setText(getCharsLeft());
     }
+
+    /**
+     * Waits off the event thread for a {@link CodecTask}, moving the progress
+     * bar as it reports, and hands the result back on the event thread.
+     * @param <V> What the task produces
+     */
+    private abstract class Worker<V> extends SwingWorker<V, Void>
+            implements ProgressListener {
+
+        private final String stage;
+        private volatile CodecTask<V> task;
+        private volatile boolean stopped;
+
+        Worker(String stage) {
+            this.stage = stage;
+        }// Worker ( String )
+
+        /**
+         * Starts the task, off the event thread.
+         */
+        abstract CodecTask<V> start(ProgressListener listener);
+
+        /**
+         * Uses the result, on the event thread.
+         */
+        abstract void finished(V result);
+
+        /**
+         * Cancels the task, whether or not it has started yet.
+         */
+        void stop() {
+            stopped = true;
+            CodecTask<V> started = task;
+            if (started != null) {
+                started.cancel(true);
+            }// if
+        }// stop()
+
+        @Override
+        protected V doInBackground() throws Exception {
+            task = start(this);
+            if (stopped) {
+                task.cancel(true);
+            }// if
+            return task.get();
+        }// doInBackground()
+
+        @Override
+        public void progressed(long done, long total) {
+            setProgress((int) Math.min(100, 100 * done / Math.max(1, total)));
+        }// progressed ( long , long )
+
+        @Override
+        protected void done() {
+            running = null;
+            setBusy(false, "");
+            try {
+                finished(get());
+            } // try
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof CancellationException) {
+                    barProgress.setString(CANCELLED);
+                } else {
+                    JOptionPane.showMessageDialog(StegGUI.this,
+                            cause.getMessage());
+                }// if, else
+            } // catch( ExecutionException )
+            catch (CancellationException e) {
+                barProgress.setString(CANCELLED);
+            } // catch( CancellationException )
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } // catch( InterruptedException )
+            StegGUI.this.repaint();
+        }// done()
+    }// Worker
 }// PosterGUI
 
@@ -0,0 +1,571 @@
+package steganography;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds which images under a directory hold a hidden message, without
+ * opening a window and without decoding any image whole.
+ * <br>
+ * Only the headers of each image are read, see
+ * {@link StreamingCodec#readHeader(File)} and
+ * {@link StreamingCodec#readBitPlaneHeader(File)}: a few pixels straight
+ * from the file for BMP and PPM, or the first rows of anything else.  An
+ * image holds characters when its header has the magic number, the version
+ * and a length that fits, and bytes, as hidden by
+ * {@link Steganography#encodeBytes(byte[], java.awt.image.BufferedImage, int)}
+ * or as a shard of {@link ShardCodec}, when its first samples hold the bit
+ * plane header instead.  The length and CRC32 the header gives are recorded
+ * without reading what is hidden.
+ * <br>
+ * The directory tree is walked on a pool of threads, every directory and
+ * every handful of images a task of its own, so a directory of a million
+ * images is probed as much in parallel as a million directories of one.
+ * Symbolic links to directories are not followed.
+ * <br>
+ * What was found is kept in an index file, one image to a line:
+ * <pre>
+ * modified  size  hidden  length  checksum  path
+ * </pre>
+ * separated by tabs, with the modification time in milliseconds, hidden
+ * one of none, characters or bytes, and the path relative to the
+ * directory.  A later scan with the same index probes only the images whose
+ * time or size has changed since, and drops the lines of images that are
+ * gone.  An index from an earlier version of the scanner is probed
+ * afresh.  The index is written to a temporary file and moved into place,
+ * so a scan that fails part way leaves the last one's index as it was.
+ * An image whose path holds a line break would split its line, so it is
+ * reported as a failure instead.
+ * <br>
+ * Usage:
+ * <pre>
+ * StegScanner &lt;directory&gt; &lt;index file&gt; [threads]
+ * </pre>
+ * Every image with something hidden is printed with what and its length,
+ * then the images that could not be read, then the totals.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public class StegScanner {
+
+    private static final String USAGE =
+            "Usage: StegScanner <directory> <index file> [threads]";
+    private static final String INDEX_PREFIX = "# steg-index ";
+    private static final String INDEX_HEADER = INDEX_PREFIX + 2;
+    private static final List<String> IMAGE_EXTENSIONS = Arrays.asList("png",
+            "jpg", "jpeg", "bmp", "gif", "tif", "tiff", "ppm");
+    /**
+     * Images probed by one task
+     */
+    private static final int IMAGES_PER_TASK = 16;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final ForkJoinPool pool;
+    /**
+     * The images found by the last scan, how many were probed and why those
+     * that could not be read failed, by path
+     */
+    private final ConcurrentLinkedQueue<Entry> found =
+            new ConcurrentLinkedQueue<>();
+    private final AtomicInteger probed = new AtomicInteger();
+    private final ConcurrentSkipListMap<String, String> failures =
+            new ConcurrentSkipListMap<>();
+
+    /**
+     * @param threads How many images to probe at once
+     */
+    public StegScanner(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }// if
+        pool = new ForkJoinPool(threads);
+    }// StegScanner ( int )
+
+    /**
+     * Runs the scanner from the command line.
+     * @param args The directory, the index file and optionally the number
+     *  of threads
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }// if
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length > 2) {
+            try {
+                threads = Integer.parseInt(args[2]);
+            } // try
+            catch (NumberFormatException e) {
+                System.err.println(USAGE);
+                System.exit(2);
+            } // catch( NumberFormatException )
+        }// if
+
+        StegScanner scanner = new StegScanner(threads);
+        try {
+            long start = System.nanoTime();
+            List<Entry> entries = scanner.scan(new File(args[0]),
+                    new File(args[1]));
+            long wall = System.nanoTime() - start;
+
+            int messages = 0;
+            for (Entry entry : entries) {
+                if (entry.hasMessage()) {
+                    messages++;
+                    System.out.println(entry.getPath() + "\t"
+                            + entry.getHidden().getName() + "\t"
+                            + entry.getLength());
+                }// if
+            }// for
+            for (Map.Entry<String, String> failure
+                    : scanner.getFailures().entrySet()) {
+                System.err.println(failure.getKey() + "\tFAILED\t"
+                        + failure.getValue());
+            }// for
+            System.out.println(String.format(Locale.ROOT,
+                    "%d images, %d probed, %d with a message, %d failed in"
+                    + " %.1f ms", entries.size(), scanner.getProbed(),
+                    messages, scanner.getFailed(), wall / NANOS_PER_MILLI));
+            System.exit(scanner.getFailed() == 0 ? 0 : 1);
+        } // try
+        catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } // catch( IOException )
+        finally {
+            scanner.close();
+        }// try, finally
+    }// main( String[] )
+
+    /**
+     * Scans every image under a directory, probing only those that are new
+     * or have changed since the index was written, and rewrites the index.
+     * Images that cannot be read are left out of the index, so the next
+     * scan tries them again, and are kept in {@link #getFailures()}.
+     * @param directory The top of the tree
+     * @param index The index file, which need not exist yet
+     * @return Every image found, sorted by path
+     * @throws IOException If the directory cannot be listed or the index
+     *  cannot be read or written
+     */
+    public synchronized List<Entry> scan(File directory, File index)
+            throws IOException {
+        if (!directory.isDirectory()) {
+            throw new IOException(directory + " is not a directory");
+        }// if
+        Map<String, Entry> previous = readIndex(index);
+        found.clear();
+        probed.set(0);
+        failures.clear();
+
+        pool.invoke(new Directory(directory, "", previous));
+
+        List<Entry> toReturn = new ArrayList<>(found);
+        Collections.sort(toReturn, Entry.BY_PATH);
+        writeIndex(index, toReturn);
+        return toReturn;
+    }// scan ( File , File )
+
+    /**
+     * @return How many images the last scan had to probe
+     */
+    public int getProbed() {
+        return probed.get();
+    }// getProbed()
+
+    /**
+     * @return How many images and directories the last scan could not read
+     */
+    public int getFailed() {
+        return failures.size();
+    }// getFailed()
+
+    /**
+     * @return Why each image or directory the last scan could not read
+     *  failed, by its path, sorted
+     */
+    public Map<String, String> getFailures() {
+        return new TreeMap<>(failures);
+    }// getFailures()
+
+    /**
+     * Stops the scanner's threads.
+     */
+    public void close() {
+        pool.shutdown();
+    }// close()
+
+    /**
+     * Reads the headers of one image, the bit plane one only if there is no
+     * message of characters.
+     * @param file The image
+     * @param path Its path relative to the top of the tree
+     * @return What the image holds
+     * @throws IOException If the image cannot be read
+     */
+    static Entry probe(File file, String path) throws IOException {
+        long modified = file.lastModified();
+        long size = file.length();
+        int[] header = StreamingCodec.readHeader(file);
+        if (header != null) {
+            return new Entry(path, modified, size, Hidden.CHARACTERS,
+                    Steganography.headerLength(header),
+                    Steganography.headerChecksum(header));
+        }// if
+        BitPlaneCodec.Header bytes = StreamingCodec.readBitPlaneHeader(file);
+        if (bytes != null) {
+            return new Entry(path, modified, size, Hidden.BYTES,
+                    (int) bytes.getLength(), bytes.getChecksum());
+        }// if
+        return new Entry(path, modified, size, Hidden.NONE, 0, 0);
+    }// probe ( File , String )
+
+    /**
+     * Records why a file could not be read.
+     */
+    private void fail(File file, Exception e) {
+        failures.put(file.getPath(), e.getMessage() != null
+                ? e.getMessage() : e.toString());
+    }// fail ( File , Exception )
+
+    /**
+     * @return The entries of an index file by path, none if it does not
+     *  exist
+     */
+    private static Map<String, Entry> readIndex(File index) throws IOException {
+        Map<String, Entry> toReturn = new HashMap<>();
+        BufferedReader reader;
+        try {
+            reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(index), StandardCharsets.UTF_8));
+        } // try
+        catch (FileNotFoundException e) {
+            return toReturn;
+        } // catch( FileNotFoundException )
+        try {
+            String line = reader.readLine();
+            if (line != null && !line.equals(INDEX_HEADER)) {
+                if (line.startsWith(INDEX_PREFIX)) {
+                    // an earlier version, probed afresh
+                    return toReturn;
+                }// if
+                throw new IOException(index + " is not a scanner index");
+            }// if
+            while ((line = reader.readLine()) != null) {
+                Entry entry = Entry.parse(line);
+                if (entry == null) {
+                    throw new IOException("Corrupt line in " + index + ": "
+                            + line);
+                }// if
+                toReturn.put(entry.getPath(), entry);
+            }// while
+        } finally {
+            reader.close();
+        }// try, finally
+        return toReturn;
+    }// readIndex ( File )
+
+    /**
+     * Writes an index file beside the old one and moves it into place.
+     */
+    private static void writeIndex(File index, List<Entry> entries)
+            throws IOException {
+        File parent = index.getAbsoluteFile().getParentFile();
+        File temporary = File.createTempFile(index.getName(), ".tmp", parent);
+        boolean moved = false;
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(temporary), StandardCharsets.UTF_8));
+            try {
+                writer.write(INDEX_HEADER);
+                writer.write('\n');
+                for (Entry entry : entries) {
+                    writer.write(entry.toString());
+                    writer.write('\n');
+                }// for
+            } finally {
+                writer.close();
+            }// try, finally
+            Files.move(temporary.toPath(), index.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            if (!moved) {
+                temporary.delete();
+            }// if
+        }// try, finally
+    }// writeIndex ( File , List<Entry> )
+
+    private static boolean isImage(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && IMAGE_EXTENSIONS.contains(
+                name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }// isImage ( File )
+
+    /**
+     * Lists a directory, handing its subdirectories and its images to tasks
+     * of their own
+     */
+    private final class Directory extends RecursiveAction {
+
+        private final File directory;
+        /**
+         * The directory's path relative to the top, with a trailing slash
+         */
+        private final String path;
+        private final Map<String, Entry> previous;
+
+        Directory(File directory, String path, Map<String, Entry> previous) {
+            this.directory = directory;
+            this.path = path;
+            this.previous = previous;
+        }// Directory ( File , String , Map<String, Entry> )
+
+        @Override
+        protected void compute() {
+            File[] files = directory.listFiles();
+            if (files == null) {
+                fail(directory, new IOException("Cannot list"));
+                return;
+            }// if
+            List<RecursiveAction> tasks = new ArrayList<>();
+            List<File> images = new ArrayList<>();
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    if (!Files.isSymbolicLink(file.toPath())) {
+                        tasks.add(new Directory(file,
+                                path + file.getName() + "/", previous));
+                    }// if
+                } else if (file.isFile() && isImage(file)) {
+                    images.add(file);
+                    if (images.size() == IMAGES_PER_TASK) {
+                        tasks.add(new Images(images, path, previous));
+                        images = new ArrayList<>();
+                    }// if
+                }// if, else if
+            }// for
+            if (!images.isEmpty()) {
+                tasks.add(new Images(images, path, previous));
+            }// if
+            invokeAll(tasks);
+        }// compute()
+    }// Directory
+
+    /**
+     * Probes a few images of one directory, reusing what the index says of
+     * those that have not changed
+     */
+    private final class Images extends RecursiveAction {
+
+        private final List<File> images;
+        private final String path;
+        private final Map<String, Entry> previous;
+
+        Images(List<File> images, String path, Map<String, Entry> previous) {
+            this.images = images;
+            this.path = path;
+            this.previous = previous;
+        }// Images ( List<File> , String , Map<String, Entry> )
+
+        @Override
+        protected void compute() {
+            for (File image : images) {
+                String imagePath = path + image.getName();
+                if (imagePath.indexOf('\n') >= 0
+                        || imagePath.indexOf('\r') >= 0) {
+                    fail(image, new IOException(
+                            "A line break in the path cannot be indexed"));
+                    continue;
+                }// if
+                Entry known = previous.get(imagePath);
+                if (known != null && known.getModified() == image.lastModified()
+                        && known.getSize() == image.length()) {
+                    found.add(known);
+                    continue;
+                }// if
+                try {
+                    found.add(probe(image, imagePath));
+                    probed.incrementAndGet();
+                } // try
+                catch (IOException | RuntimeException e) {
+                    fail(image, e);
+                } // catch( IOException | RuntimeException )
+            }// for
+        }// compute()
+    }// Images
+
+    /**
+     * What an image has hidden in it
+     */
+    public enum Hidden {
+
+        /**
+         * Nothing, or nothing with a header
+         */
+        NONE,
+        /**
+         * A message of characters, one to a pixel
+         */
+        CHARACTERS,
+        /**
+         * Bytes in the low bits of every sample
+         */
+        BYTES;
+
+        /**
+         * @return The name as written in the index
+         */
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }// getName()
+
+        /**
+         * @return The value of a name written in the index, or null if it
+         *  is not one
+         */
+        static Hidden forName(String name) {
+            for (Hidden hidden : values()) {
+                if (hidden.getName().equals(name)) {
+                    return hidden;
+                }// if
+            }// for
+            return null;
+        }// forName ( String )
+    }// Hidden
+
+    /**
+     * What the scanner found in one image
+     */
+    public static final class Entry {
+
+        static final Comparator<Entry> BY_PATH = new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return a.path.compareTo(b.path);
+            }// compare ( Entry , Entry )
+        };
+        private static final int FIELDS = 6;
+
+        private final String path;
+        private final long modified;
+        private final long size;
+        private final Hidden hidden;
+        private final int length;
+        private final long checksum;
+
+        Entry(String path, long modified, long size, Hidden hidden,
+                int length, long checksum) {
+            this.path = path;
+            this.modified = modified;
+            this.size = size;
+            this.hidden = hidden;
+            this.length = length;
+            this.checksum = checksum;
+        }// Entry ( String , long , long , Hidden , int , long )
+
+        /**
+         * @return The entry an index line holds, or null if it is not one
+         */
+        static Entry parse(String line) {
+            String[] fields = line.split("\t", FIELDS);
+            if (fields.length < FIELDS) {
+                return null;
+            }// if
+            Hidden hidden = Hidden.forName(fields[2]);
+            if (hidden == null) {
+                return null;
+            }// if
+            try {
+                return new Entry(fields[5], Long.parseLong(fields[0]),
+                        Long.parseLong(fields[1]), hidden,
+                        Integer.parseInt(fields[3]), Long.parseLong(fields[4]));
+            } // try
+            catch (NumberFormatException e) {
+                return null;
+            } // catch( NumberFormatException )
+        }// parse ( String )
+
+        /**
+         * @return The image's path relative to the top of the tree, with
+         *  forward slashes
+         */
+        public String getPath() {
+            return path;
+        }// getPath()
+
+        /**
+         * @return When the image was last modified, in milliseconds
+         */
+        public long getModified() {
+            return modified;
+        }// getModified()
+
+        public long getSize() {
+            return size;
+        }// getSize()
+
+        /**
+         * @return Whether the image has anything hidden in it
+         */
+        public boolean hasMessage() {
+            return hidden != Hidden.NONE;
+        }// hasMessage()
+
+        public Hidden getHidden() {
+            return hidden;
+        }// getHidden()
+
+        /**
+         * @return The length of the message in characters or of the bytes,
+         *  deflated if they were, 0 if there is none
+         */
+        public int getLength() {
+            return length;
+        }// getLength()
+
+        /**
+         * @return The CRC32 the header gives for what is hidden, 0 if there
+         *  is none or bytes from before the bit plane format had one
+         */
+        public long getChecksum() {
+            return checksum;
+        }// getChecksum()
+
+        /**
+         * @return The entry as a line of the index
+         */
+        @Override
+        public String toString() {
+            return modified + "\t" + size + "\t" + hidden.getName() + "\t"
+                    + length + "\t" + checksum + "\t" + path;
+        }// toString()
+    }// Entry
+}// StegScanner
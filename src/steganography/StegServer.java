@@ -0,0 +1,693 @@
+package steganography;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.Semaphore;
+import java.util.zip.Deflater;
+import javax.imageio.ImageIO;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+/**
+ * A small HTTP server around the codec, built on the JDK's own server so it
+ * can be run and load tested without anything else installed.
+ * <ul>
+ * <li><code>POST /encode?message=...</code> hides the message in the image
+ * sent as the body and answers with the encoded image, a PNG unless
+ * <code>format=bmp</code> or <code>format=ppm</code> is given.</li>
+ * <li><code>POST /decode</code> answers with the message hidden in the image
+ * sent as the body, as UTF-8 text, or 404 if the image holds none.</li>
+ * <li><code>GET /metrics</code> answers with the codec's counters, the
+ * requests by endpoint and status, and a latency histogram per endpoint.</li>
+ * </ul>
+ * Both codec endpoints take <code>alphabet=letters</code>,
+ * <code>alphanumeric</code> or <code>text</code>, and
+ * <code>key=</code> a number to scatter the message by, see
+ * {@link Steganography#encodeCopy(String, BufferedImage, Alphabet, long)}.
+ * Encoded images are written back as they are compressed, in chunks.  An
+ * image no reader understands is answered with 415 by both.
+ * <br>
+ * Only so many requests are coded at once and only so many more may wait
+ * for a turn.  Past that the server answers 503 with a Retry-After header
+ * straight away instead of letting requests pile up, so a client under
+ * load sees it early and can back off.  A request's body is read in full
+ * before it takes a turn rather than streamed into the codec, so a slow
+ * upload keeps no coding thread waiting.  Up to {@link #MEMORY_BODY} of it
+ * is held in memory and a larger body is spooled to a temporary file,
+ * deleted once the request is answered, so the requests waiting for a turn
+ * take little memory.  A decode of a spooled BMP or PPM reads only the
+ * header and carrier pixels back from the file.  A body larger than
+ * {@link #MAX_BODY} is answered with 413 whether or not its length was
+ * given.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public class StegServer {
+
+    private static final String USAGE =
+            "Usage: StegServer [port] [concurrent requests] [waiting requests]";
+    private static final int DEFAULT_PORT = 8080;
+    /**
+     * Connections the operating system holds before the server accepts them
+     */
+    private static final int BACKLOG = 256;
+    /**
+     * The largest request body accepted
+     */
+    static final long MAX_BODY = 256L << 20;
+    /**
+     * The most of a request body held in memory, the rest is spooled to a
+     * temporary file
+     */
+    static final int MEMORY_BODY = 1 << 20;
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private static final int READ_BUFFER = 1 << 16;
+    private static final String TEXT = "text/plain; charset=utf-8";
+
+    private final HttpServer server;
+    private final ExecutorService exchanges;
+    /**
+     * A permit for every request being coded or waiting to be
+     */
+    private final Semaphore admitted;
+    /**
+     * A permit for every request being coded
+     */
+    private final Semaphore working;
+    private final int concurrency;
+    private final int capacity;
+    private final Map<ImageFileWriter.Format, ImageFileWriter> writers =
+            new EnumMap<>(ImageFileWriter.Format.class);
+
+    private final LatencyHistogram encodeLatency = new LatencyHistogram();
+    private final LatencyHistogram decodeLatency = new LatencyHistogram();
+    /**
+     * Responses by endpoint and status, as the labels of the metric
+     */
+    private final ConcurrentHashMap<String, AtomicLong> responses =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates the server without starting it.
+     * @param address Where to listen, port 0 for any free port
+     * @param concurrency How many requests are coded at once
+     * @param waiting How many more requests may wait for a turn
+     * @throws IOException If the address cannot be bound
+     */
+    public StegServer(InetSocketAddress address, int concurrency, int waiting)
+            throws IOException {
+        if (concurrency < 1 || waiting < 0) {
+            throw new IllegalArgumentException(
+                    "Need at least one concurrent request and no negative queue");
+        }// if
+        this.concurrency = concurrency;
+        capacity = concurrency + waiting;
+        admitted = new Semaphore(capacity);
+        working = new Semaphore(concurrency, true);
+
+        // requests run in parallel already, so each is compressed on its
+        // own thread
+        writers.put(ImageFileWriter.Format.PNG, new ImageFileWriter(
+                ImageFileWriter.Format.PNG, Deflater.DEFAULT_COMPRESSION, 1));
+        writers.put(ImageFileWriter.Format.BMP, new ImageFileWriter(
+                ImageFileWriter.Format.BMP, Deflater.DEFAULT_COMPRESSION, 1));
+        writers.put(ImageFileWriter.Format.PPM, new ImageFileWriter(
+                ImageFileWriter.Format.PPM, Deflater.DEFAULT_COMPRESSION, 1));
+
+        // a thread per exchange; turning one away costs next to nothing, so
+        // only the semaphores bound how much work is in flight
+        exchanges = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60,
+                TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                new DaemonThreads("steg-server"));
+
+        server = HttpServer.create(address, BACKLOG);
+        server.setExecutor(exchanges);
+        server.createContext("/encode", new Encode());
+        server.createContext("/decode", new Decode());
+        server.createContext("/metrics", new Metrics());
+    }// StegServer ( InetSocketAddress , int , int )
+
+    /**
+     * Runs the server from the command line until it is killed.
+     * @param args Optionally the port, the number of requests coded at once
+     *  and the number that may wait
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        int waiting = concurrency * 2;
+        try {
+            if (args.length > 0) {
+                port = Integer.parseInt(args[0]);
+            }// if
+            if (args.length > 1) {
+                concurrency = Integer.parseInt(args[1]);
+                waiting = concurrency * 2;
+            }// if
+            if (args.length > 2) {
+                waiting = Integer.parseInt(args[2]);
+            }// if
+        } // try
+        catch (NumberFormatException e) {
+            System.err.println(USAGE);
+            System.exit(2);
+        } // catch( NumberFormatException )
+
+        try {
+            StegServer steg = new StegServer(new InetSocketAddress(port),
+                    concurrency, waiting);
+            steg.start();
+            System.out.println("Listening on port " + steg.getPort()
+                    + ", " + concurrency + " at once, " + waiting + " waiting");
+        } // try
+        catch (IOException | IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } // catch( IOException | IllegalArgumentException )
+    }// main( String[] )
+
+    public void start() {
+        server.start();
+    }// start()
+
+    /**
+     * Stops accepting requests and waits for the ones being served.
+     * @param delaySeconds The longest to wait for them
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        exchanges.shutdown();
+        for (ImageFileWriter writer : writers.values()) {
+            writer.close();
+        }// for
+    }// stop ( int )
+
+    /**
+     * @return The port the server is listening on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }// getPort()
+
+    /**
+     * Prints the codec's counters and the server's in the form of
+     * {@link CodecMetrics#toString()}.
+     * @return The metrics as plain text
+     */
+    public String getMetrics() {
+        StringBuilder toReturn = new StringBuilder(
+                Steganography.getMetrics().toString());
+        int coding = concurrency - working.availablePermits();
+        toReturn.append("steganography_server_requests_coding ")
+                .append(coding).append('\n');
+        toReturn.append("steganography_server_requests_waiting ")
+                .append(Math.max(0, capacity - admitted.availablePermits()
+                        - coding)).append('\n');
+        for (Map.Entry<String, AtomicLong> entry : responses.entrySet()) {
+            toReturn.append("steganography_server_responses_total{")
+                    .append(entry.getKey()).append("} ")
+                    .append(entry.getValue().get()).append('\n');
+        }// for
+        encodeLatency.append(toReturn, "steganography_server_latency_seconds",
+                "endpoint=\"encode\"");
+        decodeLatency.append(toReturn, "steganography_server_latency_seconds",
+                "endpoint=\"decode\"");
+        return toReturn.toString();
+    }// getMetrics()
+
+    /**
+     * Counts a response under its endpoint and status.
+     */
+    private void count(String endpoint, int status) {
+        String key = "endpoint=\"" + endpoint + "\",status=\"" + status + "\"";
+        AtomicLong counter = responses.get(key);
+        if (counter == null) {
+            AtomicLong fresh = new AtomicLong();
+            counter = responses.putIfAbsent(key, fresh);
+            if (counter == null) {
+                counter = fresh;
+            }// if
+        }// if
+        counter.incrementAndGet();
+    }// count ( String , int )
+
+    /**
+     * Sends a whole text response.
+     */
+    private static void send(HttpExchange exchange, int status, String text)
+            throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", TEXT);
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }// send ( HttpExchange , int , String )
+
+    /**
+     * Reads a whole request body, into memory or a temporary file as it
+     * grows.
+     * @param body The body
+     * @return The body, to be closed once the request is answered
+     * @throws IOException If the body cannot be read or is larger than
+     *  {@link #MAX_BODY}
+     */
+    private static Body readBody(InputStream body) throws IOException {
+        Body toReturn = new Body();
+        boolean read = false;
+        try {
+            byte[] buffer = new byte[READ_BUFFER];
+            for (int count = body.read(buffer); count >= 0;
+                    count = body.read(buffer)) {
+                toReturn.add(buffer, count);
+            }// for
+            toReturn.finish();
+            read = true;
+            return toReturn;
+        } finally {
+            if (!read) {
+                toReturn.close();
+            }// if
+        }// try, finally
+    }// readBody ( InputStream )
+
+    /**
+     * Splits the query of a request into its parameters.
+     */
+    static Map<String, String> parameters(HttpExchange exchange) {
+        Map<String, String> toReturn = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return toReturn;
+        }// if
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            toReturn.put(decodeParameter(name), decodeParameter(value));
+        }// for
+        return toReturn;
+    }// parameters ( HttpExchange )
+
+    private static String decodeParameter(String text) {
+        try {
+            return URLDecoder.decode(text, "UTF-8");
+        } // try
+        catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        } // catch( UnsupportedEncodingException )
+    }// decodeParameter ( String )
+
+    /**
+     * @return The alphabet named by the alphabet parameter, letters if none
+     */
+    static Alphabet alphabet(Map<String, String> parameters) {
+        String name = parameters.get("alphabet");
+        if (name == null) {
+            return Alphabet.LETTERS;
+        }// if
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "letters":
+                return Alphabet.LETTERS;
+            case "alphanumeric":
+                return Alphabet.ALPHANUMERIC;
+            case "text":
+                return Alphabet.TEXT;
+            default:
+                throw new IllegalArgumentException("Unknown alphabet " + name);
+        }// switch
+    }// alphabet ( Map<String, String> )
+
+    /**
+     * @return The number in the key parameter
+     */
+    static long key(Map<String, String> parameters) {
+        try {
+            return Long.parseLong(parameters.get("key"));
+        } // try
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The key must be a number, not "
+                    + parameters.get("key"));
+        } // catch( NumberFormatException )
+    }// key ( Map<String, String> )
+
+    /**
+     * Turns requests away once the server is full, and otherwise codes them
+     * one turn at a time, timing the whole request.
+     */
+    private abstract class CodecHandler implements HttpHandler {
+
+        private final String endpoint;
+        private final LatencyHistogram latency;
+
+        CodecHandler(String endpoint, LatencyHistogram latency) {
+            this.endpoint = endpoint;
+            this.latency = latency;
+        }// CodecHandler ( String , LatencyHistogram )
+
+        /**
+         * Codes one request and sends the response.
+         */
+        abstract void serve(HttpExchange exchange, Body body,
+                Map<String, String> parameters) throws IOException;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = admit(exchange);
+            } finally {
+                exchange.close();
+            }// try, finally
+            latency.record(System.nanoTime() - start);
+            count(endpoint, status);
+        }// handle ( HttpExchange )
+
+        /**
+         * @return The status sent
+         */
+        private int admit(HttpExchange exchange) throws IOException {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                send(exchange, 405, "Send the image with POST\n");
+                return 405;
+            }// if
+            String header = exchange.getRequestHeaders()
+                    .getFirst("Content-Length");
+            long length = -1;
+            if (header != null) {
+                try {
+                    length = Long.parseLong(header.trim());
+                } // try
+                catch (NumberFormatException e) {
+                    send(exchange, 400, "Bad Content-Length " + header + "\n");
+                    return 400;
+                } // catch( NumberFormatException )
+            }// if
+            if (length > MAX_BODY) {
+                send(exchange, 413, new BodyTooLarge().getMessage() + "\n");
+                return 413;
+            }// if
+            if (!admitted.tryAcquire()) {
+                exchange.getResponseHeaders().set("Retry-After",
+                        RETRY_AFTER_SECONDS);
+                send(exchange, 503, "Too many requests, try again shortly\n");
+                return 503;
+            }// if
+
+            try {
+                // the body is all in before a turn is taken
+                Body body = readBody(exchange.getRequestBody());
+                try {
+                    working.acquireUninterruptibly();
+                    try {
+                        serve(exchange, body, parameters(exchange));
+                        return 200;
+                    } finally {
+                        working.release();
+                    }// try, finally
+                } finally {
+                    body.close();
+                }// try, finally
+            } // try
+            catch (BodyTooLarge e) {
+                return fail(exchange, 413, e.getMessage());
+            } // catch( BodyTooLarge )
+            catch (IllegalArgumentException e) {
+                return fail(exchange, 400, e.getMessage());
+            } // catch( IllegalArgumentException )
+            catch (UnsupportedImage e) {
+                return fail(exchange, 415, e.getMessage());
+            } // catch( UnsupportedImage )
+            catch (NoMessage e) {
+                return fail(exchange, 404, e.getMessage());
+            } // catch( NoMessage )
+            catch (IOException e) {
+                return fail(exchange, 400, e.getMessage());
+            } // catch( IOException )
+            finally {
+                admitted.release();
+            }// finally
+        }// admit ( HttpExchange )
+
+        /**
+         * Sends an error if the response has not started, otherwise the
+         * client will see the connection drop.
+         */
+        private int fail(HttpExchange exchange, int status, String message)
+                throws IOException {
+            if (exchange.getResponseCode() != -1) {
+                return exchange.getResponseCode();
+            }// if
+            send(exchange, status, message + "\n");
+            return status;
+        }// fail ( HttpExchange , int , String )
+    }// CodecHandler
+
+    /**
+     * Hides the message parameter in the posted image
+     */
+    private final class Encode extends CodecHandler {
+
+        Encode() {
+            super("encode", encodeLatency);
+        }// Encode()
+
+        @Override
+        void serve(HttpExchange exchange, Body body,
+                Map<String, String> parameters) throws IOException {
+            String message = parameters.get("message");
+            if (message == null) {
+                throw new IllegalArgumentException("No message parameter");
+            }// if
+            Alphabet alphabet = alphabet(parameters);
+            ImageFileWriter.Format format = ImageFileWriter.Format.PNG;
+            if (parameters.containsKey("format")) {
+                try {
+                    format = ImageFileWriter.Format.valueOf(
+                            parameters.get("format").toUpperCase(Locale.ROOT));
+                } // try
+                catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown format "
+                            + parameters.get("format"));
+                } // catch( IllegalArgumentException )
+            }// if
+
+            // ImageIO closes the stream unless it finds no reader
+            ImageInputStream input = body.open();
+            BufferedImage image = ImageIO.read(input);
+            if (image == null) {
+                input.close();
+                throw new UnsupportedImage();
+            }// if
+            if (parameters.containsKey("key")) {
+                Steganography.encodeInPlace(message, image, alphabet,
+                        key(parameters));
+            } else {
+                Steganography.encodeInPlace(message, image, alphabet);
+            }// if, else
+
+            exchange.getResponseHeaders().set("Content-Type",
+                    "image/" + format.name().toLowerCase(Locale.ROOT));
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            writers.get(format).write(image, Channels.newChannel(out));
+            out.close();
+        }// serve ( HttpExchange , Body , Map<String, String> )
+    }// Encode
+
+    /**
+     * Sends back the message hidden in the posted image
+     */
+    private final class Decode extends CodecHandler {
+
+        Decode() {
+            super("decode", decodeLatency);
+        }// Decode()
+
+        @Override
+        void serve(HttpExchange exchange, Body body,
+                Map<String, String> parameters) throws IOException {
+            Alphabet alphabet = alphabet(parameters);
+            ImageInputStream input = body.open();
+            String message;
+            try {
+                message = parameters.containsKey("key")
+                        ? StreamingCodec.decode(input, alphabet, key(parameters))
+                        : StreamingCodec.decode(input, alphabet);
+            } // try
+            catch (StreamingCodec.NoReader e) {
+                throw new UnsupportedImage();
+            } // catch( StreamingCodec.NoReader )
+            if (message == null) {
+                throw new NoMessage();
+            }// if
+            send(exchange, 200, message);
+        }// serve ( HttpExchange , Body , Map<String, String> )
+    }// Decode
+
+    /**
+     * Sends the metrics as plain text
+     */
+    private final class Metrics implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                send(exchange, 200, getMetrics());
+            } finally {
+                exchange.close();
+            }// try, finally
+            count("metrics", 200);
+        }// handle ( HttpExchange )
+    }// Metrics
+
+    /**
+     * A request body, held in memory while it is small and spooled to a
+     * temporary file once it outgrows {@link #MEMORY_BODY}.  The memory
+     * grows as bytes arrive, whatever length the request claimed.
+     */
+    private static final class Body implements Closeable {
+
+        private byte[] memory = new byte[READ_BUFFER];
+        private int size;
+        private long length;
+        /**
+         * The file the body is spooled to, null while it is in memory
+         */
+        private File spool;
+        private OutputStream spooled;
+
+        /**
+         * Appends bytes that have arrived.
+         * @throws IOException If the spool cannot be written or the body
+         *  has grown larger than {@link #MAX_BODY}
+         */
+        void add(byte[] bytes, int count) throws IOException {
+            if (length + count > MAX_BODY) {
+                throw new BodyTooLarge();
+            }// if
+            length += count;
+            if (spool == null && length > MEMORY_BODY) {
+                spool = File.createTempFile("steg-body", null);
+                spooled = new FileOutputStream(spool);
+                spooled.write(memory, 0, size);
+                memory = null;
+            }// if
+            if (spooled != null) {
+                spooled.write(bytes, 0, count);
+                return;
+            }// if
+            if (size + count > memory.length) {
+                memory = Arrays.copyOf(memory,
+                        Math.max(memory.length * 2, size + count));
+            }// if
+            System.arraycopy(bytes, 0, memory, size, count);
+            size += count;
+        }// add ( byte[] , int )
+
+        /**
+         * Finishes writing the spool, once the whole body is in.
+         */
+        void finish() throws IOException {
+            if (spooled != null) {
+                spooled.close();
+                spooled = null;
+            }// if
+        }// finish()
+
+        /**
+         * @return The body as a stream that can seek back, which reads a
+         *  spooled body straight from its file
+         */
+        ImageInputStream open() throws IOException {
+            if (spool != null) {
+                return new FileImageInputStream(spool);
+            }// if
+            return new MemoryCacheImageInputStream(
+                    new ByteArrayInputStream(memory, 0, size));
+        }// open()
+
+        /**
+         * Deletes the spool, if the body was spooled.
+         */
+        @Override
+        public void close() {
+            if (spooled != null) {
+                try {
+                    spooled.close();
+                } // try
+                catch (IOException e) {
+                    // the file is deleted anyway
+                } // catch( IOException )
+                spooled = null;
+            }// if
+            if (spool != null) {
+                spool.delete();
+            }// if
+        }// close()
+    }// Body
+
+    /**
+     * The body is larger than the server accepts
+     */
+    private static final class BodyTooLarge extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLarge() {
+            super("The image is larger than " + MAX_BODY + " bytes");
+        }// BodyTooLarge()
+    }// BodyTooLarge
+
+    /**
+     * The body is not an image any reader understands
+     */
+    private static final class UnsupportedImage extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedImage() {
+            super("The body is not a supported image");
+        }// UnsupportedImage()
+    }// UnsupportedImage
+
+    /**
+     * The image holds no hidden message
+     */
+    private static final class NoMessage extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        NoMessage() {
+            super("The image holds no message");
+        }// NoMessage()
+    }// NoMessage
+}// StegServer
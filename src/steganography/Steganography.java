@@ -1,9 +1,19 @@
 package steganography;
 
+import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
 import java.awt.image.WritableRaster;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -24,9 +34,38 @@ public class Steganography {
      */
     public static final int MESSAGE_MAX = 1000;
     /**
-     * Logger for testing purposes
+     * Pixels at the top left that hold the header, one number from 0 to 999
+     * in each:
+     * <pre>
+     * 0      the message length, less one
+     * 1      MAGIC
+     * 2      VERSION
+     * 3 - 6  CRC32 of the message's digits, three decimal digits at a time,
+     *        lowest first
+     * </pre>
+     * The carriers come after the header.  An image without the magic
+     * number holds no message and is turned away after reading one pixel.
+     */
+    static final int HEADER_PIXELS = 7;
+    static final int MAGIC = 517;
+    static final int VERSION = 2;
+    static final int MAGIC_PIXEL = 1;
+    private static final int VERSION_PIXEL = 2;
+    private static final int CHECKSUM_PIXEL = 3;
+    /**
+     * Logger for testing purposes.  Nothing on the per pixel path logs, and
+     * everything else checks the level first so that nothing is built when
+     * the message would be thrown away.
      */
     private static final Logger logger = Logger.getLogger("Steganography");
+    /**
+     * Totals for every encode and decode
+     */
+    private static final CodecMetrics metrics = new CodecMetrics();
+    /**
+     * Pool that large images are split across, null to work on one thread
+     */
+    private static volatile ForkJoinPool pool;
 
     /**
      * Set Logger level remotely
@@ -35,18 +74,58 @@ public class Steganography {
     public static void setLoggerLevel(Level newLevel) {
         logger.setLevel(newLevel);
     }
+
     /**
-     * The Value of uppercase 'A' in Unicode (Minus 1).  By adding or subtracting this
-     * number we can still use Unicode methods while keeping the final value
-     * between 1 and 26
-     *
-     * Space will be defined as 0
+     * Counters of the work done by every encode and decode so far
+     * @return The metrics shared by the whole codec
      */
-    private static final int UNICODE_CHAR_OFFSET = 9;
+    public static CodecMetrics getMetrics() {
+        return metrics;
+    }// getMetrics()
+
     /**
-     * A variable to represent space that is easier to read than ' '
+     * Sets how many threads encoding and decoding may use.  With more than
+     * one thread the carrier pixels are split into bands of rows that are
+     * worked on at the same time, and large byte payloads into runs of
+     * pixels.  The image produced is exactly the same as with one thread.
+     * @param threads The number of threads, 1 to work on the calling thread
+     *  only
      */
-    private static final char SPACE = ' ';
+    public static synchronized void setParallelism(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread");
+        }// if
+        ForkJoinPool old = pool;
+        pool = threads == 1 ? null : new ForkJoinPool(threads);
+        if (old != null) {
+            old.shutdown();
+        }// if
+    }// setParallelism ( int )
+
+    /**
+     * @return The number of threads encoding and decoding may use
+     */
+    public static int getParallelism() {
+        ForkJoinPool current = pool;
+        return current == null ? 1 : current.getParallelism();
+    }// getParallelism()
+
+    /**
+     * @return The pool set by {@link #setParallelism(int)}, or null if work
+     *  should stay on the calling thread
+     */
+    static ForkJoinPool getPool() {
+        return pool;
+    }// getPool()
+
+    /**
+     * Picks the pool to split a raster across.
+     * @param raster The raster about to be encoded or decoded
+     * @return The pool, or null if the work should stay on this thread
+     */
+    static ForkJoinPool poolFor(CarrierRaster raster) {
+        return raster.supportsParallel() ? pool : null;
+    }// poolFor ( CarrierRaster )
 
     /**
      * Embeds a number from 0 to 999 inside of a pixel
@@ -56,19 +135,17 @@ public class Steganography {
      *  The Hundreds place to the B Value
      * @param num The number to be hidden
      * @param color The color for the number to be hidden in
+     * @param raster The raster the color is from, for its largest samples
      * @return The color with the embedded number
      * @see #retrieveNumber(int[])  For extraction
      */
-    private static int[] embedNumber(int num, int[] color) {
-        color[0] = roundDown(color[0]) + num % 10;
-        logger.log(Level.INFO, "NumIn: {0}", (num % 10));
-        logger.log(Level.INFO, "R Val = {0}", color[0]);
-        color[1] = roundDown(color[1]) + ((num % 100) - num % 10) / 10;
-        logger.log(Level.INFO, "NumIn: {0}", ((num % 100) - num % 10));
-        logger.log(Level.INFO, "G Val = {0}", color[1]);
-        color[2] = roundDown(color[2]) + (num - (num % 100)) / 100;
-        logger.log(Level.INFO, "NumIn: {0}", (num - (num % 100)));
-        logger.log(Level.INFO, "B Val = {0}", color[2]);
+    private static int[] embedNumber(int num, int[] color,
+            CarrierRaster raster) {
+        color[0] = roundDown(color[0], raster.getMaxSample(0)) + num % 10;
+        color[1] = roundDown(color[1], raster.getMaxSample(1))
+                + ((num % 100) - num % 10) / 10;
+        color[2] = roundDown(color[2], raster.getMaxSample(2))
+                + (num - (num % 100)) / 100;
 
         return color;
     }
@@ -82,55 +159,198 @@ public class Steganography {
      */
     private static int retrieveNumber(int[] color) {
         int num = color[0] % 10;
-        logger.log(Level.INFO, "NumOut: {0}", (color[0] % 10));
-        logger.log(Level.INFO, "R Val = {0}", color[0]);
         num += (color[1] % 10) * 10;
-        logger.log(Level.INFO, "NumOut: {0}", ((color[1] % 10) * 10));
-        logger.log(Level.INFO, "G Val = {0}", color[1]);
         num += (color[2] % 10) * 100;
-        logger.log(Level.INFO, "NumOut: {0}", ((color[2] % 10) * 100));
-        logger.log(Level.INFO, "B Val = {0}", color[2]);
 
         return num;
     }// retrieveNumber(int[])
 
     /**
-     * Retrieves the message hidden in the image.
+     * Retrieves the message hidden in the image.  An image without the
+     * header every encoded image starts with is turned away after reading
+     * a single pixel, and the message found is checked against the
+     * checksum in the header.
      * @param toDecode The Image to retrieve the message from
      * @return The hidden message or null if no message found
+     * @throws IllegalArgumentException If the message fails its checksum
      * @see #encodeImage(java.lang.String, java.awt.image.BufferedImage) 
      */
     public static String decodeImage(BufferedImage toDecode) {
-        ArrayList<Character> toReturn = new ArrayList<Character>();
+        return decodeImage(toDecode, Alphabet.LETTERS);
+    }// decodeImage ( BufferedImage )
 
-        Raster raster = toDecode.getRaster();
-        int[] color = new int[3];
+    /**
+     * Retrieves a message that was hidden with a particular alphabet.
+     * @param toDecode The Image to retrieve the message from
+     * @param alphabet The alphabet the message was hidden with
+     * @return The hidden message, or null if the image holds none
+     * @throws IllegalArgumentException If the message fails its checksum
+     * @see #encodeImage(java.lang.String, java.awt.image.BufferedImage, Alphabet)
+     */
+    public static String decodeImage(BufferedImage toDecode,
+            Alphabet alphabet) {
+        return decode(CarrierRaster.wrap(toDecode), alphabet, null, null);
+    }// decodeImage ( BufferedImage , Alphabet )
 
-        raster.getPixel(0, 0, color);
-        int messageLength = retrieveNumber(color) + 1;
+    /**
+     * Retrieves the message hidden in an image returned by
+     * {@link #encodeCopy}, or in any other RenderedImage.
+     * @param toDecode The Image to retrieve the message from
+     * @return The hidden message, or null if the image holds none
+     * @throws IllegalArgumentException If the message fails its checksum
+     * @see #encodeCopy(String, BufferedImage)
+     */
+    public static String decodeImage(RenderedImage toDecode) {
+        return decodeImage(toDecode, Alphabet.LETTERS);
+    }// decodeImage ( RenderedImage )
 
-        int imageWidth = raster.getWidth();
-        int imageHeight = raster.getHeight();
+    /**
+     * Retrieves a message that was hidden with a particular alphabet in an
+     * image returned by {@link #encodeCopy}, or in any other RenderedImage.
+     * Images that are neither are copied whole first.
+     * @param toDecode The Image to retrieve the message from
+     * @param alphabet The alphabet the message was hidden with
+     * @return The hidden message, or null if the image holds none
+     * @throws IllegalArgumentException If the message fails its checksum
+     * @see #encodeCopy(String, BufferedImage, Alphabet)
+     */
+    public static String decodeImage(RenderedImage toDecode,
+            Alphabet alphabet) {
+        return decodeImage(toDecode, alphabet, null);
+    }// decodeImage ( RenderedImage , Alphabet )
 
-        int totalPixels = imageWidth * imageHeight;
+    /**
+     * Retrieves a message, reporting the rows searched for carriers.
+     * @param progress Where to report the rows, or null
+     * @throws java.util.concurrent.CancellationException If the progress is
+     *  cancelled
+     * @see AsyncCodec#decode(RenderedImage, Alphabet, ProgressListener)
+     */
+    static String decodeImage(RenderedImage toDecode, Alphabet alphabet,
+            Progress progress) {
+        return decode(carriersOf(toDecode), alphabet, null, progress);
+    }// decodeImage ( RenderedImage , Alphabet , Progress )
 
-        int toGrab = (totalPixels - 1) / messageLength;
+    /**
+     * Retrieves a message that was hidden with a key, from any image.
+     * Without the same key the characters read are noise, and fail the
+     * checksum.
+     * @param toDecode The Image to retrieve the message from
+     * @param alphabet The alphabet the message was hidden with
+     * @param key The key the message was hidden with
+     * @return The hidden message, or null if the image holds none
+     * @throws IllegalArgumentException If the message fails its checksum
+     * @see #encodeCopy(String, BufferedImage, Alphabet, long)
+     */
+    public static String decodeImage(RenderedImage toDecode,
+            Alphabet alphabet, long key) {
+        CarrierRaster raster = carriersOf(toDecode);
+        return decode(raster, alphabet,
+                new CarrierScatter(key, raster.getPixelCount()), null);
+    }// decodeImage ( RenderedImage , Alphabet , long )
 
-        int counter = toGrab - 1;
+    /**
+     * Checks whether an image holds a message without decoding it, by
+     * reading the header pixels alone.  Only a BufferedImage or
+     * an image returned by {@link #encodeCopy} is read in place; any other
+     * image has just its top rows copied.
+     * @param image The image
+     * @return Whether the image starts with a header of this version whose
+     *  length fits it.  Grey images never do.
+     */
+    public static boolean hasMessage(RenderedImage image) {
+        int width = image.getWidth();
+        long totalPixels = (long) width * image.getHeight();
+        if (totalPixels < HEADER_PIXELS) {
+            return false;
+        } else if (image instanceof BufferedImage
+                || image instanceof EncodedImage) {
+            return hasMessage(carriersOf(image), totalPixels);
+        }// if, else if
+        int rows = Math.min(image.getHeight(),
+                (HEADER_PIXELS + width - 1) / width);
+        WritableRaster top = Raster.createWritableRaster(image.getSampleModel()
+                .createCompatibleSampleModel(width, rows),
+                new Point(image.getMinX(), image.getMinY()));
+        image.copyData(top);
+        return hasMessage(CarrierRaster.wrap(top), totalPixels);
+    }// hasMessage ( RenderedImage )
 
-        logger.log(Level.INFO, "Number coming out: {0}", messageLength);
+    /**
+     * @param raster The image, or at least its header pixels
+     * @param totalPixels The number of pixels in the whole image
+     * @return Whether the header is one a message could have been hidden
+     *  with
+     */
+    private static boolean hasMessage(CarrierRaster raster, long totalPixels) {
+        if (!hasHeader(raster)) {
+            return false;
+        }// if
+        int[] header = new int[HEADER_PIXELS];
+        retrieveHeader(raster, 0, header);
+        return checkHeader(header, totalPixels) >= 0;
+    }// hasMessage ( CarrierRaster , long )
 
-        for (int j = 0; j < raster.getHeight(); j++) {
-            for (int i = 0; i < raster.getWidth(); i++) {
-                if ((counter % toGrab) == 0 && toReturn.size() < messageLength) {
-                    raster.getPixel(i, j, color);
-                    toReturn.add(retrieveChar(color));
-                }//if
-                counter++;
-            }//for
-        }//for
-        return arrayToString(toReturn);
-    }// decodeImage ( BufferedImage )
+    /**
+     * The pixels of an image, copied whole first only if it is neither a
+     * BufferedImage nor an EncodedImage.
+     */
+    private static CarrierRaster carriersOf(RenderedImage image) {
+        if (image instanceof BufferedImage) {
+            return CarrierRaster.wrap((BufferedImage) image);
+        } else if (image instanceof EncodedImage) {
+            return ((EncodedImage) image).getCarrierRaster();
+        }// if, else if
+        return CarrierRaster.wrap(image.copyData(null));
+    }// carriersOf ( RenderedImage )
+
+    /**
+     * Retrieves the message hidden in the pixels of a raster.
+     * @param scatter Where the carriers are, or null for one every so many
+     *  pixels
+     */
+    private static String decode(final CarrierRaster raster,
+            final Alphabet alphabet, CarrierScatter scatter,
+            Progress progress) {
+        long start = System.nanoTime();
+        if (!canHoldDigits(raster) || !hasHeader(raster)) {
+            return null;
+        }// if
+        int[] header = new int[HEADER_PIXELS];
+        retrieveHeader(raster, 0, header);
+        int messageLength = checkHeader(header, raster.getPixelCount());
+        if (messageLength < 0) {
+            return null;
+        }// if
+        final char[] toReturn = new char[messageLength];
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "Number coming out: {0}", messageLength);
+        }// if
+
+        if (scatter != null) {
+            retrieveScattered(raster, toReturn, alphabet, scatter,
+                    poolFor(raster), progress);
+        } else {
+            final int toGrab = carrierSpacing(raster.getPixelCount(),
+                    messageLength);
+
+            //Only the carrier pixels are read, starting past the header
+            ParallelCodec.forEach(poolFor(raster), messageLength,
+                    HEADER_PIXELS, toGrab, raster.getWidth(), raster.getHeight(),
+                    new ParallelCodec.Range() {
+                @Override
+                public void process(int from, int to) {
+                    retrieveChars(raster, toReturn, alphabet,
+                            HEADER_PIXELS + from * toGrab, toGrab, from, to);
+                }// process ( int , int )
+            }, progress);
+        }// if, else
+
+        checkChecksum(header, toReturn, alphabet);
+        recordDecode(messageLength, start);
+        return new String(toReturn);
+    }// decode ( CarrierRaster , Alphabet , CarrierScatter , Progress )
 
     /**
      * Encodes a message inside of an image.
@@ -141,95 +361,743 @@ public class Steganography {
      * - Separated into 3 values 0 - 9, 0 - 9, 0 - 4
      * - Storage Pixels rounded down to 0;
      * - first value added to R and so on.
+     * <br>
+     * The image is changed in place, the same as
+     * {@link #encodeInPlace(String, BufferedImage)}.
      * @param message The message to be encoded
      * @param original The Original image
-     * @return The image with the message encoded.
+     * @throws IllegalArgumentException If the message is empty or too long,
+     *  or the image is grey or indexed
      * @see #decodeImage(java.awt.image.BufferedImage)
+     * @see #encodeCopy(String, BufferedImage)
      */
     public static void encodeImage(String message, BufferedImage original) {
-        ArrayList<Character> messageArray = getUpperCaseArray(message);
+        encodeInPlace(message, original, Alphabet.LETTERS);
+    }// encodeImage ( String , BufferedImage )
 
-        //Raster to change pixels in picture
-        WritableRaster raster = original.getRaster();
+    /**
+     * Encodes a message inside of an image using a particular alphabet.
+     * Characters of the message that are not in the alphabet are left out.
+     * The image is changed in place.
+     * @param message The message to be encoded
+     * @param original The Original image
+     * @param alphabet The characters that can be hidden and how
+     * @throws IllegalArgumentException If the message is empty or too long,
+     *  or the image is grey or indexed
+     * @see #decodeImage(java.awt.image.BufferedImage, Alphabet)
+     * @see #encodeCopy(String, BufferedImage, Alphabet)
+     */
+    public static void encodeImage(String message, BufferedImage original,
+            Alphabet alphabet) {
+        encodeInPlace(message, original, alphabet);
+    }// encodeImage ( String , BufferedImage , Alphabet )
+
+    /**
+     * Encodes a message by changing the carrier pixels of the image itself.
+     * Encoding the same image twice leaves only the second message
+     * readable, but the pixels under the first are not restored.
+     * @param message The message to be encoded
+     * @param original The image, changed in place
+     * @throws IllegalArgumentException If the message is empty or too long,
+     *  or the image is grey or indexed
+     * @see #encodeCopy(String, BufferedImage)
+     */
+    public static void encodeInPlace(String message, BufferedImage original) {
+        encodeInPlace(message, original, Alphabet.LETTERS);
+    }// encodeInPlace ( String , BufferedImage )
+
+    /**
+     * Encodes a message with a particular alphabet by changing the carrier
+     * pixels of the image itself.
+     * @param message The message to be encoded
+     * @param original The image, changed in place
+     * @param alphabet The characters that can be hidden and how
+     * @throws IllegalArgumentException If the message is empty or too long,
+     *  or the image is grey or indexed
+     * @see #encodeCopy(String, BufferedImage, Alphabet)
+     */
+    public static void encodeInPlace(String message, BufferedImage original,
+            Alphabet alphabet) {
+        encode(message, CarrierRaster.wrap(original), alphabet, null, null);
+    }// encodeInPlace ( String , BufferedImage , Alphabet )
+
+    /**
+     * Encodes a message with a key by changing the carrier pixels of the
+     * image itself.  The characters are scattered over the whole image in
+     * an order only the key gives, see
+     * {@link #encodeCopy(String, BufferedImage, Alphabet, long)}.
+     * @param message The message to be encoded
+     * @param original The image, changed in place
+     * @param alphabet The characters that can be hidden and how
+     * @param key The key needed to find the message again
+     * @throws IllegalArgumentException If the message is empty or too long,
+     *  or the image is grey or indexed
+     * @see #decodeImage(RenderedImage, Alphabet, long)
+     */
+    public static void encodeInPlace(String message, BufferedImage original,
+            Alphabet alphabet, long key) {
+        CarrierRaster raster = CarrierRaster.wrap(original);
+        encode(message, raster, alphabet,
+                new CarrierScatter(key, raster.getPixelCount()), null);
+    }// encodeInPlace ( String , BufferedImage , Alphabet , long )
+
+    /**
+     * Encodes a message into a new image, leaving the original alone.  The
+     * new image shares every row without a carrier pixel with the original,
+     * so only a row per character is copied.
+     * @param message The message to be encoded
+     * @param original The image to start from, which is not changed
+     * @return The encoded image
+     * @throws IllegalArgumentException If the message is empty or too long,
+     *  or the image is grey or indexed
+     * @see #decodeImage(RenderedImage)
+     */
+    public static EncodedImage encodeCopy(String message,
+            BufferedImage original) {
+        return encodeCopy(message, original, Alphabet.LETTERS);
+    }// encodeCopy ( String , BufferedImage )
+
+    /**
+     * Encodes a message with a particular alphabet into a new image,
+     * leaving the original alone.
+     * @param message The message to be encoded
+     * @param original The image to start from, which is not changed
+     * @param alphabet The characters that can be hidden and how
+     * @return The encoded image
+     * @throws IllegalArgumentException If the message is empty or too long,
+     *  or the image is grey or indexed
+     * @see #decodeImage(RenderedImage, Alphabet)
+     */
+    public static EncodedImage encodeCopy(String message,
+            BufferedImage original, Alphabet alphabet) {
+        return encodeCopy(message, original, alphabet, null);
+    }// encodeCopy ( String , BufferedImage , Alphabet )
+
+    /**
+     * Encodes a message with a key into a new image, leaving the original
+     * alone.  Instead of one every so many pixels, the characters are
+     * scattered over the whole image in an order only the key gives, and
+     * the pixel of each is worked out directly from its number, so the time
+     * taken depends on the length of the message and not the size of the
+     * image.  The header is still kept in the top left pixels.
+     * @param message The message to be encoded
+     * @param original The image to start from, which is not changed
+     * @param alphabet The characters that can be hidden and how
+     * @param key The key needed to find the message again
+     * @return The encoded image
+     * @throws IllegalArgumentException If the message is empty or too long,
+     *  or the image is grey or indexed
+     * @see #decodeImage(RenderedImage, Alphabet, long)
+     */
+    public static EncodedImage encodeCopy(String message,
+            BufferedImage original, Alphabet alphabet, long key) {
+        EncodedImage toReturn = new EncodedImage(original);
+        CarrierRaster raster = toReturn.getCarrierRaster();
+        encode(message, raster, alphabet,
+                new CarrierScatter(key, raster.getPixelCount()), null);
+        return toReturn;
+    }// encodeCopy ( String , BufferedImage , Alphabet , long )
+
+    /**
+     * Encodes a message into a new image, reporting the rows searched for
+     * carriers.  Cancelling only ever leaves the new image half done.
+     * @param progress Where to report the rows, or null
+     * @throws java.util.concurrent.CancellationException If the progress is
+     *  cancelled
+     * @see AsyncCodec#encodeCopy(String, BufferedImage, Alphabet,
+     *  ProgressListener)
+     */
+    static EncodedImage encodeCopy(String message, BufferedImage original,
+            Alphabet alphabet, Progress progress) {
+        EncodedImage toReturn = new EncodedImage(original);
+        encode(message, toReturn.getCarrierRaster(), alphabet, null, progress);
+        return toReturn;
+    }// encodeCopy ( String , BufferedImage , Alphabet , Progress )
+
+    /**
+     * Hides a message in the pixels of a raster.
+     * @param scatter Where the carriers go, or null for one every so many
+     *  pixels
+     */
+    private static void encode(String message, final CarrierRaster raster,
+            final Alphabet alphabet, CarrierScatter scatter,
+            Progress progress) {
+        long start = System.nanoTime();
+        checkCarriers(raster);
+        final char[] messageArray = alphabet.filter(message);
 
         //Length of message being written
-        int messageLength = messageArray.size();
+        int messageLength = messageArray.length;
+        checkLength(messageLength, raster.getPixelCount());
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "Number going in: {0}", messageLength);
+        }// if
+
+        //First Hide Message size and checksum
+        hideHeader(raster, 0, header(messageArray, alphabet));
+
+        if (scatter != null) {
+            hideScattered(raster, messageArray, alphabet, scatter,
+                    poolFor(raster), progress);
+        } else {
+            final int toPlace = carrierSpacing(raster.getPixelCount(),
+                    messageLength);
+
+            //Only the carrier pixels are touched, every other pixel is left alone
+            ParallelCodec.forEach(poolFor(raster), messageLength,
+                    HEADER_PIXELS, toPlace, raster.getWidth(), raster.getHeight(),
+                    new ParallelCodec.Range() {
+                @Override
+                public void process(int from, int to) {
+                    hideChars(raster, messageArray, alphabet,
+                            HEADER_PIXELS + from * toPlace, toPlace, from, to);
+                }// process ( int , int )
+            }, progress);
+        }// if, else
+
+        recordEncode(messageLength, start);
+    }// encode ( String , CarrierRaster , Alphabet , CarrierScatter , Progress )
+
+    /**
+     * Hides raw bytes in the low bits of every colour sample of an image.
+     * This holds far more than {@link #encodeImage(String, BufferedImage)},
+     * up to bitsPerSample bits in each of R, G and B of every pixel, but
+     * cannot be read by {@link #decodeImage(BufferedImage)}.
+     * @param data The bytes to hide
+     * @param original The image to hide them in, changed in place
+     * @param bitsPerSample How many low bits of each sample to use, 1 to 8.
+     *  Each extra bit doubles the capacity and the visible noise.
+     * @throws IllegalArgumentException If the bytes do not fit
+     * @see #decodeBytes(BufferedImage)
+     * @see #getByteCapacity(BufferedImage, int)
+     */
+    public static void encodeBytes(byte[] data, BufferedImage original,
+            int bitsPerSample) {
+        BitPlaneCodec.encode(CarrierRaster.wrap(original), data,
+                bitsPerSample);
+    }// encodeBytes ( byte[] , BufferedImage , int )
+
+    /**
+     * Hides raw bytes as {@link #encodeBytes(byte[], BufferedImage, int)}
+     * does, deflating them first if asked.  Compressible bytes such as text
+     * then take fewer samples, so more fit and fewer pixels are changed.
+     * {@link #decodeBytes(BufferedImage)} inflates them again.
+     * @param data The bytes to hide
+     * @param original The image to hide them in, changed in place
+     * @param bitsPerSample How many low bits of each sample to use, 1 to 8
+     * @param deflate Whether to compress the bytes
+     * @throws IllegalArgumentException If the bytes do not fit, after
+     *  compressing them if asked
+     */
+    public static void encodeBytes(byte[] data, BufferedImage original,
+            int bitsPerSample, boolean deflate) {
+        encodeBytes(ByteBuffer.wrap(data), original, bitsPerSample, deflate);
+    }// encodeBytes ( byte[] , BufferedImage , int , boolean )
+
+    /**
+     * Hides the bytes left in a buffer as
+     * {@link #encodeBytes(byte[], BufferedImage, int, boolean)} does,
+     * copying them a small block at a time, so a direct or mapped buffer is
+     * never copied whole onto the heap.  The buffer's position is moved to
+     * its limit.
+     * @param data The bytes to hide
+     * @param original The image to hide them in, changed in place
+     * @param bitsPerSample How many low bits of each sample to use, 1 to 8
+     * @param deflate Whether to compress the bytes
+     * @throws IllegalArgumentException If the bytes do not fit, after
+     *  compressing them if asked.  The image is not changed.
+     */
+    public static void encodeBytes(ByteBuffer data, BufferedImage original,
+            int bitsPerSample, boolean deflate) {
+        BitPlaneCodec.encode(CarrierRaster.wrap(original), data,
+                bitsPerSample, deflate);
+    }// encodeBytes ( ByteBuffer , BufferedImage , int , boolean )
+
+    /**
+     * Hides the bytes of a stream as they are read, holding only a small
+     * block of them at a time, so the stream can be far larger than memory
+     * as long as the image has room.  The length is not known until the
+     * end, so it is written last and always takes its largest size in the
+     * header.  {@link #decodeBytes(BufferedImage)} and
+     * {@link #decodeBytes(BufferedImage, OutputStream)} read the result.
+     * @param in The bytes to hide, read to the end and not closed
+     * @param original The image to hide them in, changed in place
+     * @param bitsPerSample How many low bits of each sample to use, 1 to 8
+     * @param deflate Whether to compress the bytes
+     * @return The number of bytes read from the stream
+     * @throws IOException If the stream cannot be read
+     * @throws IllegalArgumentException If the bytes do not fit.  Only then
+     *  is it found out, so the image is left changed but holding nothing.
+     */
+    public static long encodeBytes(InputStream in, BufferedImage original,
+            int bitsPerSample, boolean deflate) throws IOException {
+        return BitPlaneCodec.encode(CarrierRaster.wrap(original), in,
+                bitsPerSample, deflate, -1);
+    }// encodeBytes ( InputStream , BufferedImage , int , boolean )
+
+    /**
+     * Hides text of any length and any characters, compressed, in the low
+     * bits of every colour sample.  Unlike
+     * {@link #encodeImage(String, BufferedImage)} nothing is dropped and
+     * the text takes well under a pixel a character.
+     * @param text The text to hide
+     * @param original The image to hide it in, changed in place
+     * @param bitsPerSample How many low bits of each sample to use, 1 to 8
+     * @throws IllegalArgumentException If the text does not fit
+     * @see #decodeText(BufferedImage)
+     */
+    public static void encodeText(String text, BufferedImage original,
+            int bitsPerSample) {
+        encodeBytes(text.getBytes(StandardCharsets.UTF_8), original,
+                bitsPerSample, true);
+    }// encodeText ( String , BufferedImage , int )
 
-        //Image dimmensions
-        int imageWidth = raster.getWidth();
-        int imageHeight = raster.getHeight();
+    /**
+     * Retrieves the text hidden by {@link #encodeText}.
+     * @param toDecode The image holding the text
+     * @return The hidden text
+     * @throws IllegalArgumentException If the image holds no hidden bytes
+     * @see #encodeText(String, BufferedImage, int)
+     */
+    public static String decodeText(BufferedImage toDecode) {
+        return new String(decodeBytes(toDecode), StandardCharsets.UTF_8);
+    }// decodeText ( BufferedImage )
 
-        int totalPixels = imageWidth * imageHeight;
+    /**
+     * Retrieves the bytes hidden by {@link #encodeBytes}, inflated if they
+     * were deflated.
+     * @param toDecode The image holding the bytes
+     * @return The hidden bytes
+     * @throws IllegalArgumentException If the image holds no hidden bytes
+     * @see #encodeBytes(byte[], BufferedImage, int)
+     */
+    public static byte[] decodeBytes(BufferedImage toDecode) {
+        return BitPlaneCodec.decode(CarrierRaster.wrap(toDecode));
+    }// decodeBytes ( BufferedImage )
 
-        int toPlace = (totalPixels - 1) / messageLength;
+    /**
+     * Writes the bytes hidden by {@link #encodeBytes} to a stream as they
+     * are read from the image, holding only a small block of them at a
+     * time.  The checksum covers them all, so it is checked only once every
+     * byte has been written; a caller that must not act on damaged bytes
+     * should wait for this to return before using them.
+     * @param toDecode The image holding the bytes
+     * @param out Where to write them, which is not closed
+     * @return The number of bytes written
+     * @throws IOException If the stream cannot be written
+     * @throws IllegalArgumentException If the image holds no hidden bytes,
+     *  or they fail their checksum
+     */
+    public static long decodeBytes(BufferedImage toDecode, OutputStream out)
+            throws IOException {
+        return BitPlaneCodec.decode(CarrierRaster.wrap(toDecode), out);
+    }// decodeBytes ( BufferedImage , OutputStream )
 
+    /**
+     * Writes the bytes hidden by {@link #encodeBytes} to a channel, as
+     * {@link #decodeBytes(BufferedImage, OutputStream)} does.
+     * @param toDecode The image holding the bytes
+     * @param out Where to write them, which is not closed
+     * @return The number of bytes written
+     * @throws IOException If the channel cannot be written
+     * @throws IllegalArgumentException If the image holds no hidden bytes,
+     *  or they fail their checksum
+     */
+    public static long decodeBytes(BufferedImage toDecode,
+            WritableByteChannel out) throws IOException {
+        return decodeBytes(toDecode, Channels.newOutputStream(out));
+    }// decodeBytes ( BufferedImage , WritableByteChannel )
+
+    /**
+     * Works out how many bytes {@link #encodeBytes} can hide in an image.
+     * @param image The image
+     * @param bitsPerSample How many low bits of each sample to use, 1 to 8
+     * @return The largest number of bytes that fit
+     */
+    public static int getByteCapacity(BufferedImage image, int bitsPerSample) {
+        return Capacity.of(image).getBytes(bitsPerSample);
+    }// getByteCapacity ( BufferedImage , int )
+
+    /**
+     * Makes sure characters can be hidden in the pixels of a raster, which
+     * takes a digit in each of R, G and B.
+     * @param raster The image's pixels
+     * @throws IllegalArgumentException If the raster is grey, is indexed or
+     *  has samples of fewer than eight bits, whose digits would not survive
+     *  the image being saved
+     * @see Capacity#getCharacters()
+     */
+    static void checkCarriers(CarrierRaster raster) {
+        if (raster.getSamples() < 3) {
+            throw new IllegalArgumentException(
+                    "Grey images cannot hold characters, convert to RGB first");
+        }// if
+        if (!raster.isWritable()) {
+            throw new IllegalArgumentException(
+                    "Indexed images cannot be written, convert to RGB first");
+        }// if
+        for (int b = 0; b < 3; b++) {
+            int bits = 32
+                    - Integer.numberOfLeadingZeros(raster.getMaxSample(b));
+            if (bits < Capacity.CHARACTER_SAMPLE_BITS) {
+                throw new IllegalArgumentException("Samples of " + bits
+                        + " bits lose their digits when saved, convert to"
+                        + " 24-bit RGB first");
+            }// if
+        }// for
+    }// checkCarriers ( CarrierRaster )
+
+    /**
+     * Whether the pixels of a raster could hold characters at all.  Those
+     * that cannot hold no message, so decoding them finds none.
+     * @param raster The image's pixels
+     * @return False if the raster is grey or has samples too small for a
+     *  digit
+     */
+    static boolean canHoldDigits(CarrierRaster raster) {
+        if (raster.getSamples() < 3) {
+            return false;
+        }// if
+        for (int b = 0; b < 3; b++) {
+            if (raster.getMaxSample(b) < 9) {
+                return false;
+            }// if
+        }// for
+        return true;
+    }// canHoldDigits ( CarrierRaster )
+
+    /**
+     * Makes sure a message can be hidden before any pixel is changed.
+     * @param messageLength The number of characters left after filtering
+     * @param totalPixels The number of pixels in the image
+     * @throws IllegalArgumentException If the message is empty or too long
+     * @see Capacity#getCharacters()
+     */
+    static void checkLength(int messageLength, long totalPixels) {
+        if (messageLength == 0) {
+            throw new IllegalArgumentException(
+                    "The message has no characters the alphabet can hide");
+        }// if
+        int capacity = Capacity.characters(totalPixels);
+        if (messageLength > capacity) {
+            throw new IllegalArgumentException(messageLength
+                    + " characters do not fit, the image holds " + capacity);
+        }// if
+    }// checkLength ( int , long )
+
+    /**
+     * Finds the number of pixels between two characters.  Characters are
+     * spread out every spacing pixels starting just past the header.
+     * @param totalPixels The number of pixels in the image
+     * @param messageLength The number of characters hidden
+     * @return The spacing between the characters' pixels
+     */
+    static int carrierSpacing(long totalPixels, int messageLength) {
+        return (int) ((totalPixels - HEADER_PIXELS) / messageLength);
+    }// carrierSpacing ( long , int )
+
+    /**
+     * Finds the first carrier whose pixel is at or after a pixel index.
+     * @param pixel The index of a pixel
+     * @param first The index of carrier 0
+     * @param spacing The number of pixels between two carriers
+     * @param carriers The number of carriers
+     * @return The number of that carrier, or carriers if there is none
+     */
+    static int carrierAtOrAfter(long pixel, int first, int spacing,
+            int carriers) {
+        if (pixel <= first) {
+            return 0;
+        }// if
+        long n = (pixel - first + spacing - 1) / spacing;
+        return (int) Math.min(n, carriers);
+    }// carrierAtOrAfter ( long , int , int , int )
+
+    /**
+     * Works out the header for a message, see {@link #HEADER_PIXELS}.
+     * The length is stored less one, which allows the message to be 1000
+     * characters long, it cannot be 0.
+     * @param message The characters to be hidden
+     * @param alphabet The alphabet they will be hidden with
+     * @return The number for each header pixel
+     */
+    static int[] header(char[] message, Alphabet alphabet) {
+        long checksum = checksum(message, alphabet);
+        int[] toReturn = new int[HEADER_PIXELS];
+        toReturn[0] = message.length - 1;
+        toReturn[MAGIC_PIXEL] = MAGIC;
+        toReturn[VERSION_PIXEL] = VERSION;
+        for (int i = CHECKSUM_PIXEL; i < HEADER_PIXELS; i++) {
+            toReturn[i] = (int) (checksum % 1000);
+            checksum /= 1000;
+        }// for
+        return toReturn;
+    }// header ( char[] , Alphabet )
+
+    /**
+     * The CRC32 of a message as it decodes, two bytes a character.  Each
+     * character is put through its digits and back first, so a character
+     * the alphabet folds, such as lower case, sums the same before hiding as
+     * after, while another alphabet decodes other characters.
+     */
+    private static long checksum(char[] message, Alphabet alphabet) {
+        CRC32 crc = new CRC32();
+        for (char c : message) {
+            char decoded = c;
+            if (alphabet.contains(c)) {
+                int digits = alphabet.digitsOf(c);
+                decoded = alphabet.charOf(digits & 0xF, digits >>> 4 & 0xF,
+                        digits >>> 8 & 0xF);
+            }// if
+            crc.update(decoded >>> 8);
+            crc.update(decoded);
+        }// for
+        return crc.getValue();
+    }// checksum ( char[] , Alphabet )
+
+    /**
+     * Hides the header pixels that fall inside a raster.
+     * @param raster The image, or a strip of it
+     * @param top The index in the image of the raster's first pixel
+     * @param header The number for each header pixel
+     */
+    static void hideHeader(CarrierRaster raster, long top, int[] header) {
         int[] color = new int[3];
+        long end = Math.min(HEADER_PIXELS, top + raster.getPixelCount());
+        for (long i = Math.max(0, top); i < end; i++) {
+            raster.getPixel((int) (i - top), color);
+            embedNumber(header[(int) i], color, raster);
+            raster.setPixel((int) (i - top), color);
+        }// for
+    }// hideHeader ( CarrierRaster , long , int[] )
 
+    /**
+     * Retrieves the header pixels that fall inside a raster.
+     * @param raster The image, or a strip of it
+     * @param top The index in the image of the raster's first pixel
+     * @param header Where the number of each header pixel goes
+     */
+    static void retrieveHeader(CarrierRaster raster, long top, int[] header) {
+        int[] color = new int[3];
+        long end = Math.min(HEADER_PIXELS, top + raster.getPixelCount());
+        for (long i = Math.max(0, top); i < end; i++) {
+            raster.getPixel((int) (i - top), color);
+            header[(int) i] = retrieveNumber(color);
+        }// for
+    }// retrieveHeader ( CarrierRaster , long , int[] )
+
+    /**
+     * Looks for the magic number, reading only the pixel that holds it.
+     * @param raster The image
+     * @return Whether the image has a header
+     */
+    static boolean hasHeader(CarrierRaster raster) {
+        if (raster.getSamples() < 3
+                || raster.getPixelCount() < HEADER_PIXELS) {
+            return false;
+        }// if
+        int[] color = new int[3];
+        raster.getPixel(MAGIC_PIXEL, color);
+        return retrieveNumber(color) == MAGIC;
+    }// hasHeader ( CarrierRaster )
 
-        logger.log(Level.INFO, "Number going in: {0}", messageLength);
+    /**
+     * Checks the header of an image that has the magic number.  About one
+     * image in a thousand has it by chance, and the version and length
+     * then almost never fit, so a header that fails either is taken to be
+     * no header at all.
+     * @param header The number of each header pixel
+     * @param totalPixels The number of pixels in the image
+     * @return The number of characters hidden, or -1 if the header is not
+     *  one of this version or its length does not fit the image
+     */
+    static int checkHeader(int[] header, long totalPixels) {
+        if (header[VERSION_PIXEL] != VERSION) {
+            return -1;
+        }// if
+        int toReturn = headerLength(header);
+        if (toReturn > Capacity.characters(totalPixels)) {
+            return -1;
+        }// if
+        return toReturn;
+    }// checkHeader ( int[] , long )
 
-        //First Hide Message size
-        //The -1 Allows message to be 1000 characters long.  Cannot be 0
-        raster.getPixel(0, 0, color);
-        color = embedNumber(messageLength - 1, color);
-        raster.setPixel(0, 0, color);
+    /**
+     * Checks a decoded message against the checksum in its header.
+     * @param header The number of each header pixel
+     * @param message The characters decoded
+     * @param alphabet The alphabet they were decoded with
+     * @throws IllegalArgumentException If the sums differ, because the image
+     *  was changed or the alphabet or key are not the ones it was hidden
+     *  with
+     */
+    static void checkChecksum(int[] header, char[] message, Alphabet alphabet) {
+        if (checksum(message, alphabet) != headerChecksum(header)) {
+            throw new IllegalArgumentException("The message fails its checksum,"
+                    + " check the alphabet and key");
+        }// if
+    }// checkChecksum ( int[] , char[] , Alphabet )
 
-        int counter = toPlace - 1;
+    /**
+     * @param header The number of each header pixel
+     * @return The length of the message the header is for
+     */
+    static int headerLength(int[] header) {
+        return header[0] + 1;
+    }// headerLength ( int[] )
 
-        for (int j = 0; j < raster.getHeight(); j++) {
-            for (int i = 0; i < raster.getWidth(); i++) {
-                raster.getPixel(i, j, color);
+    /**
+     * @param header The number of each header pixel
+     * @return The CRC32 of the message the header is for
+     */
+    static long headerChecksum(int[] header) {
+        long toReturn = 0;
+        for (int i = HEADER_PIXELS - 1; i >= CHECKSUM_PIXEL; i--) {
+            toReturn = toReturn * 1000 + header[i];
+        }// for
+        return toReturn;
+    }// headerChecksum ( int[] )
 
-                if ((counter % toPlace) == 0 && messageArray.size() > 0) {
-                    hideChar(color, messageArray.get(0));
-                    messageArray.remove(0);
-                }
+    /**
+     * Hides a run of characters in their carrier pixels.
+     * @param raster The image, or a strip of it
+     * @param message Every character of the message
+     * @param alphabet The alphabet to hide the characters with
+     * @param index The index in raster of the pixel for character from
+     * @param spacing The number of pixels between two characters
+     * @param from The first character to hide
+     * @param to One past the last character to hide
+     */
+    static void hideChars(CarrierRaster raster, char[] message,
+            Alphabet alphabet, int index, int spacing, int from, int to) {
+        int[] color = new int[3];
+        for (int i = from; i < to; i++) {
+            raster.getPixel(index, color);
+            hideChar(color, alphabet.digitsOf(message[i]), raster);
+            raster.setPixel(index, color);
+            index += spacing;
+        }//for
+    }// hideChars ( CarrierRaster , char[] , Alphabet , int , int , int , int )
 
-                raster.setPixel(i, j, color);
-                counter++;
-            }//for
+    /**
+     * Retrieves a run of characters from their carrier pixels.
+     * @param raster The image, or a strip of it
+     * @param message Where the characters are placed
+     * @param alphabet The alphabet the characters were hidden with
+     * @param index The index in raster of the pixel for character from
+     * @param spacing The number of pixels between two characters
+     * @param from The first character to retrieve
+     * @param to One past the last character to retrieve
+     */
+    static void retrieveChars(CarrierRaster raster, char[] message,
+            Alphabet alphabet, int index, int spacing, int from, int to) {
+        int[] color = new int[3];
+        for (int i = from; i < to; i++) {
+            raster.getPixel(index, color);
+            message[i] = retrieveChar(color, alphabet);
+            index += spacing;
         }//for
-    }// encodeImage ( String , BufferedImage )
+    }// retrieveChars ( CarrierRaster , char[] , Alphabet , int , int , int , int )
 
     /**
-     * Converts an arrayList of Characters to a more meaningful String
-     * @param array - An Array of Characters
-     * @return A string of all the characters in the array
+     * Hides every character of a message in the pixels a scatter gives.
+     * @param raster The image
+     * @param message Every character of the message
+     * @param alphabet The alphabet to hide the characters with
+     * @param scatter Where each character goes
+     * @param pool The pool to share the characters out on, or null
+     * @param progress Where to report the rows, or null
      */
-    private static String arrayToString(ArrayList<Character> array) {
-        String toReturn = "";
+    static void hideScattered(final CarrierRaster raster, final char[] message,
+            final Alphabet alphabet, final CarrierScatter scatter,
+            ForkJoinPool pool, Progress progress) {
+        ParallelCodec.forEachScattered(pool, message.length, raster.getHeight(),
+                new ParallelCodec.Range() {
+            @Override
+            public void process(int from, int to) {
+                int[] color = new int[3];
+                for (int i = from; i < to; i++) {
+                    int index = scatter.carrier(i);
+                    raster.getPixel(index, color);
+                    hideChar(color, alphabet.digitsOf(message[i]), raster);
+                    raster.setPixel(index, color);
+                }// for
+            }// process ( int , int )
+        }, progress);
+    }// hideScattered ( CarrierRaster , char[] , Alphabet , CarrierScatter , ForkJoinPool , Progress )
 
-        for (Character c : array) {
-            toReturn += c;
-        }
+    /**
+     * Retrieves every character of a message from the pixels a scatter
+     * gives.
+     * @param raster The image
+     * @param message Where the characters are placed
+     * @param alphabet The alphabet the characters were hidden with
+     * @param scatter Where each character is
+     * @param pool The pool to share the characters out on, or null
+     * @param progress Where to report the rows, or null
+     */
+    static void retrieveScattered(final CarrierRaster raster,
+            final char[] message, final Alphabet alphabet,
+            final CarrierScatter scatter, ForkJoinPool pool,
+            Progress progress) {
+        ParallelCodec.forEachScattered(pool, message.length, raster.getHeight(),
+                new ParallelCodec.Range() {
+            @Override
+            public void process(int from, int to) {
+                int[] color = new int[3];
+                for (int i = from; i < to; i++) {
+                    raster.getPixel(scatter.carrier(i), color);
+                    message[i] = retrieveChar(color, alphabet);
+                }// for
+            }// process ( int , int )
+        }, progress);
+    }// retrieveScattered ( CarrierRaster , char[] , Alphabet , CarrierScatter , ForkJoinPool , Progress )
 
-        return toReturn;
-    }// arrayToString(ArrayList<Character>)
+    /**
+     * Records a finished encode in the shared metrics.
+     */
+    static void recordEncode(int messageLength, long start) {
+        metrics.recordEncode(messageLength + HEADER_PIXELS, messageLength,
+                System.nanoTime() - start);
+    }// recordEncode ( int , long )
+
+    /**
+     * Records a finished decode in the shared metrics.
+     */
+    static void recordDecode(int messageLength, long start) {
+        metrics.recordDecode(messageLength + HEADER_PIXELS, messageLength,
+                System.nanoTime() - start);
+    }// recordDecode ( int , long )
+
+    /**
+     * Records a finished encode of raw bytes in the shared metrics.
+     */
+    static void recordByteEncode(long pixels, long bytes, long start) {
+        metrics.recordByteEncode(pixels, bytes, System.nanoTime() - start);
+    }// recordByteEncode ( long , long , long )
 
     /**
-     * Rounds down the number so that the last digit is a zero
+     * Records a finished decode of raw bytes in the shared metrics.
+     */
+    static void recordByteDecode(long pixels, long bytes, long start) {
+        metrics.recordByteDecode(pixels, bytes, System.nanoTime() - start);
+    }// recordByteDecode ( long , long , long )
+
+    /**
+     * Rounds down the number so that the last digit is a zero, and far
+     * enough that any digit can still be added without going past max
      * @param num The number to round down
+     * @param max The largest value the sample can hold
      * @return The number modified so the last digit is a zero
      */
-    private static int roundDown(int num) {
-        if (num > 250) {
+    private static int roundDown(int num, int max) {
+        num -= num % 10;
+        if (num + 9 > max) {
             num -= 10;
         }// if
-        return num - (num % 10);
-    } // roundDown ( int )
-
-    private static ArrayList<Character> getUpperCaseArray(String input) {
-        char[] temp = input.toCharArray();
-        ArrayList<Character> toReturn = new ArrayList<Character>();
-        for (char c : temp) {
-            if (Character.isLetter(c) || c == SPACE) {
-                c = Character.toLowerCase(c);
-                toReturn.add(c);
-            }// if
-        }// for
-
-        return toReturn;
-    }// getUpperCaseArray ( String )
+        return num;
+    } // roundDown ( int , int )
 
     /**
      * Hides a character in a pixel by placing portions of its value in
@@ -238,129 +1106,28 @@ public class Steganography {
      * Characters hidden by rounding down the value to 0 and adding the portion
      * of the value.
      * @param color - Color to hide the character in
-     * @param c - Character to hide
+     * @param digits - The character's digits from {@link Alphabet#digitsOf}
+     * @param raster - The raster the color is from, for its largest samples
      * @return - The color modified with the hidden character
      */
-    private static int[] hideChar(int[] color, Character c) {
-        int charVal;
-
-        if (Character.getNumericValue(c) == -1) {
-            charVal = 0;
-        } else {
-            charVal = Character.getNumericValue(c) - UNICODE_CHAR_OFFSET;
-        }
-
-        int[] temp = separateCharVal(charVal);
-
-        color[0] = roundDown(color[0]) + temp[0];
-        color[1] = roundDown(color[1]) + temp[1];
-        color[2] = roundDown(color[2]) + temp[2];
+    private static int[] hideChar(int[] color, int digits,
+            CarrierRaster raster) {
+        color[0] = roundDown(color[0], raster.getMaxSample(0)) + (digits & 0xF);
+        color[1] = roundDown(color[1], raster.getMaxSample(1))
+                + (digits >> 4 & 0xF);
+        color[2] = roundDown(color[2], raster.getMaxSample(2)) + (digits >> 8);
 
         return color;
-    }// hideChar (int[] , Character )
+    }// hideChar (int[] , int , CarrierRaster )
 
     /**
      * Retrieves the character hidden in a pixel
      * @param color The color with hidden character
+     * @param alphabet The alphabet the character was hidden with
      * @return The hidden character
      */
-    private static char retrieveChar(int[] color) {
-        int charVal = 0;
-        charVal += color[0] % 10;
-        charVal += color[1] % 10;
-        charVal += color[2] % 10;
-
-        return getChar(charVal);
-    }// retrieveChar
-
-    /**
-     * Creates an array of three integer values that allow a character
-     * to be hidden in a pixel's RBG Value
-     * @param charVal The Value to be split
-     * @return An array of three integers that is charvalue separated
-     * @see #hideChar
-     */
-    private static int[] separateCharVal(int charVal) {
-        int[] toReturn = {0, 0, 0};
-
-        if (charVal > 9) {
-            toReturn[0] = 9;
-            charVal -= 9;
-        }// if
-        if (charVal > 9) {
-            toReturn[1] = 9;
-            charVal -= 9;
-        }// if
-
-        toReturn[2] = charVal;
-        return toReturn;
-    }// separateCharVal( int )
-
-    /**
-     * Gets the character based on an integer value (0-25) (A-Z)
-     * //TODO There has to be a better way of doing this
-     * @param value The value representing an uppercase number
-     * @return The Character
-     */
-    private static char getChar(int value) {
-        switch (value) {
-            case 0:
-                return SPACE;
-            case 1:
-                return 'A';
-            case 2:
-                return 'B';
-            case 3:
-                return 'C';
-            case 4:
-                return 'D';
-            case 5:
-                return 'E';
-            case 6:
-                return 'F';
-            case 7:
-                return 'G';
-            case 8:
-                return 'H';
-            case 9:
-                return 'I';
-            case 10:
-                return 'J';
-            case 11:
-                return 'K';
-            case 12:
-                return 'L';
-            case 13:
-                return 'M';
-            case 14:
-                return 'N';
-            case 15:
-                return 'O';
-            case 16:
-                return 'P';
-            case 17:
-                return 'Q';
-            case 18:
-                return 'R';
-            case 19:
-                return 'S';
-            case 20:
-                return 'T';
-            case 21:
-                return 'U';
-            case 22:
-                return 'V';
-            case 23:
-                return 'W';
-            case 24:
-                return 'X';
-            case 25:
-                return 'Y';
-            case 26:
-                return 'Z';
-            default:
-                return ' ';
-        }// switch
-    }// getChar ( int )
+    private static char retrieveChar(int[] color, Alphabet alphabet) {
+        return alphabet.charOf(color[0] % 10, color[1] % 10, color[2] % 10);
+    }// retrieveChar ( int[] , Alphabet )
 }// Steganography
 
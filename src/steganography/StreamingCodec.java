@@ -0,0 +1,492 @@
+package steganography;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.zip.Deflater;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Encodes and decodes image files a strip of rows at a time, for images too
+ * large to be held in memory.  Memory use depends on the width of the image
+ * and the strip size, never on its height.
+ * <br>
+ * The hidden message is laid out exactly as by
+ * {@link Steganography#encodeImage(String, java.awt.image.BufferedImage)},
+ * so either side can read what the other wrote.  Encoding copies every
+ * strip to the output, but only the strips that hold a carrier pixel are
+ * changed.  Decoding reads only the carrier pixels when the format allows
+ * it, see {@link FileRaster}, and otherwise stops reading as soon as the
+ * last carrier is found.
+ * <br>
+ * A message hidden with a key is read with
+ * {@link #decode(ImageInputStream, Alphabet, long)}, which needs a format it
+ * can read pixels of in any order, or reads the image whole.  Files are
+ * only encoded the plain way, one carrier every so many pixels.
+ * <br>
+ * The output is always a PNG, written as the strips come in.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public class StreamingCodec {
+
+    /**
+     * Default amount of memory for a single strip
+     */
+    public static final long DEFAULT_STRIP_BYTES = 8L << 20;
+    /**
+     * Strip size when only the header is wanted, a row for most images
+     */
+    private static final long HEADER_STRIP_BYTES =
+            Steganography.HEADER_PIXELS * 4;
+
+    private StreamingCodec() {
+    }// StreamingCodec()
+
+    /**
+     * Hides a message in an image file, writing the result as a PNG.
+     * @param message The message to hide
+     * @param input The image to hide it in
+     * @param output Where to write the encoded PNG
+     * @throws IOException If either file cannot be read or written
+     * @throws IllegalArgumentException If the message is empty or too long
+     * @see #decode(File)
+     */
+    public static void encode(String message, File input, File output)
+            throws IOException {
+        encode(message, input, output, Alphabet.LETTERS, DEFAULT_STRIP_BYTES);
+    }// encode ( String , File , File )
+
+    /**
+     * Hides a message in an image file, writing the result as a PNG.
+     * @param message The message to hide
+     * @param input The image to hide it in
+     * @param output Where to write the encoded PNG
+     * @param alphabet The characters that can be hidden and how
+     * @param stripBytes Roughly how much memory a strip may take
+     * @throws IOException If either file cannot be read or written
+     * @throws IllegalArgumentException If the message is empty or too long
+     * @see #decode(File, Alphabet, long)
+     */
+    public static void encode(String message, File input, File output,
+            Alphabet alphabet, long stripBytes) throws IOException {
+        long start = System.nanoTime();
+        char[] chars = alphabet.filter(message);
+        int messageLength = chars.length;
+
+        StripSource source = StripSource.open(input, stripBytes);
+        try {
+            int width = source.getWidth();
+            long totalPixels = (long) width * source.getHeight();
+            Steganography.checkLength(messageLength, totalPixels);
+            int spacing = Steganography.carrierSpacing(totalPixels, messageLength);
+            int first = Steganography.HEADER_PIXELS;
+            int[] header = Steganography.header(chars, alphabet);
+
+            PngStripWriter writer = new PngStripWriter(
+                    new BufferedOutputStream(new FileOutputStream(output)),
+                    width, source.getHeight(), source.hasAlpha(),
+                    Deflater.DEFAULT_COMPRESSION);
+            try {
+                while (source.hasNext()) {
+                    long top = (long) source.getRow() * width;
+                    WritableRaster strip = source.next();
+                    long bottom = top + (long) width * strip.getHeight();
+
+                    CarrierRaster carrier = CarrierRaster.wrap(strip);
+                    Steganography.hideHeader(carrier, top, header);
+
+                    int from = Steganography.carrierAtOrAfter(top, first,
+                            spacing, messageLength);
+                    int to = Steganography.carrierAtOrAfter(bottom, first,
+                            spacing, messageLength);
+                    if (from < to) {
+                        Steganography.hideChars(carrier, chars, alphabet,
+                                (int) (first + (long) from * spacing - top),
+                                spacing, from, to);
+                    }// if
+
+                    writer.write(strip);
+                }// while
+            } // try
+            catch (Throwable e) {
+                abandon(writer, output, e);
+                throw e;
+            } // catch( Throwable )
+            writer.close();
+        } finally {
+            source.close();
+        }// try, finally
+
+        Steganography.recordEncode(messageLength, start);
+    }// encode ( String , File , File , Alphabet , long )
+
+    /**
+     * Closes a writer that failed part way and deletes what it wrote, so no
+     * truncated PNG is left behind.  Closing it reports the missing rows,
+     * which is kept with the failure rather than hiding it.
+     * @param failure Why the writer did not finish
+     */
+    private static void abandon(PngStripWriter writer, File output,
+            Throwable failure) {
+        try {
+            writer.close();
+        } // try
+        catch (IOException | RuntimeException e) {
+            failure.addSuppressed(e);
+        } // catch( IOException | RuntimeException )
+        output.delete();
+    }// abandon ( PngStripWriter , File , Throwable )
+
+    /**
+     * Retrieves the message hidden in an image file.
+     * @param input The image holding the message
+     * @return The hidden message, or null if the image holds none
+     * @throws IOException If the file cannot be read
+     * @see #encode(String, File, File)
+     */
+    public static String decode(File input) throws IOException {
+        return decode(input, Alphabet.LETTERS, DEFAULT_STRIP_BYTES);
+    }// decode ( File )
+
+    /**
+     * Retrieves the message hidden in an image file.
+     * @param input The image holding the message
+     * @param alphabet The alphabet the message was hidden with
+     * @param stripBytes Roughly how much memory a strip may take
+     * @return The hidden message, or null if the image holds none
+     * @throws IOException If the file cannot be read
+     * @see #encode(String, File, File, Alphabet, long)
+     */
+    public static String decode(File input, Alphabet alphabet, long stripBytes)
+            throws IOException {
+        long start = System.nanoTime();
+        FileRaster pixels = FileRaster.open(input);
+        if (pixels != null) {
+            try {
+                return decodeCarriers(pixels, alphabet, null, start);
+            } finally {
+                pixels.close();
+            }// try, finally
+        }// if
+
+        StripSource source = StripSource.open(input, stripBytes);
+        try {
+            int width = source.getWidth();
+            long totalPixels = (long) width * source.getHeight();
+
+            // the header may run over more than one strip of a narrow image
+            int[] header = new int[Steganography.HEADER_PIXELS];
+            long top = 0;
+            WritableRaster strip = source.next();
+            CarrierRaster carrier = CarrierRaster.wrap(strip);
+            Steganography.retrieveHeader(carrier, top, header);
+            while (top + carrier.getPixelCount() < Steganography.HEADER_PIXELS
+                    && source.hasNext()) {
+                top += carrier.getPixelCount();
+                strip = source.next();
+                carrier = CarrierRaster.wrap(strip);
+                Steganography.retrieveHeader(carrier, top, header);
+            }// while
+            if (totalPixels < Steganography.HEADER_PIXELS
+                    || header[Steganography.MAGIC_PIXEL] != Steganography.MAGIC) {
+                return null;
+            }// if
+            int messageLength = Steganography.checkHeader(header, totalPixels);
+            if (messageLength < 0) {
+                return null;
+            }// if
+            int spacing = Steganography.carrierSpacing(totalPixels, messageLength);
+            int first = Steganography.HEADER_PIXELS;
+            char[] message = new char[messageLength];
+
+            int from = 0;
+            while (true) {
+                long bottom = top + (long) width * strip.getHeight();
+                int to = Steganography.carrierAtOrAfter(bottom, first, spacing,
+                        messageLength);
+                if (from < to) {
+                    Steganography.retrieveChars(carrier, message, alphabet,
+                            (int) (first + (long) from * spacing - top),
+                            spacing, from, to);
+                }// if
+                from = to;
+
+                if (from == messageLength || !source.hasNext()) {
+                    break;
+                }// if
+                top = bottom;
+                strip = source.next();
+                carrier = CarrierRaster.wrap(strip);
+            }// while
+
+            Steganography.checkChecksum(header, message, alphabet);
+            Steganography.recordDecode(messageLength, start);
+            return new String(message);
+        } finally {
+            source.close();
+        }// try, finally
+    }// decode ( File , Alphabet , long )
+
+    /**
+     * Retrieves the message hidden in an image stream, reading only the
+     * carrier pixels if the format allows it.  Formats that have to be
+     * decoded from the top are read whole.  The stream is closed.
+     * @param input The image holding the message, which has to support
+     *  seeking back
+     * @param alphabet The alphabet the message was hidden with
+     * @return The hidden message, or null if the image holds none
+     * @throws IOException If the stream cannot be read
+     * @see Steganography#decodeImage(BufferedImage, Alphabet)
+     */
+    public static String decode(ImageInputStream input, Alphabet alphabet)
+            throws IOException {
+        long start = System.nanoTime();
+        FileRaster pixels = FileRaster.open(input);
+        if (pixels == null) {
+            // ImageIO closes the stream unless it finds no reader
+            BufferedImage image = ImageIO.read(input);
+            if (image == null) {
+                input.close();
+                throw new NoReader();
+            }// if
+            return Steganography.decodeImage(image, alphabet);
+        }// if
+
+        try {
+            return decodeCarriers(pixels, alphabet, null, start);
+        } finally {
+            pixels.close();
+        }// try, finally
+    }// decode ( ImageInputStream , Alphabet )
+
+    /**
+     * Retrieves a message hidden with a key in an image stream, reading only
+     * the header and the carrier pixels if the format allows it.  Formats
+     * that have to be decoded from the top are read whole.  The stream is
+     * closed.
+     * @param input The image holding the message, which has to support
+     *  seeking back
+     * @param alphabet The alphabet the message was hidden with
+     * @param key The key the message was hidden with
+     * @return The hidden message, or null if the image holds none
+     * @throws IOException If the stream cannot be read
+     * @see Steganography#decodeImage(java.awt.image.RenderedImage, Alphabet,
+     *  long)
+     */
+    public static String decode(ImageInputStream input, Alphabet alphabet,
+            long key) throws IOException {
+        long start = System.nanoTime();
+        FileRaster pixels = FileRaster.open(input);
+        if (pixels == null) {
+            // ImageIO closes the stream unless it finds no reader
+            BufferedImage image = ImageIO.read(input);
+            if (image == null) {
+                input.close();
+                throw new NoReader();
+            }// if
+            return Steganography.decodeImage(image, alphabet, key);
+        }// if
+
+        try {
+            return decodeCarriers(pixels, alphabet,
+                    new CarrierScatter(key, pixels.getPixelCount()), start);
+        } finally {
+            pixels.close();
+        }// try, finally
+    }// decode ( ImageInputStream , Alphabet , long )
+
+    /**
+     * Reads the header of an image file and nothing more: the header pixels
+     * alone when the format allows it, otherwise only as many rows as hold
+     * them, which a PNG is inflated no further than.
+     * @param input The image
+     * @return The number in each header pixel, or null if the image has no
+     *  header or one that does not fit it
+     * @throws IOException If the file cannot be read
+     */
+    static int[] readHeader(File input) throws IOException {
+        int[] header = new int[Steganography.HEADER_PIXELS];
+        long totalPixels;
+        FileRaster pixels = FileRaster.open(input);
+        if (pixels != null) {
+            try {
+                if (!Steganography.hasHeader(pixels)) {
+                    return null;
+                }// if
+                Steganography.retrieveHeader(pixels, 0, header);
+                totalPixels = pixels.getPixelCount();
+            } // try
+            catch (FileRaster.ReadFailure e) {
+                throw e.getCause();
+            } // catch( FileRaster.ReadFailure )
+            finally {
+                pixels.close();
+            }// try, finally
+        } else {
+            StripSource source = StripSource.open(input, HEADER_STRIP_BYTES);
+            try {
+                totalPixels = (long) source.getWidth() * source.getHeight();
+                if (totalPixels < Steganography.HEADER_PIXELS) {
+                    return null;
+                }// if
+                for (long top = 0; top < Steganography.HEADER_PIXELS;) {
+                    CarrierRaster carrier = CarrierRaster.wrap(source.next());
+                    Steganography.retrieveHeader(carrier, top, header);
+                    top += carrier.getPixelCount();
+                }// for
+            } finally {
+                source.close();
+            }// try, finally
+            if (header[Steganography.MAGIC_PIXEL] != Steganography.MAGIC) {
+                return null;
+            }// if
+        }// if, else
+
+        if (Steganography.checkHeader(header, totalPixels) < 0) {
+            // the magic number turned up by chance
+            return null;
+        }// if
+        return header;
+    }// readHeader ( File )
+
+    /**
+     * Reads the header of bytes hidden by
+     * {@link Steganography#encodeBytes(byte[], BufferedImage, int)} in an
+     * image file and nothing more.  BMP and PPM are read straight from the
+     * file and an 8-bit RGB PNG is inflated no further than its first rows.
+     * Anything else has its first rows read through its ImageIO reader,
+     * which keeps grey and 16-bit samples as they are, though a PNG of that
+     * kind is decoded whole by the JDK's reader.
+     * @param input The image
+     * @return What the header says, or null if the image holds no hidden
+     *  bytes
+     * @throws IOException If the file cannot be read
+     */
+    static BitPlaneCodec.Header readBitPlaneHeader(File input)
+            throws IOException {
+        FileRaster pixels = FileRaster.openRaw(input);
+        if (pixels != null) {
+            try {
+                return BitPlaneCodec.probe(pixels, pixels.getPixelCount());
+            } // try
+            catch (FileRaster.ReadFailure e) {
+                throw e.getCause();
+            } // catch( FileRaster.ReadFailure )
+            finally {
+                pixels.close();
+            }// try, finally
+        }// if
+
+        StripSource source = PngStripReader.open(input, HEADER_STRIP_BYTES);
+        if (source != null) {
+            try {
+                int width = source.getWidth();
+                WritableRaster top = StripSource.createStrip(width,
+                        headerRows(width, source.getHeight()),
+                        source.hasAlpha());
+                while (source.getRow() < top.getHeight()) {
+                    top.setRect(0, source.getRow(), source.next());
+                }// while
+                return BitPlaneCodec.probe(CarrierRaster.wrap(top),
+                        (long) width * source.getHeight());
+            } finally {
+                source.close();
+            }// try, finally
+        }// if
+
+        ImageInputStream stream = ImageIO.createImageInputStream(input);
+        if (stream == null) {
+            throw new IOException("Cannot open " + input);
+        }// if
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                throw new IOException("No reader for " + input);
+            }// if
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle(0, 0, width,
+                        headerRows(width, height)));
+                return BitPlaneCodec.probe(
+                        CarrierRaster.wrap(reader.read(0, param)),
+                        (long) width * height);
+            } finally {
+                reader.dispose();
+            }// try, finally
+        } finally {
+            stream.close();
+        }// try, finally
+    }// readBitPlaneHeader ( File )
+
+    /**
+     * @return The rows that hold the longest bit plane header even at one
+     *  sample a pixel
+     */
+    private static int headerRows(int width, int height) {
+        return (int) Math.min(height,
+                (BitPlaneCodec.PADDED_HEADER_BITS + width - 1L) / width);
+    }// headerRows ( int , int )
+
+    /**
+     * Reads the header and then every carrier pixel straight from the file.
+     * @param scatter Where the carriers are, or null for one every so many
+     *  pixels
+     */
+    private static String decodeCarriers(FileRaster pixels, Alphabet alphabet,
+            CarrierScatter scatter, long start) throws IOException {
+        try {
+            if (!Steganography.hasHeader(pixels)) {
+                return null;
+            }// if
+            int[] header = new int[Steganography.HEADER_PIXELS];
+            Steganography.retrieveHeader(pixels, 0, header);
+            int messageLength = Steganography.checkHeader(header,
+                    pixels.getPixelCount());
+            if (messageLength < 0) {
+                return null;
+            }// if
+            char[] message = new char[messageLength];
+            if (scatter == null) {
+                int spacing = Steganography.carrierSpacing(
+                        pixels.getPixelCount(), messageLength);
+                Steganography.retrieveChars(pixels, message, alphabet,
+                        Steganography.HEADER_PIXELS, spacing, 0, messageLength);
+            } else {
+                Steganography.retrieveScattered(pixels, message, alphabet,
+                        scatter, null, null);
+            }// if, else
+            Steganography.checkChecksum(header, message, alphabet);
+
+            Steganography.recordDecode(messageLength, start);
+            return new String(message);
+        } // try
+        catch (FileRaster.ReadFailure e) {
+            throw e.getCause();
+        } // catch( FileRaster.ReadFailure )
+    }// decodeCarriers ( FileRaster , Alphabet , CarrierScatter , long )
+
+    /**
+     * No reader understands the image, so it may not be an image at all
+     */
+    static final class NoReader extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        NoReader() {
+            super("No reader for the image");
+        }// NoReader()
+    }// NoReader
+}// StreamingCodec
@@ -0,0 +1,240 @@
+package steganography;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Reads an image from top to bottom a strip of rows at a time, so that no
+ * more than one strip is ever held in memory.
+ * <br>
+ * Every strip comes back in the same layout whatever the file holds: one
+ * byte per sample, the samples of a pixel next to each other in the order
+ * R, G, B and, when the image has one, alpha.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+abstract class StripSource implements Closeable {
+
+    /**
+     * Width of the image in pixels
+     */
+    protected final int width;
+    /**
+     * Height of the image in pixels
+     */
+    protected final int height;
+    /**
+     * Whether the strips have an alpha band
+     */
+    protected final boolean alpha;
+    /**
+     * Number of rows in every strip but possibly the last
+     */
+    protected final int stripRows;
+    /**
+     * The next row to be read
+     */
+    protected int row;
+
+    /**
+     * @param width Width of the image in pixels
+     * @param height Height of the image in pixels
+     * @param alpha Whether the strips have an alpha band
+     * @param stripRows Number of rows in a strip
+     */
+    protected StripSource(int width, int height, boolean alpha, int stripRows) {
+        this.width = width;
+        this.height = height;
+        this.alpha = alpha;
+        this.stripRows = Math.max(1, Math.min(stripRows, height));
+    }// StripSource ( int , int , boolean , int )
+
+    /**
+     * Opens an image file for reading in strips.  PNG files are inflated as
+     * a stream.  Everything else is read through its ImageIO reader a
+     * region or a row of tiles at a time.
+     * @param file The image to read
+     * @param stripBytes Roughly how many bytes each strip may take
+     * @return The strips of the image
+     * @throws IOException If the file cannot be read as an image
+     */
+    static StripSource open(File file, long stripBytes) throws IOException {
+        StripSource png = PngStripReader.open(file, stripBytes);
+        if (png != null) {
+            return png;
+        }// if
+
+        ImageInputStream input = ImageIO.createImageInputStream(file);
+        if (input == null) {
+            throw new IOException("Cannot open " + file);
+        }// if
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            input.close();
+            throw new IOException("No reader for " + file);
+        }// if
+        ImageReader reader = readers.next();
+        reader.setInput(input, false, true);
+        return new Region(reader, input, stripBytes);
+    }// open ( File , long )
+
+    /**
+     * Works out how many rows fit in a strip.
+     * @param width Width of the image in pixels
+     * @param bands Number of bytes per pixel
+     * @param stripBytes Roughly how many bytes each strip may take
+     * @return The number of rows, at least one
+     */
+    static int rowsFor(int width, int bands, long stripBytes) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+                stripBytes / ((long) width * bands)));
+    }// rowsFor ( int , int , long )
+
+    /**
+     * Creates an empty strip in the layout every source returns.
+     * @param width Width of the strip in pixels
+     * @param rows Number of rows
+     * @param alpha Whether to include an alpha band
+     * @return The strip
+     */
+    static WritableRaster createStrip(int width, int rows, boolean alpha) {
+        int bands = alpha ? 4 : 3;
+        int[] offsets = alpha ? new int[]{0, 1, 2, 3} : new int[]{0, 1, 2};
+        return Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, width, rows,
+                width * bands, bands, offsets, null);
+    }// createStrip ( int , int , boolean )
+
+    int getWidth() {
+        return width;
+    }// getWidth()
+
+    int getHeight() {
+        return height;
+    }// getHeight()
+
+    boolean hasAlpha() {
+        return alpha;
+    }// hasAlpha()
+
+    /**
+     * @return The row the next strip starts on
+     */
+    int getRow() {
+        return row;
+    }// getRow()
+
+    /**
+     * @return Whether there are rows left to read
+     */
+    boolean hasNext() {
+        return row < height;
+    }// hasNext()
+
+    /**
+     * Reads the next strip.
+     * @return The rows starting at {@link #getRow()}, at most a strip's worth
+     * @throws IOException If the image cannot be read
+     */
+    abstract WritableRaster next() throws IOException;
+
+    /**
+     * Copies an image decoded by ImageIO into a strip at the given column.
+     */
+    static void copyInto(BufferedImage image, WritableRaster strip, int x) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        int bands = strip.getNumBands();
+        byte[] data = ((DataBufferByte) strip.getDataBuffer()).getData();
+        int[] argb = new int[w];
+
+        for (int y = 0; y < h; y++) {
+            image.getRGB(0, y, w, 1, argb, 0, w);
+            int offset = (y * strip.getWidth() + x) * bands;
+            for (int i = 0; i < w; i++) {
+                int pixel = argb[i];
+                data[offset] = (byte) (pixel >> 16);
+                data[offset + 1] = (byte) (pixel >> 8);
+                data[offset + 2] = (byte) pixel;
+                if (bands == 4) {
+                    data[offset + 3] = (byte) (pixel >>> 24);
+                }// if
+                offset += bands;
+            }// for
+        }// for
+    }// copyInto ( BufferedImage , WritableRaster , int )
+
+    /**
+     * Reads through an ImageIO reader.  Tiled images are read a row of tiles
+     * at a time with readTile, others a region of rows at a time.
+     * <br>
+     * How cheap a region is depends on the format: BMP and TIFF seek straight
+     * to it, while compressed formats without an index, such as JPEG, have to
+     * be decoded from the top again for every strip.
+     */
+    private static final class Region extends StripSource {
+
+        private final ImageReader reader;
+        private final ImageInputStream input;
+        private final boolean tiled;
+
+        Region(ImageReader reader, ImageInputStream input, long stripBytes)
+                throws IOException {
+            super(reader.getWidth(0), reader.getHeight(0), hasAlpha(reader),
+                    reader.isImageTiled(0) ? reader.getTileHeight(0)
+                    : rowsFor(reader.getWidth(0), 4, stripBytes));
+            this.reader = reader;
+            this.input = input;
+            this.tiled = reader.isImageTiled(0)
+                    && reader.getTileGridYOffset(0) == 0
+                    && reader.getTileGridXOffset(0) == 0;
+        }// Region ( ImageReader , ImageInputStream , long )
+
+        private static boolean hasAlpha(ImageReader reader) throws IOException {
+            Iterator<ImageTypeSpecifier> types =
+                    reader.getImageTypes(0);
+            return types.hasNext() && types.next().getColorModel().hasAlpha();
+        }// hasAlpha ( ImageReader )
+
+        @Override
+        WritableRaster next() throws IOException {
+            int rows = Math.min(stripRows, height - row);
+            WritableRaster strip = createStrip(width, rows, alpha);
+
+            if (tiled) {
+                int tileY = row / stripRows;
+                int tileWidth = reader.getTileWidth(0);
+                int columns = (width + tileWidth - 1) / tileWidth;
+                for (int tileX = 0; tileX < columns; tileX++) {
+                    copyInto(reader.readTile(0, tileX, tileY), strip,
+                            tileX * tileWidth);
+                }// for
+            } else {
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle(0, row, width, rows));
+                copyInto(reader.read(0, param), strip, 0);
+            }// if, else
+
+            row += rows;
+            return strip;
+        }// next()
+
+        @Override
+        public void close() throws IOException {
+            reader.dispose();
+            input.close();
+        }// close()
+    }// Region
+}// StripSource
@@ -0,0 +1,85 @@
+package steganography;
+
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link Capacity} reports what the codecs accept, for images
+ * whose samples are too small or cannot be written.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public class CapacityTest {
+
+    private static BufferedImage image(int type) {
+        return TestImages.noise(type, type);
+    }// image ( int )
+
+    @Test
+    public void rgb565HoldsBytesUpToItsSmallestSample() {
+        BufferedImage image = image(BufferedImage.TYPE_USHORT_565_RGB);
+        Capacity capacity = Capacity.of(image);
+        assertEquals(5, capacity.getSampleBits());
+        for (int bits = 1; bits <= 5; bits++) {
+            int bytes = capacity.getBytes(bits);
+            assertTrue(bytes > 0);
+            byte[] payload = TestImages.payload(bytes, bits);
+            Steganography.encodeBytes(payload, image, bits);
+        }// for
+        for (int bits = 6; bits <= 8; bits++) {
+            assertEquals(0, capacity.getBytes(bits));
+        }// for
+    }// rgb565HoldsBytesUpToItsSmallestSample()
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rgb565RejectsMoreBitsThanItsSamples() {
+        Steganography.encodeBytes(new byte[1],
+                image(BufferedImage.TYPE_USHORT_565_RGB), 6);
+    }// rgb565RejectsMoreBitsThanItsSamples()
+
+    @Test
+    public void rgb565HoldsNoCharacters() {
+        assertEquals(0, Capacity.of(image(BufferedImage.TYPE_USHORT_565_RGB))
+                .getCharacters());
+    }// rgb565HoldsNoCharacters()
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rgb565RefusesCharacters() {
+        Steganography.encodeImage(TestImages.MESSAGE,
+                image(BufferedImage.TYPE_USHORT_565_RGB));
+    }// rgb565RefusesCharacters()
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rgb555RefusesCharacters() {
+        Steganography.encodeImage(TestImages.MESSAGE,
+                image(BufferedImage.TYPE_USHORT_555_RGB));
+    }// rgb555RefusesCharacters()
+
+    @Test
+    public void indexedHoldsNothing() {
+        Capacity capacity = Capacity.of(image(BufferedImage.TYPE_BYTE_INDEXED));
+        assertEquals(0, capacity.getCharacters());
+        for (int bits = 1; bits <= 8; bits++) {
+            assertEquals(0, capacity.getBytes(bits));
+        }// for
+    }// indexedHoldsNothing()
+
+    @Test(expected = IllegalArgumentException.class)
+    public void indexedRejectsBytes() {
+        Steganography.encodeBytes(new byte[1],
+                image(BufferedImage.TYPE_BYTE_INDEXED), 1);
+    }// indexedRejectsBytes()
+
+    @Test
+    public void eightBitRgbHoldsCharactersAndEveryBit() {
+        Capacity capacity = Capacity.of(image(BufferedImage.TYPE_INT_RGB));
+        assertEquals(8, capacity.getSampleBits());
+        assertEquals(Capacity.characters(TestImages.WIDTH * TestImages.HEIGHT),
+                capacity.getCharacters());
+        for (int bits = 1; bits <= 8; bits++) {
+            assertTrue(capacity.getBytes(bits) > 0);
+        }// for
+    }// eightBitRgbHoldsCharactersAndEveryBit()
+}// CapacityTest
@@ -0,0 +1,60 @@
+package steganography;
+
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static steganography.TestImages.MESSAGE;
+
+/**
+ * Hides messages with a key, which scatters the carriers with
+ * {@link CarrierScatter}, and reads them back with the right and the wrong
+ * key.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public class CarrierScatterTest {
+
+    private static final long KEY = 0x5EED5EEDL;
+
+    @Test
+    public void roundTripInPlace() {
+        BufferedImage image = TestImages.noise(BufferedImage.TYPE_INT_RGB, 1);
+        Steganography.encodeInPlace(MESSAGE, image, Alphabet.LETTERS, KEY);
+        assertEquals(MESSAGE, Steganography.decodeImage(image,
+                Alphabet.LETTERS, KEY));
+    }// roundTripInPlace()
+
+    @Test
+    public void roundTripCopy() {
+        BufferedImage image = TestImages.noise(BufferedImage.TYPE_3BYTE_BGR, 2);
+        EncodedImage encoded = Steganography.encodeCopy(MESSAGE, image,
+                Alphabet.LETTERS, KEY);
+        assertEquals(MESSAGE, Steganography.decodeImage(encoded,
+                Alphabet.LETTERS, KEY));
+        assertEquals(MESSAGE, Steganography.decodeImage(
+                encoded.toBufferedImage(), Alphabet.LETTERS, KEY));
+    }// roundTripCopy()
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongKeyFailsTheChecksum() {
+        BufferedImage image = TestImages.noise(BufferedImage.TYPE_INT_RGB, 3);
+        Steganography.encodeInPlace(MESSAGE, image, Alphabet.LETTERS, KEY);
+        Steganography.decodeImage(image, Alphabet.LETTERS, KEY + 1);
+    }// wrongKeyFailsTheChecksum()
+
+    @Test
+    public void carriersAreDistinctAndPastTheHeader() {
+        int pixels = TestImages.WIDTH * TestImages.HEIGHT;
+        CarrierScatter scatter = new CarrierScatter(KEY, pixels);
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < Capacity.characters(pixels); i++) {
+            int carrier = scatter.carrier(i);
+            assertTrue(carrier >= Steganography.HEADER_PIXELS);
+            assertTrue(carrier < pixels);
+            assertTrue(seen.add(carrier));
+        }// for
+    }// carriersAreDistinctAndPastTheHeader()
+}// CarrierScatterTest
@@ -0,0 +1,169 @@
+package steganography;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static steganography.TestImages.HEIGHT;
+import static steganography.TestImages.MESSAGE;
+import static steganography.TestImages.WIDTH;
+
+/**
+ * Writes every carrier layout with {@link ImageFileWriter}, reads it back
+ * with ImageIO and checks the hidden payload is still there.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public class ImageFileWriterTest {
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("writer", ".img");
+    }// createFile()
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }// deleteFile()
+
+    private BufferedImage roundTrip(BufferedImage image, int threads)
+            throws IOException {
+        ImageFileWriter writer = new ImageFileWriter(
+                ImageFileWriter.Format.PNG, -1, threads);
+        try {
+            writer.write(image, file);
+        } finally {
+            writer.close();
+        }// try, finally
+        return ImageIO.read(file);
+    }// roundTrip ( BufferedImage , int )
+
+    private void checkCharacters(BufferedImage image) throws IOException {
+        for (int threads = 1; threads <= 4; threads += 3) {
+            Steganography.encodeImage(MESSAGE, image);
+            assertEquals(MESSAGE, Steganography.decodeImage(
+                    roundTrip(image, threads)));
+        }// for
+    }// checkCharacters ( BufferedImage )
+
+    private void checkBytes(BufferedImage image) throws IOException {
+        for (int threads = 1; threads <= 4; threads += 3) {
+            byte[] payload = TestImages.payload(
+                    Capacity.of(image).getBytes(2), threads);
+            Steganography.encodeBytes(payload, image, 2);
+            assertArrayEquals(payload, Steganography.decodeBytes(
+                    roundTrip(image, threads)));
+        }// for
+    }// checkBytes ( BufferedImage )
+
+    private static void checkColours(BufferedImage expected,
+            BufferedImage actual) {
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+            }// for
+        }// for
+    }// checkColours ( BufferedImage , BufferedImage )
+
+    @Test
+    public void intRgb() throws IOException {
+        checkCharacters(TestImages.noise(BufferedImage.TYPE_INT_RGB, 1));
+        checkBytes(TestImages.noise(BufferedImage.TYPE_INT_RGB, 1));
+    }// intRgb()
+
+    @Test
+    public void intArgb() throws IOException {
+        checkCharacters(TestImages.noise(BufferedImage.TYPE_INT_ARGB, 1));
+        checkBytes(TestImages.noise(BufferedImage.TYPE_INT_ARGB, 1));
+    }// intArgb()
+
+    @Test
+    public void intBgr() throws IOException {
+        checkCharacters(TestImages.noise(BufferedImage.TYPE_INT_BGR, 1));
+        checkBytes(TestImages.noise(BufferedImage.TYPE_INT_BGR, 1));
+    }// intBgr()
+
+    @Test
+    public void threeByteBgr() throws IOException {
+        checkCharacters(TestImages.noise(BufferedImage.TYPE_3BYTE_BGR, 1));
+        checkBytes(TestImages.noise(BufferedImage.TYPE_3BYTE_BGR, 1));
+    }// threeByteBgr()
+
+    @Test
+    public void fourByteAbgr() throws IOException {
+        checkCharacters(TestImages.noise(BufferedImage.TYPE_4BYTE_ABGR, 1));
+        checkBytes(TestImages.noise(BufferedImage.TYPE_4BYTE_ABGR, 1));
+    }// fourByteAbgr()
+
+    @Test
+    public void sixteenBitRgb() throws IOException {
+        checkCharacters(TestImages.sixteenBitRgb(false, 1));
+        checkBytes(TestImages.sixteenBitRgb(false, 1));
+    }// sixteenBitRgb()
+
+    @Test
+    public void sixteenBitRgba() throws IOException {
+        checkCharacters(TestImages.sixteenBitRgb(true, 1));
+        checkBytes(TestImages.sixteenBitRgb(true, 1));
+    }// sixteenBitRgba()
+
+    @Test
+    public void byteGrey() throws IOException {
+        checkBytes(TestImages.noise(BufferedImage.TYPE_BYTE_GRAY, 1));
+    }// byteGrey()
+
+    @Test
+    public void ushortGrey() throws IOException {
+        checkBytes(TestImages.noise(BufferedImage.TYPE_USHORT_GRAY, 1));
+    }// ushortGrey()
+
+    @Test
+    public void indexedKeepsItsColours() throws IOException {
+        BufferedImage image = TestImages.noise(
+                BufferedImage.TYPE_BYTE_INDEXED, 1);
+        checkColours(image, roundTrip(image, 1));
+    }// indexedKeepsItsColours()
+
+    @Test
+    public void rgb565IsWrittenAsImageIODoes() throws IOException {
+        BufferedImage image = TestImages.noise(
+                BufferedImage.TYPE_USHORT_565_RGB, 1);
+        checkColours(image, roundTrip(image, 1));
+    }// rgb565IsWrittenAsImageIODoes()
+
+    @Test
+    public void bmpAndPpmKeepCharacters() throws IOException {
+        for (ImageFileWriter.Format format : new ImageFileWriter.Format[]{
+            ImageFileWriter.Format.BMP, ImageFileWriter.Format.PPM}) {
+            BufferedImage image = TestImages.noise(
+                    BufferedImage.TYPE_3BYTE_BGR, 1);
+            Steganography.encodeImage(MESSAGE, image);
+            ImageFileWriter writer = new ImageFileWriter(format, -1, 1);
+            try {
+                writer.write(image, file);
+            } finally {
+                writer.close();
+            }// try, finally
+            assertEquals(MESSAGE, StreamingCodec.decode(file));
+        }// for
+    }// bmpAndPpmKeepCharacters()
+
+    @Test(expected = IOException.class)
+    public void ppmRefusesGrey() throws IOException {
+        ImageFileWriter writer = new ImageFileWriter(
+                ImageFileWriter.Format.PPM, -1, 1);
+        try {
+            writer.write(TestImages.noise(BufferedImage.TYPE_BYTE_GRAY, 1),
+                    file);
+        } finally {
+            writer.close();
+        }// try, finally
+    }// ppmRefusesGrey()
+}// ImageFileWriterTest
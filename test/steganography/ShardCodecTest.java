@@ -0,0 +1,91 @@
+package steganography;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Splits payloads across images with {@link ShardCodec} and puts them back
+ * together from shards given out of order, twice or from another payload.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public class ShardCodecTest {
+
+    private static List<BufferedImage> carriers(int count, long seed) {
+        List<BufferedImage> toReturn = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            toReturn.add(TestImages.noise(BufferedImage.TYPE_INT_RGB,
+                    seed + i));
+        }// for
+        return toReturn;
+    }// carriers ( int , long )
+
+    /**
+     * @return A payload that needs every one of the carriers
+     */
+    private static byte[] fill(List<BufferedImage> carriers, long seed) {
+        return TestImages.payload(
+                (int) ShardCodec.getCapacity(carriers, 2) - 1, seed);
+    }// fill ( List<BufferedImage> , long )
+
+    @Test
+    public void roundTrip() {
+        List<BufferedImage> carriers = carriers(4, 1);
+        byte[] payload = fill(carriers, 1);
+        assertEquals(4, ShardCodec.encode(payload, carriers, 2));
+        assertArrayEquals(payload, ShardCodec.decode(carriers));
+    }// roundTrip()
+
+    @Test
+    public void anyOrder() {
+        List<BufferedImage> carriers = carriers(5, 2);
+        byte[] payload = fill(carriers, 2);
+        ShardCodec.encode(payload, carriers, 2);
+        List<BufferedImage> shuffled = new ArrayList<>(carriers);
+        Collections.shuffle(shuffled, new Random(2));
+        assertArrayEquals(payload, ShardCodec.decode(shuffled));
+        Collections.reverse(shuffled);
+        assertArrayEquals(payload, ShardCodec.decode(shuffled));
+    }// anyOrder()
+
+    @Test
+    public void duplicatesAreIgnored() {
+        List<BufferedImage> carriers = carriers(3, 3);
+        byte[] payload = fill(carriers, 3);
+        ShardCodec.encode(payload, carriers, 2);
+        assertArrayEquals(payload, ShardCodec.decode(Arrays.asList(
+                carriers.get(1), carriers.get(1), carriers.get(0),
+                carriers.get(2), carriers.get(0))));
+    }// duplicatesAreIgnored()
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingShardIsRefused() {
+        List<BufferedImage> carriers = carriers(3, 4);
+        ShardCodec.encode(fill(carriers, 4), carriers, 2);
+        ShardCodec.decode(carriers.subList(0, 2));
+    }// missingShardIsRefused()
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shardOfAnotherPayloadIsRefused() {
+        List<BufferedImage> first = carriers(2, 5);
+        List<BufferedImage> second = carriers(2, 7);
+        ShardCodec.encode(fill(first, 5), first, 2);
+        ShardCodec.encode(fill(second, 7), second, 2);
+        ShardCodec.decode(Arrays.asList(first.get(0), second.get(1)));
+    }// shardOfAnotherPayloadIsRefused()
+
+    @Test(expected = IllegalArgumentException.class)
+    public void plainImageIsRefused() {
+        List<BufferedImage> carriers = carriers(2, 9);
+        ShardCodec.encode(fill(carriers, 9), carriers, 2);
+        ShardCodec.decode(Arrays.asList(carriers.get(0),
+                TestImages.noise(BufferedImage.TYPE_INT_RGB, 11)));
+    }// plainImageIsRefused()
+}// ShardCodecTest
@@ -0,0 +1,215 @@
+package steganography;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import javax.imageio.ImageIO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scans a tree holding each kind of hidden payload, and plain images, and
+ * checks the scanner tells them apart from their headers alone.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public class StegScannerTest {
+
+    private File directory;
+    private File index;
+    private StegScanner scanner;
+
+    @Before
+    public void createTree() throws IOException {
+        directory = File.createTempFile("scanner", "");
+        directory.delete();
+        directory.mkdir();
+        index = new File(directory.getPath() + ".idx");
+        scanner = new StegScanner(2);
+    }// createTree()
+
+    @After
+    public void deleteTree() {
+        scanner.close();
+        delete(directory);
+        index.delete();
+    }// deleteTree()
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }// for
+        }// if
+        file.delete();
+    }// delete ( File )
+
+    private void write(BufferedImage image, String name) throws IOException {
+        String format = name.substring(name.lastIndexOf('.') + 1);
+        assertTrue(ImageIO.write(image, format, new File(directory, name)));
+    }// write ( BufferedImage , String )
+
+    private static byte[] payload(BufferedImage image, int bitsPerSample) {
+        return TestImages.payload(
+                Capacity.of(image).getBytes(bitsPerSample) / 2, bitsPerSample);
+    }// payload ( BufferedImage , int )
+
+    private static long crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }// crc ( byte[] )
+
+    private Map<String, StegScanner.Entry> scan() throws IOException {
+        Map<String, StegScanner.Entry> toReturn = new HashMap<>();
+        for (StegScanner.Entry entry : scanner.scan(directory, index)) {
+            toReturn.put(entry.getPath(), entry);
+        }// for
+        return toReturn;
+    }// scan()
+
+    @Test
+    public void findsCharacters() throws IOException {
+        for (String name : new String[]{"characters.png", "characters.bmp"}) {
+            BufferedImage image = TestImages.noise(
+                    BufferedImage.TYPE_3BYTE_BGR, 1);
+            Steganography.encodeImage(TestImages.MESSAGE, image);
+            write(image, name);
+        }// for
+        Map<String, StegScanner.Entry> found = scan();
+        for (String name : new String[]{"characters.png", "characters.bmp"}) {
+            StegScanner.Entry entry = found.get(name);
+            assertEquals(StegScanner.Hidden.CHARACTERS, entry.getHidden());
+            assertEquals(TestImages.MESSAGE.length(), entry.getLength());
+        }// for
+    }// findsCharacters()
+
+    @Test
+    public void findsBytes() throws IOException {
+        Map<String, byte[]> payloads = new HashMap<>();
+        for (String name : new String[]{"rgb.png", "rgb.bmp", "argb.png"}) {
+            BufferedImage image = TestImages.noise(name.startsWith("argb")
+                    ? BufferedImage.TYPE_INT_ARGB
+                    : BufferedImage.TYPE_3BYTE_BGR, 2);
+            byte[] payload = payload(image, 2);
+            Steganography.encodeBytes(payload, image, 2);
+            write(image, name);
+            payloads.put(name, payload);
+        }// for
+        Map<String, StegScanner.Entry> found = scan();
+        for (Map.Entry<String, byte[]> payload : payloads.entrySet()) {
+            StegScanner.Entry entry = found.get(payload.getKey());
+            assertEquals(StegScanner.Hidden.BYTES, entry.getHidden());
+            assertEquals(payload.getValue().length, entry.getLength());
+            assertEquals(crc(payload.getValue()), entry.getChecksum());
+        }// for
+    }// findsBytes()
+
+    @Test
+    public void findsBytesInGrey() throws IOException {
+        for (int type : new int[]{BufferedImage.TYPE_BYTE_GRAY,
+            BufferedImage.TYPE_USHORT_GRAY}) {
+            BufferedImage image = TestImages.noise(type, 3);
+            byte[] payload = payload(image, 1);
+            Steganography.encodeBytes(payload, image, 1);
+            ImageFileWriter writer = new ImageFileWriter();
+            try {
+                writer.write(image, new File(directory,
+                        "grey" + type + ".png"));
+            } finally {
+                writer.close();
+            }// try, finally
+        }// for
+        for (StegScanner.Entry entry : scan().values()) {
+            assertEquals(entry.getPath(), StegScanner.Hidden.BYTES,
+                    entry.getHidden());
+        }// for
+    }// findsBytesInGrey()
+
+    @Test
+    public void findsShards() throws IOException {
+        List<BufferedImage> carriers = Arrays.asList(
+                TestImages.noise(BufferedImage.TYPE_INT_RGB, 4),
+                TestImages.noise(BufferedImage.TYPE_INT_RGB, 5));
+        byte[] payload = TestImages.payload(
+                (int) (ShardCodec.getCapacity(carriers, 1) * 3 / 4), 4);
+        assertEquals(2, ShardCodec.encode(payload, carriers, 1));
+        write(carriers.get(0), "shard0.png");
+        write(carriers.get(1), "shard1.png");
+        Map<String, StegScanner.Entry> found = scan();
+        assertEquals(StegScanner.Hidden.BYTES, found.get("shard0.png")
+                .getHidden());
+        assertEquals(StegScanner.Hidden.BYTES, found.get("shard1.png")
+                .getHidden());
+    }// findsShards()
+
+    @Test
+    public void plainImagesHoldNothing() throws IOException {
+        write(TestImages.noise(BufferedImage.TYPE_3BYTE_BGR, 6), "plain.png");
+        write(TestImages.noise(BufferedImage.TYPE_3BYTE_BGR, 7), "plain.bmp");
+        write(TestImages.noise(BufferedImage.TYPE_BYTE_GRAY, 8),
+                "plain grey.png");
+        write(TestImages.noise(BufferedImage.TYPE_3BYTE_BGR, 9), "plain.jpg");
+        Map<String, StegScanner.Entry> found = scan();
+        assertEquals(4, found.size());
+        for (StegScanner.Entry entry : found.values()) {
+            assertFalse(entry.getPath(), entry.hasMessage());
+            assertEquals(StegScanner.Hidden.NONE, entry.getHidden());
+        }// for
+        assertEquals(0, scanner.getFailed());
+    }// plainImagesHoldNothing()
+
+    @Test
+    public void reportsUnreadableFiles() throws IOException {
+        File broken = new File(directory, "broken.png");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(broken),
+                StandardCharsets.UTF_8);
+        try {
+            writer.write("not an image");
+        } finally {
+            writer.close();
+        }// try, finally
+        write(TestImages.noise(BufferedImage.TYPE_INT_RGB, 10), "plain.png");
+        assertEquals(1, scan().size());
+        assertEquals(1, scanner.getFailed());
+        assertTrue(scanner.getFailures().containsKey(broken.getPath()));
+    }// reportsUnreadableFiles()
+
+    @Test
+    public void reportsLineBreaksInPaths() throws IOException {
+        write(TestImages.noise(BufferedImage.TYPE_INT_RGB, 13),
+                "two\nlines.png");
+        write(TestImages.noise(BufferedImage.TYPE_INT_RGB, 14), "plain.png");
+        assertEquals(1, scan().size());
+        assertEquals(1, scanner.getFailed());
+        assertTrue(scanner.getFailures().containsKey(
+                new File(directory, "two\nlines.png").getPath()));
+    }// reportsLineBreaksInPaths()
+
+    @Test
+    public void rescansOnlyChangedImages() throws IOException {
+        BufferedImage image = TestImages.noise(BufferedImage.TYPE_INT_RGB, 11);
+        Steganography.encodeBytes(payload(image, 4), image, 4);
+        write(image, "bytes.png");
+        write(TestImages.noise(BufferedImage.TYPE_INT_RGB, 12), "plain.png");
+        Map<String, StegScanner.Entry> first = scan();
+        assertEquals(2, scanner.getProbed());
+        Map<String, StegScanner.Entry> second = scan();
+        assertEquals(0, scanner.getProbed());
+        assertEquals(first.toString(), second.toString());
+    }// rescansOnlyChangedImages()
+}// StegScannerTest
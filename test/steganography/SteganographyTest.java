@@ -0,0 +1,61 @@
+package steganography;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that images which cannot hold characters, or hold the magic
+ * number by chance, decode as holding no message, the same as
+ * {@link Steganography#hasMessage} says.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+public class SteganographyTest {
+
+    /**
+     * Seed of a 40 by 40 noise image whose magic pixel reads 517 by chance
+     */
+    private static final long CHANCE_MAGIC_SEED = 679;
+
+    @Test
+    public void greyHoldsNoMessage() {
+        for (int type : new int[]{BufferedImage.TYPE_BYTE_GRAY,
+            BufferedImage.TYPE_USHORT_GRAY}) {
+            BufferedImage image = new BufferedImage(64, 64, type);
+            assertFalse(Steganography.hasMessage(image));
+            assertNull(Steganography.decodeImage(image));
+            assertNull(Steganography.decodeImage((RenderedImage) image));
+            assertNull(Steganography.decodeImage(image, Alphabet.LETTERS, 7));
+        }// for
+    }// greyHoldsNoMessage()
+
+    @Test
+    public void rgbStillDecodes() {
+        BufferedImage image = new BufferedImage(64, 64,
+                BufferedImage.TYPE_INT_RGB);
+        Steganography.encodeImage("HELLO", image);
+        assertEquals("HELLO", Steganography.decodeImage(image));
+    }// rgbStillDecodes()
+
+    @Test
+    public void chanceMagicNumberIsNoMessage() {
+        // the magic pixel of this noise reads 517 but its version does not
+        BufferedImage image = TestImages.noise(40, 40,
+                BufferedImage.TYPE_INT_RGB, CHANCE_MAGIC_SEED);
+        assertTrue(Steganography.hasHeader(CarrierRaster.wrap(image)));
+        assertFalse(Steganography.hasMessage(image));
+        assertNull(Steganography.decodeImage(image));
+        assertNull(Steganography.decodeImage((RenderedImage) image));
+    }// chanceMagicNumberIsNoMessage()
+
+    @Test(expected = IllegalArgumentException.class)
+    public void greyRejectsCharacters() {
+        Steganography.encodeImage("HELLO", new BufferedImage(64, 64,
+                BufferedImage.TYPE_BYTE_GRAY));
+    }// greyRejectsCharacters()
+}// SteganographyTest
@@ -0,0 +1,95 @@
+package steganography;
+
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.WritableRaster;
+import java.util.Random;
+
+/**
+ * Images of random samples for the tests to hide things in.  Every sample
+ * is drawn over its whole range, so the low bits of wide samples are as
+ * random as those of 8-bit ones.
+ * @author Jordan Welch
+ * @version Oct 18, 2026
+ */
+final class TestImages {
+
+    static final int WIDTH = 90;
+    static final int HEIGHT = 70;
+    /**
+     * A message that every alphabet can hide
+     */
+    static final String MESSAGE = "HELLO WORLD";
+
+    private TestImages() {
+    }// TestImages()
+
+    /**
+     * @param type A BufferedImage type
+     * @param seed Where the random samples start
+     * @return An image of {@link #WIDTH} by {@link #HEIGHT} random pixels
+     */
+    static BufferedImage noise(int type, long seed) {
+        return noise(new BufferedImage(WIDTH, HEIGHT, type), seed);
+    }// noise ( int , long )
+
+    /**
+     * @param width Width of the image in pixels
+     * @param height Height of the image in pixels
+     * @param type A BufferedImage type
+     * @param seed Where the random samples start
+     * @return An image of random pixels
+     */
+    static BufferedImage noise(int width, int height, int type, long seed) {
+        return noise(new BufferedImage(width, height, type), seed);
+    }// noise ( int , int , int , long )
+
+    /**
+     * @param alpha Whether to include an alpha band
+     * @param seed Where the random samples start
+     * @return A 16-bit RGB image of {@link #WIDTH} by {@link #HEIGHT} random
+     *  pixels
+     */
+    static BufferedImage sixteenBitRgb(boolean alpha, long seed) {
+        ColorModel model = new ComponentColorModel(
+                ColorSpace.getInstance(ColorSpace.CS_sRGB), alpha, false,
+                alpha ? Transparency.TRANSLUCENT : Transparency.OPAQUE,
+                DataBuffer.TYPE_USHORT);
+        return noise(new BufferedImage(model,
+                model.createCompatibleWritableRaster(WIDTH, HEIGHT), false,
+                null), seed);
+    }// sixteenBitRgb ( boolean , long )
+
+    /**
+     * Fills every sample of an image with a random value.
+     * @return The image
+     */
+    private static BufferedImage noise(BufferedImage image, long seed) {
+        WritableRaster raster = image.getRaster();
+        Random random = new Random(seed);
+        for (int y = 0; y < raster.getHeight(); y++) {
+            for (int x = 0; x < raster.getWidth(); x++) {
+                for (int b = 0; b < raster.getNumBands(); b++) {
+                    raster.setSample(x, y, b, random.nextInt(
+                            1 << raster.getSampleModel().getSampleSize(b)));
+                }// for
+            }// for
+        }// for
+        return image;
+    }// noise ( BufferedImage , long )
+
+    /**
+     * @param bytes How many
+     * @param seed Where the random bytes start
+     * @return Random bytes
+     */
+    static byte[] payload(int bytes, long seed) {
+        byte[] toReturn = new byte[bytes];
+        new Random(seed).nextBytes(toReturn);
+        return toReturn;
+    }// payload ( int , long )
+}// TestImages